@@ -0,0 +1,388 @@
+package com.mapnaom.foodapp.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.eloyzone.jalalicalendar.JalaliDate;
+import com.mapnaom.foodapp.dtos.ChangeDto;
+import com.mapnaom.foodapp.dtos.ChangePageDto;
+import com.mapnaom.foodapp.events.CostSharesRepricedEvent;
+import com.mapnaom.foodapp.events.DailyMealChangedEvent;
+import com.mapnaom.foodapp.events.DishChangedEvent;
+import com.mapnaom.foodapp.events.ProductionSlot;
+import com.mapnaom.foodapp.events.ReservationChangedEvent;
+import com.mapnaom.foodapp.events.ReservationStatusesSweptEvent;
+import com.mapnaom.foodapp.services.OutboxService;
+import com.mapnaom.foodapp.utils.JalaliUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * LRU cache of serialized JSON response bodies, holding each body both as is and gzip
+ * compressed. A hit writes the stored bytes of the variant the client accepts, so it does no
+ * serialization or compression work.
+ * <p>
+ * Entries are keyed by namespace and request parameters and carry the data version they were
+ * built from: a version per namespace, bumped for changes that touch all of its entries, and a
+ * version per partition (a month, a day), bumped for changes to that part only. The versions
+ * are bumped by the same events the services publish when they change the data, after commit,
+ * and by the change feed for changes made on other instances, which therefore show up here
+ * within about one relay and one poll interval. Changes that are in neither, such as edits to
+ * personnel names, show up when the entry reaches its time to live.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ResponseBodyCache {
+
+    /** Daily meals of a Jalali month, partitioned by month. */
+    public static final String MONTH_MENU = "daily-meals.month";
+    /** Dish select options. */
+    public static final String DISH_OPTIONS = "dishes.select";
+    /** Reservations to serve on a day, partitioned by date. */
+    public static final String SERVE_LIST = "reservations.serve-list";
+
+    private static final String GZIP = "gzip";
+    private static final int FEED_PAGE_SIZE = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final OutboxService outboxService;
+    private final int minGzipBytes;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private volatile long feedCursor = -1;
+
+    public ResponseBodyCache(ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             OutboxService outboxService,
+                             @Value("${app.response-cache.max-entries:256}") int maxEntries,
+                             @Value("${app.response-cache.min-gzip-bytes:1024}") int minGzipBytes,
+                             @Value("${app.response-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.outboxService = outboxService;
+        this.minGzipBytes = minGzipBytes;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Answers the request from the cache, or from {@code loader} on a miss. Replies
+     * {@code 304 Not Modified} when the client already holds the body.
+     *
+     * @param partition the part of the namespace the body is built from, or {@code null}
+     */
+    public ResponseEntity<byte[]> respond(WebRequest request, String namespace, Object partition,
+                                          Supplier<?> loader, Object... params) {
+        String key = namespace + ":" + Arrays.asList(params);
+        long namespaceVersion = version(namespace, null).get();
+        long partitionVersion = version(namespace, partition).get();
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        boolean hit = entry != null && entry.isCurrent(namespaceVersion, partitionVersion, System.nanoTime(), ttlNanos);
+        meterRegistry.counter("response.cache.requests", "namespace", namespace, "result", hit ? "hit" : "miss")
+                .increment();
+
+        if (!hit) {
+            entry = build(loader.get(), namespaceVersion, partitionVersion);
+            synchronized (entries) {
+                // Keep it only if no change was published while it was being built
+                if (version(namespace, null).get() == namespaceVersion
+                        && version(namespace, partition).get() == partitionVersion) {
+                    entries.put(key, entry);
+                }
+            }
+        }
+
+        boolean gzip = entry.gzip != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // The variants differ in bytes, so they need distinct validators
+        String etag = gzip ? "\"%s-gz\"".formatted(entry.etag) : "\"%s\"".formatted(entry.etag);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        headers.setCacheControl("no-cache");
+        headers.setETag(etag);
+        if (request.checkNotModified(etag)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return new ResponseEntity<>(gzip ? entry.gzip : entry.json, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Drops every entry of the namespace.
+     */
+    public void invalidate(String namespace) {
+        version(namespace, null).incrementAndGet();
+    }
+
+    /**
+     * Drops the entries of one partition of the namespace.
+     */
+    public void invalidate(String namespace, Object partition) {
+        version(namespace, partition).incrementAndGet();
+    }
+
+    /**
+     * The partition of {@link #MONTH_MENU} that holds {@code date}.
+     */
+    public static String monthOf(LocalDate date) {
+        JalaliDate jalali = JalaliUtils.toJalali(date);
+        return monthOf(jalali.getYear(), jalali.getMonthPersian().getValue());
+    }
+
+    public static String monthOf(int jYear, int jMonth) {
+        return "%d-%02d".formatted(jYear, jMonth);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDailyMealChanged(DailyMealChangedEvent event) {
+        invalidateMenuOf(event.getDate());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDishChanged(DishChangedEvent event) {
+        invalidateDishes();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        ProductionSlot before = event.getBefore();
+        ProductionSlot after = event.getAfter();
+        if (before == null && after == null) {
+            // Neither side counts towards production, e.g. a cancelled reservation that changed
+            invalidate(SERVE_LIST);
+            return;
+        }
+        if (before != null) {
+            invalidate(SERVE_LIST, before.getMealDate());
+        }
+        if (after != null) {
+            invalidate(SERVE_LIST, after.getMealDate());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCostSharesRepriced(CostSharesRepricedEvent event) {
+        invalidate(SERVE_LIST);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationStatusesSwept(ReservationStatusesSweptEvent event) {
+        invalidate(SERVE_LIST);
+    }
+
+    /**
+     * Applies changes made on any instance, read from the change feed. The first run only
+     * records where the feed ends, since nothing has been cached before it.
+     */
+    @Scheduled(fixedDelayString = "${app.response-cache.feed-poll-ms:1000}")
+    public void followChangeFeed() {
+        try {
+            if (feedCursor < 0) {
+                feedCursor = outboxService.getLatestCursor();
+                return;
+            }
+            ChangePageDto page;
+            do {
+                page = outboxService.getChangesSince(feedCursor, FEED_PAGE_SIZE);
+                page.getChanges().forEach(this::onFeedChange);
+                feedCursor = page.getNextCursor();
+            } while (page.isHasMore());
+        } catch (RuntimeException e) {
+            log.warn("Reading the change feed for the response cache failed, retrying on the next run: {}",
+                    e.getMessage());
+        }
+    }
+
+    private void onFeedChange(ChangeDto change) {
+        switch (change.getAggregateType()) {
+            case OutboxService.DAILY_MEAL -> invalidateMenuOf(dateAt(payloadOf(change), "date"));
+            case OutboxService.DISH -> invalidateDishes();
+            case OutboxService.COST_SHARE -> invalidate(SERVE_LIST);
+            case OutboxService.RESERVATION -> {
+                JsonNode payload = payloadOf(change);
+                LocalDate before = dateAt(payload.path("before"), "mealDate");
+                LocalDate after = dateAt(payload.path("after"), "mealDate");
+                if (before == null && after == null) {
+                    // Bulk status sweeps, cancelled reservations and payloads that could not be read
+                    invalidate(SERVE_LIST);
+                }
+                if (before != null) {
+                    invalidate(SERVE_LIST, before);
+                }
+                if (after != null) {
+                    invalidate(SERVE_LIST, after);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void invalidateMenuOf(LocalDate date) {
+        if (date == null) {
+            invalidate(MONTH_MENU);
+            invalidate(SERVE_LIST);
+            return;
+        }
+        invalidate(MONTH_MENU, monthOf(date));
+        invalidate(SERVE_LIST, date);
+    }
+
+    /**
+     * Dish names and prices appear in all three namespaces.
+     */
+    private void invalidateDishes() {
+        invalidate(DISH_OPTIONS);
+        invalidate(MONTH_MENU);
+        invalidate(SERVE_LIST);
+    }
+
+    private JsonNode payloadOf(ChangeDto change) {
+        try {
+            return objectMapper.readTree(change.getPayload() != null ? change.getPayload() : "{}");
+        } catch (JsonProcessingException e) {
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    private LocalDate dateAt(JsonNode node, String field) {
+        JsonNode value = node.path(field);
+        if (value.isMissingNode() || value.isNull()) {
+            return null;
+        }
+        try {
+            return objectMapper.treeToValue(value, LocalDate.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private Entry build(Object body, long namespaceVersion, long partitionVersion) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            byte[] gzip = json.length >= minGzipBytes ? gzip(json) : null;
+            return new Entry(json, gzip, etag(json), namespaceVersion, partitionVersion, System.nanoTime());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the response body: %s".formatted(e.getMessage()), e);
+        }
+    }
+
+    private AtomicLong version(String namespace, Object partition) {
+        return versions.computeIfAbsent(partition == null ? namespace : namespace + "@" + partition,
+                key -> new AtomicLong());
+    }
+
+    /**
+     * Whether the {@code Accept-Encoding} header allows gzip, ignoring entries with
+     * {@code q=0}.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!name.equals(GZIP) && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().replace(" ", "");
+                if (parameter.startsWith("q=") && Double.parseDouble(parameter.substring(2)) == 0) {
+                    refused = true;
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+        private final long namespaceVersion;
+        private final long partitionVersion;
+        private final long createdAt;
+
+        private Entry(byte[] json, byte[] gzip, String etag, long namespaceVersion, long partitionVersion,
+                      long createdAt) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+            this.namespaceVersion = namespaceVersion;
+            this.partitionVersion = partitionVersion;
+            this.createdAt = createdAt;
+        }
+
+        private boolean isCurrent(long namespaceVersion, long partitionVersion, long now, long ttlNanos) {
+            return this.namespaceVersion == namespaceVersion
+                    && this.partitionVersion == partitionVersion
+                    && now - createdAt < ttlNanos;
+        }
+    }
+}
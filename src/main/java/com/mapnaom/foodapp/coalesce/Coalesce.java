@@ -0,0 +1,28 @@
+package com.mapnaom.foodapp.coalesce;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets concurrent calls of a read method with equal arguments share one execution.
+ * <p>
+ * The first caller runs the method; callers arriving while it runs wait for its result instead
+ * of running their own query. Nothing is cached: once the shared call completes, the next call
+ * runs the method again. Only use on methods whose result depends on the arguments alone, not
+ * on the current user, and whose result callers do not modify.
+ * </p>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Coalesce {
+
+    /**
+     * How long a waiting caller waits for the shared call before running the method itself;
+     * {@code 0} uses {@code app.coalesce.timeout-ms}.
+     */
+    long timeoutMillis() default 0;
+}
@@ -0,0 +1,101 @@
+package com.mapnaom.foodapp.coalesce;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Implements {@link Coalesce}. Calls are keyed by method and arguments, compared with
+ * {@code equals}, and the first caller of a key runs the method on its own thread.
+ * <ul>
+ *     <li>Waiting callers get the shared result, or the exception it failed with. A failure is
+ *     not remembered; the next call runs the method again.</li>
+ *     <li>A waiting caller that times out runs the method itself, so a slow call delays others
+ *     by at most the timeout.</li>
+ *     <li>Calls made inside a read-write transaction are never shared, since they may need to
+ *     see the transaction's own uncommitted changes.</li>
+ * </ul>
+ * Runs outside the transaction advice, so waiting callers do not hold a database connection.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class CoalescingAspect {
+
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long defaultTimeoutMillis;
+
+    public CoalescingAspect(MeterRegistry meterRegistry,
+                            @Value("${app.coalesce.timeout-ms:5000}") long defaultTimeoutMillis) {
+        this.meterRegistry = meterRegistry;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        Gauge.builder("coalesce.in_flight", inFlight, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    @Around("@annotation(coalesce)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, Coalesce coalesce) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return joinPoint.proceed();
+        }
+
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        Key key = new Key(method, Arrays.asList(joinPoint.getArgs()));
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> shared = inFlight.putIfAbsent(key, call);
+
+        if (shared == null) {
+            counter(method, "leader").increment();
+            try {
+                Object result = joinPoint.proceed();
+                call.complete(result);
+                return result;
+            } catch (Throwable e) {
+                call.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, call);
+            }
+        }
+
+        long timeoutMillis = coalesce.timeoutMillis() > 0 ? coalesce.timeoutMillis() : defaultTimeoutMillis;
+        try {
+            Object result = shared.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            counter(method, "coalesced").increment();
+            return result;
+        } catch (ExecutionException e) {
+            counter(method, "failed").increment();
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            counter(method, "timeout").increment();
+            log.debug("{} waited {} ms for a shared call, running it separately", method, timeoutMillis);
+            return joinPoint.proceed();
+        }
+    }
+
+    private Counter counter(String method, String result) {
+        return Counter.builder("coalesce.calls").tag("method", method).tag("result", result).register(meterRegistry);
+    }
+
+    private record Key(String method, List<Object> args) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.mapnaom.foodapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    /**
+     * Bounded pool for report generation. Every task holds one database connection while it
+     * runs, so the pool size must stay well below the connection pool size.
+     */
+    @Bean(name = "reportExecutor")
+    public ThreadPoolTaskExecutor reportExecutor(@Value("${app.reports.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(256);
+        executor.setThreadNamePrefix("report-");
+        // Run in the caller when saturated instead of failing the report
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Single background thread for bulk maintenance jobs such as cost share recomputes, so
+     * jobs run one at a time in the order they were requested.
+     */
+    @Bean(name = "maintenanceExecutor")
+    public ThreadPoolTaskExecutor maintenanceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("maintenance-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Writes kitchen board frames to SSE clients, so a slow screen only holds one of these
+     * threads and never the scheduler.
+     */
+    @Bean(name = "boardExecutor")
+    public ThreadPoolTaskExecutor boardExecutor(@Value("${app.kitchen-board.sender-threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(1024);
+        executor.setThreadNamePrefix("board-");
+        executor.initialize();
+        return executor;
+    }
+}
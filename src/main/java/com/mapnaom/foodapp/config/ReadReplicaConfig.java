@@ -0,0 +1,69 @@
+package com.mapnaom.foodapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured data source with a primary pool plus one pool per read replica
+ * when {@code app.datasource.replica.urls} is set. Without it the application uses the single
+ * {@code spring.datasource} pool as before.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(
+            DataSourceProperties properties,
+            @Value("${app.datasource.replica.urls}") List<String> urls,
+            @Value("${app.datasource.replica.username:}") String username,
+            @Value("${app.datasource.replica.password:}") String password,
+            @Value("${app.datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${app.datasource.replica.max-lag-ms:2000}") long maxLagMillis,
+            @Value("${app.datasource.replica.sticky-window-ms:5000}") long stickyWindowMillis,
+            MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-%d".formatted(replicas.size()));
+            replica.setJdbcUrl(url.trim());
+            replica.setDriverClassName(properties.getDriverClassName());
+            replica.setUsername(StringUtils.hasText(username) ? username : properties.getUsername());
+            replica.setPassword(StringUtils.hasText(password) ? password : properties.getPassword());
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            // Let the application start while a replica is down; the lag check keeps it out of rotation
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        return new ReadReplicaRoutingDataSource(primaryDataSource(properties), replicas,
+                maxLagMillis, stickyWindowMillis, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
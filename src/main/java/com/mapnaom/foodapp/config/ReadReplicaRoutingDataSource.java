@@ -0,0 +1,182 @@
+package com.mapnaom.foodapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to a replica and everything else to the primary.
+ * <ul>
+ *     <li>Replicas are polled for their replication lag; a replica that lags more than the
+ *     allowed delay, or cannot be reached, gets no reads until it catches up. With no usable
+ *     replica, reads go to the primary.</li>
+ *     <li>After a user commits a read-write transaction, that user's reads stay on the primary
+ *     for a short window, so they see their own changes even on a lagging replica.</li>
+ * </ul>
+ * Must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * since the transaction is only marked read-only after the transaction manager has asked for
+ * its connection.
+ */
+@Slf4j
+public class ReadReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final String LAG_QUERY = """
+            select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                   else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0) end""";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final long stickyWindowMillis;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+
+    public ReadReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools,
+                                        long maxLagMillis, long stickyWindowMillis, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.maxLagMillis = maxLagMillis;
+        this.stickyWindowMillis = stickyWindowMillis;
+
+        this.primaryReads = Counter.builder("datasource.reads").tag("target", "primary").register(meterRegistry);
+        this.replicaReads = Counter.builder("datasource.reads").tag("target", "replica").register(meterRegistry);
+        for (Replica replica : replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagMillis)
+                    .tag("pool", replica.pool.getPoolName())
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route().getConnection(username, password);
+    }
+
+    private DataSource route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWrite();
+            return primary;
+        }
+        String user = currentUser();
+        if (user != null) {
+            Long lastWrite = lastWrites.get(user);
+            if (lastWrite != null && System.currentTimeMillis() - lastWrite < stickyWindowMillis) {
+                primaryReads.increment();
+                return primary;
+            }
+        }
+
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.usable) {
+                replicaReads.increment();
+                return replica.pool;
+            }
+        }
+        primaryReads.increment();
+        return primary;
+    }
+
+    /**
+     * Starts the read-your-writes window of the current user once the write transaction commits.
+     */
+    private void rememberWrite() {
+        String user = currentUser();
+        if (user == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWrites.put(user, System.currentTimeMillis());
+            }
+        });
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    /**
+     * Measures the lag of every replica and forgets expired read-your-writes windows.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.check-interval-ms:2000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(2);
+                try (ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                    long lag = resultSet.next() ? (long) resultSet.getDouble(1) : 0;
+                    replica.lagMillis = lag;
+                    boolean usable = lag <= maxLagMillis;
+                    if (usable != replica.usable) {
+                        log.warn("Replica {} {} (lag {} ms)", replica.pool.getPoolName(),
+                                usable ? "back in rotation" : "taken out of rotation", lag);
+                    }
+                    replica.usable = usable;
+                }
+            } catch (SQLException e) {
+                if (replica.usable) {
+                    log.warn("Replica {} unreachable, taken out of rotation: {}", replica.pool.getPoolName(), e.getMessage());
+                }
+                replica.usable = false;
+                replica.lagMillis = -1;
+            }
+        }
+
+        long expired = System.currentTimeMillis() - stickyWindowMillis;
+        lastWrites.values().removeIf(lastWrite -> lastWrite < expired);
+    }
+
+    /**
+     * Closes the replica pools; the primary pool is a bean of its own.
+     */
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        // Replicas start out of rotation until their first lag check
+        private volatile boolean usable;
+        private volatile long lagMillis = -1;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+}
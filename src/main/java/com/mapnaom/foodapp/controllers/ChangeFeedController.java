@@ -0,0 +1,28 @@
+package com.mapnaom.foodapp.controllers;
+
+import com.mapnaom.foodapp.dtos.ChangePageDto;
+import com.mapnaom.foodapp.services.OutboxService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Changes", description = "Change feed of reservations, cost shares and menus")
+public class ChangeFeedController {
+
+    private final OutboxService outboxService;
+
+    @GetMapping
+    @Operation(summary = "Changes after a cursor; pass the returned nextCursor as since to continue")
+    public ResponseEntity<ChangePageDto> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                    @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(outboxService.getChangesSince(since, limit));
+    }
+}
@@ -0,0 +1,37 @@
+package com.mapnaom.foodapp.controllers;
+
+import com.mapnaom.foodapp.dtos.CostCenterDto;
+import com.mapnaom.foodapp.services.GuestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/api/cost-centers")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Cost centers", description = "Cost centers that guest meals are billed to")
+public class CostCenterController {
+
+    private final GuestService guestService;
+
+    @GetMapping
+    @Operation(summary = "Get all cost centers")
+    public ResponseEntity<List<CostCenterDto>> getCostCenters() {
+        return ResponseEntity.ok(guestService.getCostCenters());
+    }
+
+    @PostMapping
+    @Operation(summary = "Create a cost center")
+    public ResponseEntity<CostCenterDto> createCostCenter(@Valid @RequestBody CostCenterDto costCenterDto) {
+        return new ResponseEntity<>(guestService.createCostCenter(costCenterDto), HttpStatus.CREATED);
+    }
+}
@@ -1,7 +1,10 @@
 package com.mapnaom.foodapp.controllers;
 
+import com.mapnaom.foodapp.cache.ResponseBodyCache;
 import com.mapnaom.foodapp.dtos.DailyMealDto;
-import com.mapnaom.foodapp.dtos.DailyMealListDto;
+import com.mapnaom.foodapp.reports.MonthlyMenuReportTemplate;
+import com.mapnaom.foodapp.reports.RenderedReport;
+import com.mapnaom.foodapp.reports.ReportRenderCache;
 import com.mapnaom.foodapp.searchForms.DailyMealSearchForm;
 import com.mapnaom.foodapp.services.DailyMealService;
 import com.mapnaom.foodapp.utils.ImportResult;
@@ -9,13 +12,17 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -32,6 +39,9 @@ import java.util.List;
 @Tag(name = "Daily Meals", description = "Daily Meal management")
 public class DailyMealController {
     private final DailyMealService dailyMealService;
+    private final MonthlyMenuReportTemplate monthlyMenuReportTemplate;
+    private final ReportRenderCache reportRenderCache;
+    private final ResponseBodyCache responseBodyCache;
 
     /**
      * Retrieves a List of DailyMeal entries for the given Jalali year and month.
@@ -42,16 +52,47 @@ public class DailyMealController {
      */
     @GetMapping("/by-jYear-and-jMonth")
     @Operation(summary = "Get all daily meals by Jalali year and month")
-    public ResponseEntity<List<DailyMealListDto>> getAllDailyMealListByjYearAndJMonth(
+    public ResponseEntity<byte[]> getAllDailyMealListByjYearAndJMonth(
             @RequestParam(name = "jYear") Integer jYear,
-            @RequestParam(name = "jMonth") Integer jMonth
+            @RequestParam(name = "jMonth") Integer jMonth,
+            WebRequest webRequest
     ) {
-        List<DailyMealListDto> dailyMeals = dailyMealService.getAllDailyMealListByJalaliYearAndJalaliMonth(jYear, jMonth);
-        return ResponseEntity.ok(dailyMeals);
+        return responseBodyCache.respond(webRequest, ResponseBodyCache.MONTH_MENU,
+                ResponseBodyCache.monthOf(jYear, jMonth),
+                () -> dailyMealService.getAllDailyMealListByJalaliYearAndJalaliMonth(jYear, jMonth),
+                jYear, jMonth);
     }
 
 
 
+    /**
+     * Downloads the menu of a Jalali month as an Excel sheet. The rendered workbook is cached
+     * until a daily meal of that month changes and is served with a strong ETag.
+     */
+    @GetMapping(value = "/menu-report.xlsx", produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+    @Operation(summary = "Download the monthly menu as an Excel file")
+    public ResponseEntity<byte[]> downloadMonthlyMenu(
+            @RequestParam(name = "jYear") Integer jYear,
+            @RequestParam(name = "jMonth") Integer jMonth,
+            WebRequest webRequest
+    ) throws IOException {
+        if (jMonth < 1 || jMonth > 12) {
+            throw new IllegalArgumentException("ماه جلالی باید بین ۱ تا ۱۲ باشد، ولی مقدار وارد شده: %d".formatted(jMonth));
+        }
+
+        RenderedReport report = reportRenderCache.get(monthlyMenuReportTemplate, jYear, jMonth);
+        if (webRequest.checkNotModified(report.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(report.getEtag()).build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(report.getEtag())
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(report.getFilename()).build().toString())
+                .body(report.getContent());
+    }
+
     /**
      * Retrieves a DailyMeal entry by its unique identifier.
      *
@@ -1,18 +1,23 @@
 package com.mapnaom.foodapp.controllers;
 
+import com.mapnaom.foodapp.reports.RenderedReport;
+import com.mapnaom.foodapp.reports.ReportRenderCache;
 import com.mapnaom.foodapp.services.DecisionMatrixExcelGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -22,64 +27,80 @@ import java.time.format.DateTimeFormatter;
 public class DecisionMatrixExcelController {
 
     private final DecisionMatrixExcelGenerator excelGenerator;
+    private final ReportRenderCache reportRenderCache;
+
+    @Value("${app.reports.export-dir:${java.io.tmpdir}/food-app-reports}")
+    private String exportDir;
 
     /**
-     * Generate the decision matrix Excel file and return it as a downloadable attachment.
-     * The file is created in a temporary location and deleted after being read.
+     * Return the decision matrix Excel file as a downloadable attachment.
+     * The workbook is rendered once and served from the report cache with a strong ETag,
+     * so clients revalidating with If-None-Match receive 304 Not Modified.
      *
      * Example:
      * GET /api/decision-matrix/excel
      * GET /api/decision-matrix/excel?filename=my-report.xlsx
      */
     @GetMapping(value = "/excel", produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-    public ResponseEntity<byte[]> downloadExcel(@RequestParam(name = "filename", required = false) String filename) {
-        Path tempFile = null;
-        try {
-            tempFile = Files.createTempFile("decision-matrix-", ".xlsx");
-            excelGenerator.generateExcel(tempFile.toString());
+    public ResponseEntity<byte[]> downloadExcel(@RequestParam(name = "filename", required = false) String filename,
+                                                WebRequest webRequest) {
+        RenderedReport report = renderReport();
 
-            byte[] fileBytes = Files.readAllBytes(tempFile);
+        if (webRequest.checkNotModified(report.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(report.getEtag()).build();
+        }
 
-            String finalName = (filename != null && !filename.isBlank())
-                    ? sanitizeFilename(filename)
-                    : defaultFilename();
+        String finalName = (filename != null && !filename.isBlank())
+                ? sanitizeFilename(filename)
+                : defaultFilename();
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-            headers.setContentDisposition(ContentDisposition.attachment().filename(finalName).build());
-            headers.setCacheControl("no-cache, no-store, must-revalidate");
-            headers.setPragma("no-cache");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(finalName).build());
+        headers.setETag(report.getEtag());
+        headers.setCacheControl("no-cache");
 
-            return new ResponseEntity<>(fileBytes, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate Excel file", e);
-        } finally {
-            if (tempFile != null) {
-                try {
-                    Files.deleteIfExists(tempFile);
-                } catch (IOException ignored) {
-                    // If deletion fails, we silently ignore.
-                }
-            }
-        }
+        return new ResponseEntity<>(report.getContent(), headers, HttpStatus.OK);
     }
 
     /**
-     * Generate the decision matrix Excel file and persist it to a specific path on the server.
+     * Persist the decision matrix Excel file on the server. Only the file name of the given
+     * path is used; the file is always written inside the configured export directory.
      *
      * Example:
-     * POST /api/decision-matrix/excel?path=/tmp/decision-matrix.xlsx
+     * POST /api/decision-matrix/excel?path=decision-matrix.xlsx
      */
     @PostMapping("/excel")
     public ResponseEntity<String> createExcelOnServer(@RequestParam("path") String filePath) {
+        Path directory = Path.of(exportDir).toAbsolutePath().normalize();
+        Path requested = Path.of(filePath).getFileName();
+        if (requested == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid file name");
+        }
+        Path target = directory.resolve(sanitizeFilename(requested.toString())).normalize();
+        if (!target.getParent().equals(directory)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid file name");
+        }
+
         try {
-            excelGenerator.generateExcel(filePath);
-            return ResponseEntity.ok("Excel generated successfully at: " + filePath);
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, "decision-matrix-", ".tmp");
+            Files.write(tempFile, renderReport().getContent());
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            return ResponseEntity.ok("Excel generated successfully at: " + target);
         } catch (IOException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate Excel file at path", e);
         }
     }
 
+    private RenderedReport renderReport() {
+        try {
+            return reportRenderCache.get(excelGenerator);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate Excel file", e);
+        }
+    }
+
     private String defaultFilename() {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
         return "decision-matrix-" + timestamp + ".xlsx";
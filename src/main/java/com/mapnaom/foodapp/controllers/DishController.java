@@ -1,11 +1,12 @@
 package com.mapnaom.foodapp.controllers;
 
+import com.mapnaom.foodapp.cache.ResponseBodyCache;
 import com.mapnaom.foodapp.dtos.DishDto;
-import com.mapnaom.foodapp.dtos.SelectOption;
 import com.mapnaom.foodapp.mappers.DishMapper;
 import com.mapnaom.foodapp.repositories.DishRepository;
 import com.mapnaom.foodapp.searchForms.DishSearchForm;
 import com.mapnaom.foodapp.services.DishService;
+import com.mapnaom.foodapp.utils.CsvUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.NotNull;
@@ -15,6 +16,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.management.Attribute;
@@ -30,6 +32,7 @@ public class DishController {
     private final DishService dishService;
     private final DishRepository dishRepository;
     private final DishMapper dishMapper;
+    private final ResponseBodyCache responseBodyCache;
 
     @PostMapping
     @Operation(summary = "Create a new dish")
@@ -68,9 +71,9 @@ public class DishController {
     }
     @GetMapping("/select")
     @Operation(summary = "Get a list of dishes as select options")
-    public ResponseEntity<List<SelectOption>> selectOptionsDishes(@ModelAttribute DishSearchForm form) {
-        List<SelectOption> dishes = dishService.selectOptionsDishes(form);
-        return ResponseEntity.ok(dishes);
+    public ResponseEntity<byte[]> selectOptionsDishes(@ModelAttribute DishSearchForm form, WebRequest webRequest) {
+        return responseBodyCache.respond(webRequest, ResponseBodyCache.DISH_OPTIONS, null,
+                () -> dishService.selectOptionsDishes(form), form);
     }
 
 
@@ -100,9 +103,9 @@ public class DishController {
     }
 
     /**
-     * Imports dishes from an uploaded Excel file.
+     * Imports dishes from an uploaded Excel or CSV/TSV file.
      *
-     * @param file the Excel file containing dish records
+     * @param file the Excel or delimited text file containing dish records
      * @return a list of imported DishDto objects
      */
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -131,4 +134,30 @@ public class DishController {
         }
     }
 
+    @GetMapping("/download-all-dishes.csv")
+    @Operation(summary = "Export dishes to a CSV file")
+    public ResponseEntity<byte[]> exportDishesCsv(
+            @ModelAttribute DishSearchForm form,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "ASC") String order) {
+        byte[] fileContent = dishService.exportDishesToCsv(form, sortBy, order, ',');
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=dishes.csv")
+                .header("Content-Type", CsvUtil.CSV_CONTENT_TYPE + "; charset=UTF-8")
+                .body(fileContent);
+    }
+
+    @GetMapping("/download-all-dishes.tsv")
+    @Operation(summary = "Export dishes to a TSV file")
+    public ResponseEntity<byte[]> exportDishesTsv(
+            @ModelAttribute DishSearchForm form,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "ASC") String order) {
+        byte[] fileContent = dishService.exportDishesToCsv(form, sortBy, order, '\t');
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=dishes.tsv")
+                .header("Content-Type", CsvUtil.TSV_CONTENT_TYPE + "; charset=UTF-8")
+                .body(fileContent);
+    }
+
 }
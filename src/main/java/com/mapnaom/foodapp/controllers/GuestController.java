@@ -0,0 +1,54 @@
+package com.mapnaom.foodapp.controllers;
+
+import com.mapnaom.foodapp.dtos.CostCenterBillingRowDto;
+import com.mapnaom.foodapp.dtos.GuestBookingRequestDto;
+import com.mapnaom.foodapp.dtos.GuestDto;
+import com.mapnaom.foodapp.services.GuestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/api/guests")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Guests", description = "Guest meals billed to cost centers")
+public class GuestController {
+
+    private final GuestService guestService;
+
+    @PostMapping("/batch")
+    @Operation(summary = "Book a meal for a whole crew of guests on one dish of the day")
+    public ResponseEntity<List<GuestDto>> bookCrew(@Valid @RequestBody GuestBookingRequestDto request) {
+        return new ResponseEntity<>(guestService.bookCrew(request), HttpStatus.CREATED);
+    }
+
+    @GetMapping
+    @Operation(summary = "Get the guests booked for a date")
+    public ResponseEntity<List<GuestDto>> getGuestsByDate(@RequestParam LocalDate date) {
+        return ResponseEntity.ok(guestService.getGuestsByDate(date));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Cancel the meal of a guest")
+    public ResponseEntity<Void> deleteGuest(@PathVariable Long id) {
+        guestService.deleteGuest(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/billing")
+    @Operation(summary = "Guest meal count and amount per cost center for a Jalali month")
+    public ResponseEntity<List<CostCenterBillingRowDto>> getMonthlyBilling(@RequestParam int jYear,
+                                                                           @RequestParam int jMonth) {
+        return ResponseEntity.ok(guestService.getMonthlyBilling(jYear, jMonth));
+    }
+}
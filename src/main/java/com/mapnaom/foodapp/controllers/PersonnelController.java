@@ -5,6 +5,7 @@ import com.mapnaom.foodapp.dtos.SelectOption;
 import com.mapnaom.foodapp.exceptions.PersonnelHasReservationsException;
 import com.mapnaom.foodapp.searchForms.PersonnelSearchForm;
 import com.mapnaom.foodapp.services.PersonnelService;
+import com.mapnaom.foodapp.utils.CsvUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -124,7 +125,7 @@ public class PersonnelController {
     }
 
     @PostMapping("/import")
-    @Operation(summary = "Import personnel from an Excel file")
+    @Operation(summary = "Import personnel from an Excel or CSV/TSV file")
     public ResponseEntity<List<PersonnelDto>> importPersonnelFromExcel(@RequestParam("file") MultipartFile file) {
         List<PersonnelDto> importedPersonnel = personnelService.importFromExcel(file);
         return new ResponseEntity<>(importedPersonnel, HttpStatus.CREATED);
@@ -139,4 +140,24 @@ public class PersonnelController {
                 .header("Content-Disposition", "attachment; filename=personnel.xlsx")
                 .body(excelData);
         }
+
+    @GetMapping("/download-all-personnel.csv")
+    @Operation(summary = "Export personnel to a CSV file")
+    public ResponseEntity<byte[]> exportPersonnelToCsv() {
+        byte[] csvData = personnelService.exportToCsv(',');
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=personnel.csv")
+                .header("Content-Type", CsvUtil.CSV_CONTENT_TYPE + "; charset=UTF-8")
+                .body(csvData);
+    }
+
+    @GetMapping("/download-all-personnel.tsv")
+    @Operation(summary = "Export personnel to a TSV file")
+    public ResponseEntity<byte[]> exportPersonnelToTsv() {
+        byte[] tsvData = personnelService.exportToCsv('\t');
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=personnel.tsv")
+                .header("Content-Type", CsvUtil.TSV_CONTENT_TYPE + "; charset=UTF-8")
+                .body(tsvData);
+    }
 }
@@ -0,0 +1,61 @@
+package com.mapnaom.foodapp.controllers;
+
+import com.mapnaom.foodapp.dtos.ProductionForecastRowDto;
+import com.mapnaom.foodapp.services.KitchenBoardService;
+import com.mapnaom.foodapp.services.ProductionCountService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/api/production")
+@RequiredArgsConstructor
+@Tag(name = "Production", description = "Kitchen production forecast")
+public class ProductionController {
+
+    private final ProductionCountService productionCountService;
+    private final KitchenBoardService kitchenBoardService;
+
+    @GetMapping("/forecast")
+    @Operation(summary = "Portions to cook per dish for a date, including guests")
+    public ResponseEntity<List<ProductionForecastRowDto>> getForecast(@RequestParam LocalDate date) {
+        return ResponseEntity.ok(productionCountService.getForecast(date));
+    }
+
+    @GetMapping(value = "/sheet.xlsx", produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+    @Operation(summary = "Download the production sheet of a date")
+    public ResponseEntity<byte[]> downloadProductionSheet(@RequestParam LocalDate date) {
+        byte[] sheet = productionCountService.generateProductionSheet(date);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("production-%s.xlsx".formatted(date)).build().toString())
+                .body(sheet);
+    }
+
+    @GetMapping(value = "/board", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasPrivilege('VIEW_ORDERS_TO_PREPARE') or hasRole('ADMIN')")
+    @Operation(summary = "Live per-dish reserved, delivered and remaining counts for kitchen screens")
+    public SseEmitter subscribeBoard(@RequestParam(required = false) LocalDate date) {
+        return kitchenBoardService.subscribe(date);
+    }
+
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Recount the production counters of a date from its reservations and guests")
+    public ResponseEntity<Map<String, Object>> rebuild(@RequestParam LocalDate date) {
+        int dishes = productionCountService.rebuild(date);
+        return ResponseEntity.ok(Map.of("date", date, "dishes", dishes));
+    }
+}
@@ -1,26 +1,43 @@
 package com.mapnaom.foodapp.controllers;
 
+import com.mapnaom.foodapp.cache.ResponseBodyCache;
 import com.mapnaom.foodapp.dtos.*;
 import com.mapnaom.foodapp.mappers.PersonnelReservationMapper;
 import com.mapnaom.foodapp.mappers.ReservationMapper;
 import com.mapnaom.foodapp.models.Reservation;
 import com.mapnaom.foodapp.repositories.ReservationRepository;
 import com.mapnaom.foodapp.searchForms.ReservationSearchForm;
+import com.mapnaom.foodapp.services.CostShareRecomputeService;
+import com.mapnaom.foodapp.services.PayrollExportService;
+import com.mapnaom.foodapp.services.MonthlyReservationReportService;
+import com.mapnaom.foodapp.services.ReservationImportService;
+import com.mapnaom.foodapp.services.ReservationLifecycleService;
 import com.mapnaom.foodapp.services.ReservationService;
 import com.mapnaom.foodapp.specifications.ReservationSpecification;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -35,8 +52,14 @@ public class ReservationController {
     private final PersonnelReservationMapper personnelReservationMapper;
 
     private final ReservationService    reservationService;
+    private final CostShareRecomputeService costShareRecomputeService;
+    private final PayrollExportService payrollExportService;
+    private final ReservationImportService reservationImportService;
+    private final ReservationLifecycleService reservationLifecycleService;
     private final ReservationRepository reservationRepository;
     private final ReservationMapper reservationMapper;
+    private final MonthlyReservationReportService monthlyReservationReportService;
+    private final ResponseBodyCache responseBodyCache;
 
 
     @GetMapping
@@ -58,6 +81,83 @@ public class ReservationController {
         }
     }
 
+    @GetMapping(value = "/monthly-report.xlsx", produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Download the monthly reservation report with one sheet per day")
+    public ResponseEntity<byte[]> downloadMonthlyReport(@RequestParam int jYear, @RequestParam int jMonth) {
+        byte[] report = monthlyReservationReportService.generateMonthlyReport(jYear, jMonth);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("reservations-%d-%02d.xlsx".formatted(jYear, jMonth)).build().toString())
+                .body(report);
+    }
+
+    @GetMapping("/payroll-export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Download the monthly payroll deduction file, streamed from one aggregate query")
+    public ResponseEntity<StreamingResponseBody> downloadPayrollExport(
+            @RequestParam int jYear,
+            @RequestParam int jMonth,
+            @RequestParam(defaultValue = "CSV") PayrollExportService.Format format) {
+        // Errors raised while streaming would arrive after the 200 status as a truncated file
+        payrollExportService.validate(jYear, jMonth, format);
+        String extension = format == PayrollExportService.Format.CSV ? "csv" : "txt";
+        StreamingResponseBody body = out -> payrollExportService.writeDeductions(jYear, jMonth, format, out);
+        return ResponseEntity.ok()
+                .contentType(format == PayrollExportService.Format.CSV
+                        ? MediaType.parseMediaType("text/csv") : MediaType.TEXT_PLAIN)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("payroll-%d-%02d.%s".formatted(jYear, jMonth, extension)).build().toString())
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Import reservations from an Excel sheet of persCode, Jalali date and dishId rows")
+    public ResponseEntity<ReservationImportResultDto> importReservations(@RequestParam("file") MultipartFile file)
+            throws IOException {
+        return ResponseEntity.ok(reservationImportService.importReservations(file));
+    }
+
+    @GetMapping(value = "/import/{importId}/errors.xlsx", produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Download the rejected rows of a reservation import")
+    public ResponseEntity<Resource> downloadImportErrors(@PathVariable String importId) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("reservation-import-errors-%s.xlsx".formatted(importId)).build().toString())
+                .body(new FileSystemResource(reservationImportService.getReport(importId)));
+    }
+
+    @PostMapping("/lifecycle/sweep")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Activate today's pending reservations and expire undelivered ones now")
+    public ResponseEntity<ReservationLifecycleRunDto> sweepLifecycle(
+            @RequestParam(defaultValue = "CUTOFF") ReservationLifecycleService.Phase phase) {
+        return ResponseEntity.ok(reservationLifecycleService.sweep(phase));
+    }
+
+    @GetMapping("/lifecycle")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Counts of the latest reservation lifecycle sweep")
+    public ResponseEntity<ReservationLifecycleRunDto> lifecycleStatus() {
+        return ResponseEntity.ok(reservationLifecycleService.getLastRun());
+    }
+
+    @PostMapping("/cost-shares/recompute")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Re-price the cost shares of all upcoming, undelivered reservations")
+    public ResponseEntity<CostShareRecomputeStatusDto> recomputeCostShares(@RequestParam(required = false) Long dishId) {
+        costShareRecomputeService.schedule(dishId, "manual");
+        return ResponseEntity.accepted().body(costShareRecomputeService.getStatus());
+    }
+
+    @GetMapping("/cost-shares/recompute")
+    @Operation(summary = "Progress of the latest cost share recompute")
+    public ResponseEntity<CostShareRecomputeStatusDto> costShareRecomputeStatus() {
+        return ResponseEntity.ok(costShareRecomputeService.getStatus());
+    }
+
     @PutMapping("/upsert")
     public ResponseEntity<ReservationDto> upsertReservation(@RequestBody ReservationDto reservationDto) {
         ReservationDto result = reservationService.upsertReservation(reservationDto);
@@ -75,6 +175,12 @@ public class ReservationController {
         return ResponseEntity.ok(results);
     }
 
+    @PostMapping("/plan-month")
+    @Operation(summary = "Reserve, change or cancel every day of a month for the current user in one call")
+    public ResponseEntity<MonthPlanResultDto> planMonth(@Valid @RequestBody MonthPlanRequestDto request) {
+        return ResponseEntity.ok(reservationService.planMonth(request));
+    }
+
     @PostMapping("/deliver/{id}")
     @Operation(summary = "Deliver a reservation")
     public ResponseEntity<ReservationDto> deliverReservation(@PathVariable Long id) {
@@ -170,11 +276,11 @@ public class ReservationController {
 
     @GetMapping("/serveList-byDate")
     @Operation(summary = "Get reservations by date for serving list")
-    public ResponseEntity<?> getReservationsByDate(
-            @RequestParam LocalDate date
+    public ResponseEntity<byte[]> getReservationsByDate(
+            @RequestParam LocalDate date,
+            WebRequest webRequest
     ) {
-        List<DailyPersonnelReservationListDto> reservations = reservationService
-                .getReservationsByDate(date);
-        return ResponseEntity.ok(reservations);
+        return responseBodyCache.respond(webRequest, ResponseBodyCache.SERVE_LIST, date,
+                () -> reservationService.getReservationsByDate(date), date);
     }
 }
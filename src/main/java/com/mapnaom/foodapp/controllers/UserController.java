@@ -1,14 +1,19 @@
 package com.mapnaom.foodapp.controllers;
 
+import com.mapnaom.foodapp.dtos.AssignRoleRequestDto;
+import com.mapnaom.foodapp.dtos.ChangePasswordRequestDto;
+import com.mapnaom.foodapp.dtos.ResetPasswordRequestDto;
 import com.mapnaom.foodapp.dtos.UserDto;
 import com.mapnaom.foodapp.searchForms.UserSearchForm;
 import com.mapnaom.foodapp.services.UserService;
+import com.mapnaom.foodapp.utils.SecurityUtil;
 import jakarta.validation.Valid;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -76,6 +81,29 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/{id}/roles")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserDto> assignRole(@PathVariable Long id, @Valid @RequestBody AssignRoleRequestDto request) {
+        UserDto updatedUser = userService.assignRole(id, request.getRoleName());
+        return ResponseEntity.ok(updatedUser);
+    }
+
+    @PutMapping("/{id}/password")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> resetPassword(@PathVariable Long id, @Valid @RequestBody ResetPasswordRequestDto request) {
+        userService.resetPassword(id, request.getPassword());
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/me/password")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Void> changeOwnPassword(@Valid @RequestBody ChangePasswordRequestDto request) {
+        String username = SecurityUtil.getCurrentUsername()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated"));
+        userService.changePassword(username, request.getCurrentPassword(), request.getNewPassword());
+        return ResponseEntity.noContent().build();
+    }
+
     // A DTO for creating a user with a password
     @Getter
     @Setter
@@ -0,0 +1,24 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One entry of the change feed. {@code seq} is the cursor; {@code id} identifies the event
+ * across redeliveries.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeDto {
+    private Long seq;
+    private Long id;
+    private String aggregateType;
+    private String aggregateId;
+    private String eventType;
+    private String payload;
+    private Instant createdAt;
+}
@@ -0,0 +1,19 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of the change feed. Pass {@code nextCursor} as {@code since} to read the next page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangePageDto {
+    private List<ChangeDto> changes;
+    private long nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,12 @@
+package com.mapnaom.foodapp.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class ChangePasswordRequestDto {
+    @NotBlank(message = "Current password is required")
+    private String currentPassword;
+    @NotBlank(message = "New password is required")
+    private String newPassword;
+}
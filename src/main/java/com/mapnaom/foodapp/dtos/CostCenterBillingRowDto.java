@@ -0,0 +1,18 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Guest meals of one cost center in a month, aggregated in the database for billing.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CostCenterBillingRowDto {
+    private Long costCenterId;
+    private String costCenterName;
+    private Long guestMealCount;
+    private Long totalAmount;
+}
@@ -0,0 +1,22 @@
+package com.mapnaom.foodapp.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * DTO for {@link com.mapnaom.foodapp.models.CostCenter}
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class CostCenterDto implements Serializable {
+    private Long id;
+    @NotBlank
+    private String name;
+}
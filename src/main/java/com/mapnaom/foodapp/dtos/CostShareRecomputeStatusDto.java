@@ -0,0 +1,23 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of the most recent cost share recompute job.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CostShareRecomputeStatusDto {
+    private String state;
+    private String reason;
+    private long total;
+    private long processed;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
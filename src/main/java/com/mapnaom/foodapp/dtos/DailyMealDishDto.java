@@ -20,4 +20,5 @@ public class DailyMealDishDto implements Serializable {
     private Long id;
     private Long dailyMealId;
     private Long dishId;
+    private Integer capacity;
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.mapnaom.foodapp.dtos;
+
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Flat projection of a reservation and its cost share, used by the monthly report.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyReportRowDto {
+    private Long reservationId;
+    private String persCode;
+    private String firstName;
+    private String lastName;
+    private String dishName;
+    private Integer dishPrice;
+    private ReservationStatus reservationStatus;
+    private Integer quantity;
+    private BigDecimal employeePortion;
+    private BigDecimal employerPortion;
+    private BigDecimal totalCost;
+}
@@ -0,0 +1,26 @@
+package com.mapnaom.foodapp.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A visiting crew booked on one dish of the day and billed to one cost center.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GuestBookingRequestDto {
+    @NotNull
+    private Long dailyMealDishId;
+    @NotNull
+    private Long costCenterId;
+    @NotEmpty
+    @Valid
+    private List<GuestDto> guests;
+}
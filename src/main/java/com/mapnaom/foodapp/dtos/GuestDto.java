@@ -0,0 +1,29 @@
+package com.mapnaom.foodapp.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * DTO for {@link com.mapnaom.foodapp.models.Guest}
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class GuestDto implements Serializable {
+    private Long id;
+    @NotBlank
+    private String firstName;
+    @NotBlank
+    private String lastName;
+    private Long costCenterId;
+    private String costCenterName;
+    private Long dailyMealDishId;
+    private String dishName;
+    private Integer unitPrice;
+}
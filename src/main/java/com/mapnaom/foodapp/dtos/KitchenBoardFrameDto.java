@@ -0,0 +1,23 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One update of the kitchen board: the counts of every dish of the day and the deliveries
+ * since the previous frame.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class KitchenBoardFrameDto {
+    private LocalDate date;
+    private List<ProductionForecastRowDto> dishes;
+    private List<KitchenDeliveryDto> deliveries;
+    private Instant generatedAt;
+}
@@ -0,0 +1,20 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A reservation served at the counter, pushed to the kitchen board.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class KitchenDeliveryDto {
+    private Long reservationId;
+    private Long dailyMealId;
+    private Long dishId;
+    private Instant deliveredAt;
+}
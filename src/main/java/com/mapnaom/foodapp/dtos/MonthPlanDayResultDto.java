@@ -0,0 +1,22 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one day of a month plan. {@code message} explains a {@code REJECTED} day.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MonthPlanDayResultDto {
+
+    public enum Status {RESERVED, UNCHANGED, CANCELLED, REJECTED}
+
+    private Integer day;
+    private Long dishId;
+    private Long reservationId;
+    private Status status;
+    private String message;
+}
@@ -0,0 +1,32 @@
+package com.mapnaom.foodapp.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * The current employee's choices for a Jalali month: day of the month to dish id, where a
+ * {@code null} dish cancels that day's reservation.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MonthPlanRequestDto {
+    @NotNull
+    @JsonProperty("jYear")
+    private Integer jYear;
+    @NotNull
+    @Min(1)
+    @Max(12)
+    @JsonProperty("jMonth")
+    private Integer jMonth;
+    @NotEmpty
+    private Map<Integer, Long> days;
+}
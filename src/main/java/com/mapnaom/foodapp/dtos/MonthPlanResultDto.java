@@ -0,0 +1,19 @@
+package com.mapnaom.foodapp.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MonthPlanResultDto {
+    @JsonProperty("jYear")
+    private Integer jYear;
+    @JsonProperty("jMonth")
+    private Integer jMonth;
+    private List<MonthPlanDayResultDto> days;
+}
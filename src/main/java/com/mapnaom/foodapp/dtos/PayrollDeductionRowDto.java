@@ -0,0 +1,19 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Monthly meal deduction of one employee, aggregated in the database for the payroll export.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PayrollDeductionRowDto {
+    private String persCode;
+    private Long mealCount;
+    private BigDecimal employeeTotal;
+}
@@ -0,0 +1,31 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Portions of one dish to cook for a daily meal.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductionForecastRowDto {
+    private LocalDate mealDate;
+    private Long dailyMealId;
+    private Long dishId;
+    private String dishName;
+    private int reservedCount;
+    private int deliveredCount;
+    private int guestCount;
+
+    public int getTotal() {
+        return reservedCount + guestCount;
+    }
+
+    public int getRemaining() {
+        return getTotal() - deliveredCount;
+    }
+}
@@ -16,4 +16,6 @@ public class ReservationDto {
     private Long dailyMealDishId;
     private BigDecimal costShares;
     private ReservationStatus reservationStatus;
+    // Version the client last read; an update with an older one is rejected instead of overwriting
+    private Long version;
 }
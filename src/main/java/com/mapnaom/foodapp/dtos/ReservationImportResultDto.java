@@ -0,0 +1,21 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a reservation import. {@code importId} names the error report of the rejected
+ * rows, and is {@code null} when no row was rejected.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationImportResultDto {
+    private String importId;
+    private long totalRows;
+    private long reserved;
+    private long unchanged;
+    private long rejected;
+    private long durationMillis;
+}
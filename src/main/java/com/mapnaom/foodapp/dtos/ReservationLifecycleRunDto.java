@@ -0,0 +1,26 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Counts of the most recent reservation lifecycle sweep. {@code state} is {@code SKIPPED} when
+ * another instance held the sweep lock.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationLifecycleRunDto {
+    private String state;
+    private String phase;
+    private LocalDate mealDate;
+    private long activated;
+    private long expired;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
@@ -0,0 +1,10 @@
+package com.mapnaom.foodapp.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class ResetPasswordRequestDto {
+    @NotBlank(message = "Password is required")
+    private String password;
+}
@@ -0,0 +1,11 @@
+package com.mapnaom.foodapp.events;
+
+import lombok.Value;
+
+/**
+ * Published whenever the application settings are saved.
+ */
+@Value
+public class AppSettingChangedEvent {
+    Long version;
+}
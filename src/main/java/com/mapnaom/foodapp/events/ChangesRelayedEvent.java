@@ -0,0 +1,14 @@
+package com.mapnaom.foodapp.events;
+
+import com.mapnaom.foodapp.dtos.ChangeDto;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A batch of outbox events relayed to in-process listeners, in feed order.
+ */
+@Value
+public class ChangesRelayedEvent {
+    List<ChangeDto> changes;
+}
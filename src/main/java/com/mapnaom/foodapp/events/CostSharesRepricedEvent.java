@@ -0,0 +1,15 @@
+package com.mapnaom.foodapp.events;
+
+import lombok.Value;
+
+/**
+ * Published inside the transaction of each chunk of a bulk cost share update, covering cost
+ * shares with {@code fromId <= id < toId}.
+ */
+@Value
+public class CostSharesRepricedEvent {
+    long fromId;
+    long toId;
+    int updated;
+    String reason;
+}
@@ -0,0 +1,13 @@
+package com.mapnaom.foodapp.events;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Published whenever the menu of a day is created, changed or removed.
+ */
+@Value
+public class DailyMealChangedEvent {
+    LocalDate date;
+}
@@ -0,0 +1,11 @@
+package com.mapnaom.foodapp.events;
+
+import lombok.Value;
+
+/**
+ * Published whenever a dish is created, updated or removed.
+ */
+@Value
+public class DishChangedEvent {
+    Long dishId;
+}
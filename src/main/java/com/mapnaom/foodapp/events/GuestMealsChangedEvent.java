@@ -0,0 +1,12 @@
+package com.mapnaom.foodapp.events;
+
+import lombok.Value;
+
+/**
+ * Published inside the transaction when guests are booked on, or removed from, a dish of the day.
+ */
+@Value
+public class GuestMealsChangedEvent {
+    ProductionSlot slot;
+    int delta;
+}
@@ -0,0 +1,17 @@
+package com.mapnaom.foodapp.events;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * The dish of a daily meal that a reservation or guest takes a portion from, and whether
+ * that portion has been served.
+ */
+@Value
+public class ProductionSlot {
+    LocalDate mealDate;
+    Long dailyMealId;
+    Long dishId;
+    boolean delivered;
+}
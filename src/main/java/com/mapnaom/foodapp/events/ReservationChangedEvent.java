@@ -0,0 +1,26 @@
+package com.mapnaom.foodapp.events;
+
+import lombok.Value;
+
+import java.util.Objects;
+
+/**
+ * Published inside the transaction whenever a reservation is written. A slot is {@code null}
+ * when the reservation did not take a portion on that side of the change; both slots are
+ * equal when the change did not affect production.
+ */
+@Value
+public class ReservationChangedEvent {
+    Long reservationId;
+    Change change;
+    ProductionSlot before;
+    ProductionSlot after;
+
+    public enum Change {
+        CREATED, UPDATED, DELIVERED, RETURNED, CLEARED, DELETED
+    }
+
+    public boolean affectsProduction() {
+        return !Objects.equals(before, after);
+    }
+}
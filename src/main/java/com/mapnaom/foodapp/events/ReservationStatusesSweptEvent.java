@@ -0,0 +1,13 @@
+package com.mapnaom.foodapp.events;
+
+import lombok.Value;
+
+/**
+ * Published after a lifecycle sweep changed the status of reservations in bulk, which no
+ * per-reservation event reports.
+ */
+@Value
+public class ReservationStatusesSweptEvent {
+    long activated;
+    long expired;
+}
@@ -0,0 +1,21 @@
+package com.mapnaom.foodapp.events;
+
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Published inside the transaction of each chunk of a lifecycle sweep, covering reservations
+ * with {@code fromId <= id < toId} and a meal up to {@code lastDate} that moved from
+ * {@code from} to {@code to}.
+ */
+@Value
+public class ReservationStatusesTransitionedEvent {
+    long fromId;
+    long toId;
+    ReservationStatus from;
+    ReservationStatus to;
+    LocalDate lastDate;
+    int updated;
+}
@@ -0,0 +1,12 @@
+package com.mapnaom.foodapp.events;
+
+import lombok.Value;
+
+/**
+ * Published when a user's credentials, status or roles change, so cached authentication
+ * state for that user can be discarded. A {@code null} username means every user is affected.
+ */
+@Value
+public class UserSecurityChangedEvent {
+    String username;
+}
@@ -0,0 +1,7 @@
+package com.mapnaom.foodapp.exceptions;
+
+public class DishCapacityExceededException extends BusinessException {
+    public DishCapacityExceededException(String message) {
+        super(message);
+    }
+}
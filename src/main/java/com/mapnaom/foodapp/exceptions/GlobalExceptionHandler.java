@@ -8,6 +8,7 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -130,6 +131,36 @@ public class GlobalExceptionHandler {
     logger.error("Duplicate daily meal by date exception: {}", ex.getMessage(), ex);
     return createErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
 }
+//ReservationClosedException
+    @ExceptionHandler(ReservationClosedException.class)
+    public ResponseEntity<Map<String, Object>> handleReservationClosedException(ReservationClosedException ex) {
+        logger.warn("Reservation closed exception: {}", ex.getMessage());
+        return createErrorResponse(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+//DuplicateResourceException
+    @ExceptionHandler(DuplicateResourceException.class)
+    public ResponseEntity<Map<String, Object>> handleDuplicateResourceException(DuplicateResourceException ex) {
+        logger.warn("Duplicate resource: {}", ex.getMessage());
+        return createErrorResponse(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+//StaleVersionException
+    @ExceptionHandler(StaleVersionException.class)
+    public ResponseEntity<Map<String, Object>> handleStaleVersionException(StaleVersionException ex) {
+        logger.warn("Stale version: {}", ex.getMessage());
+        return createErrorResponse(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+//OptimisticLockingFailureException, and lock timeouts or deadlocks once the retries are used up
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleConcurrencyFailureException(ConcurrencyFailureException ex) {
+        logger.warn("Concurrent modification: {}", ex.getMessage());
+        return createErrorResponse("این رکورد همزمان توسط کاربر دیگری تغییر کرده است؛ لطفا دوباره تلاش کنید", HttpStatus.CONFLICT);
+    }
+//DishCapacityExceededException
+    @ExceptionHandler(DishCapacityExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleDishCapacityExceededException(DishCapacityExceededException ex) {
+        logger.warn("Dish capacity exceeded: {}", ex.getMessage());
+        return createErrorResponse(ex.getMessage(), HttpStatus.CONFLICT);
+    }
 //DuplicateDishInDailyMealException
     @ExceptionHandler(DuplicateDishInDailyMealException.class)
     public ResponseEntity<Map<String, Object>> handleDuplicateDishInDailyMealException(DuplicateDishInDailyMealException ex) {
@@ -0,0 +1,7 @@
+package com.mapnaom.foodapp.exceptions;
+
+public class ReservationClosedException extends BusinessException {
+    public ReservationClosedException(String message) {
+        super(message);
+    }
+}
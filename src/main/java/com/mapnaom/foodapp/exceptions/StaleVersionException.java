@@ -0,0 +1,11 @@
+package com.mapnaom.foodapp.exceptions;
+
+/**
+ * The client edited an older version of the record than the one stored. Retrying cannot help,
+ * the client has to reload the record first.
+ */
+public class StaleVersionException extends BusinessException {
+    public StaleVersionException(String message) {
+        super(message);
+    }
+}
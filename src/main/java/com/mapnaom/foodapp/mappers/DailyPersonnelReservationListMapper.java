@@ -20,7 +20,10 @@ public interface DailyPersonnelReservationListMapper {
     @Mapping(source = "costShares", target = "costShare")
     Reservation toEntity(DailyPersonnelReservationListDto dailyPersonnelReservationListDto);
 
+    // Dish name and price come from the snapshot taken at booking time
     @InheritInverseConfiguration(name = "toEntity")
+    @Mapping(source = "costShare.dishName", target = "dailyMealDishDishName")
+    @Mapping(source = "costShare.unitPrice", target = "dailyMealDishDishPrice")
     DailyPersonnelReservationListDto toDto(Reservation reservation);
 
     @InheritConfiguration(name = "toEntity")
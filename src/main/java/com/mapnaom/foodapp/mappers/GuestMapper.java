@@ -0,0 +1,15 @@
+package com.mapnaom.foodapp.mappers;
+
+import com.mapnaom.foodapp.dtos.GuestDto;
+import com.mapnaom.foodapp.models.Guest;
+import org.mapstruct.*;
+
+@Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE, componentModel = MappingConstants.ComponentModel.SPRING)
+public interface GuestMapper {
+
+    @Mapping(source = "costCenter.id", target = "costCenterId")
+    @Mapping(source = "costCenter.name", target = "costCenterName")
+    @Mapping(source = "dailyMealDish.id", target = "dailyMealDishId")
+    @Mapping(source = "dailyMealDish.dish.name", target = "dishName")
+    GuestDto toDto(Guest guest);
+}
@@ -0,0 +1,11 @@
+package com.mapnaom.foodapp.mappers;
+
+import com.mapnaom.foodapp.dtos.ChangeDto;
+import com.mapnaom.foodapp.models.OutboxEvent;
+import org.mapstruct.*;
+
+@Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE, componentModel = MappingConstants.ComponentModel.SPRING)
+public interface OutboxEventMapper {
+
+    ChangeDto toChange(OutboxEvent outboxEvent);
+}
@@ -18,7 +18,8 @@ public class CostCenter {
     @Column(nullable = false)
     private Long id;
     private String name;
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "costCenter")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "costCenter")
+    @ToString.Exclude
     private List<Guest> guests;
 
     public CostCenter(String name) {
@@ -4,11 +4,11 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.io.Serial;
 import java.io.Serializable;
 import java.math.BigDecimal;
-import java.math.BigDecimal;
 import java.util.Objects;
 
 @Entity
@@ -39,6 +39,14 @@ public class CostShare implements Serializable {
     @Column(name = "employer_portion", precision = 10, scale = 2)
     private BigDecimal employerPortion;
 
+    /** Name of the dish at booking time, so reports do not change when the dish is edited. */
+    @Column(name = "dish_name")
+    private String dishName;
+
+    /** Price of one portion at booking time. */
+    @Column(name = "unit_price")
+    private Integer unitPrice;
+
     @NotNull
     @Column(name = "quantity", nullable = false)
     private Integer quantity;
@@ -46,6 +54,11 @@ public class CostShare implements Serializable {
     @Column(name = "total_cost", precision = 10, scale = 2)
     private BigDecimal totalCost;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "reservation_id", nullable = false)
     private Reservation reservation;
@@ -54,11 +67,11 @@ public class CostShare implements Serializable {
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         CostShare costShare = (CostShare) o;
-        return Objects.equals(id, costShare.id) && Objects.equals(employeePortion, costShare.employeePortion) && Objects.equals(employeeSharePercentage, costShare.employeeSharePercentage) && Objects.equals(employerPortion, costShare.employerPortion) && Objects.equals(quantity, costShare.quantity) && Objects.equals(totalCost, costShare.totalCost) && Objects.equals(reservation, costShare.reservation);
+        return Objects.equals(id, costShare.id) && Objects.equals(employeePortion, costShare.employeePortion) && Objects.equals(employeeSharePercentage, costShare.employeeSharePercentage) && Objects.equals(employerPortion, costShare.employerPortion) && Objects.equals(dishName, costShare.dishName) && Objects.equals(unitPrice, costShare.unitPrice) && Objects.equals(quantity, costShare.quantity) && Objects.equals(totalCost, costShare.totalCost) && Objects.equals(reservation, costShare.reservation);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, employeePortion, employeeSharePercentage, employerPortion, quantity, totalCost, reservation);
+        return Objects.hash(id, employeePortion, employeeSharePercentage, employerPortion, dishName, unitPrice, quantity, totalCost, reservation);
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.github.eloyzone.jalalicalendar.JalaliDate;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.proxy.HibernateProxy;
 
 import java.time.LocalDate;
@@ -42,6 +43,11 @@ public class DailyMeal extends Auditable<String> {
     @Column(nullable = false) private int jalaliDay;
     @Column(nullable = false) private int jalaliYear;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
     /* -----------------------------------------------------------------------
        Life‑cycle callback: fills (or refreshes) the Jalali columns
        -------------------------------------------------------------------- */
@@ -20,6 +20,8 @@ public class DailyMealDish {
     @ManyToOne(cascade = {CascadeType.MERGE})
     @JoinColumn(name = "dish_id")
     private Dish dish;
+    /** Maximum portions of this dish for the day, counting reservations and guests; {@code null} means unlimited. */
+    private Integer capacity;
 
     public DailyMealDish(DailyMeal dailyMeal, Dish dish) {
         this.dailyMeal = dailyMeal;
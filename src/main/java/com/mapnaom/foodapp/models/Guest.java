@@ -14,8 +14,10 @@ import org.hibernate.type.SqlTypes;
 @AllArgsConstructor
 @NoArgsConstructor
 public class Guest {
+    // Sequence ids let Hibernate batch the inserts of a crew; identity columns disable batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "guest_seq")
+    @SequenceGenerator(name = "guest_seq", sequenceName = "guest_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -27,12 +29,18 @@ public class Guest {
     @JdbcTypeCode(SqlTypes.CHAR)
     private String lastName;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cost_center_id")
+    @ToString.Exclude
     private CostCenter costCenter;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "daily_meal_dish_id")
+    @ToString.Exclude
     private DailyMealDish dailyMealDish;
 
-}
\ No newline at end of file
+    /** Price of the dish at booking time, billed to the cost center. */
+    @Column(name = "unit_price")
+    private Integer unitPrice;
+
+}
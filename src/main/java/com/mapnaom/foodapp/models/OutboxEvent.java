@@ -0,0 +1,61 @@
+package com.mapnaom.foodapp.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A change recorded in the same transaction as the data it describes, waiting to be relayed.
+ * <p>
+ * {@code id} follows insert order, which may differ from commit order. The relay assigns
+ * {@code seq} once the row is committed and published, strictly increasing in relay order,
+ * so readers of the change feed never skip a row that committed late.
+ * </p>
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "uk_outbox_events_seq", columnList = "seq", unique = true),
+        @Index(name = "idx_outbox_events_created_at", columnList = "created_at")
+})
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** RESERVATION, DAILY_MEAL, COST_SHARE or DISH */
+    @Column(name = "aggregate_type", nullable = false, length = 32)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false, length = 64)
+    private String aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "payload", columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "seq")
+    private Long seq;
+
+    @Column(name = "published_at")
+    private Instant publishedAt;
+
+    public OutboxEvent(String aggregateType, String aggregateId, String eventType, String payload) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+}
@@ -0,0 +1,57 @@
+package com.mapnaom.foodapp.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Number of portions of one dish to cook for one daily meal, kept up to date as reservations
+ * and guests change so the kitchen forecast never has to count reservations.
+ */
+@Entity
+@Table(name = "production_counts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_production_counts_meal_dish",
+                columnNames = {"daily_meal_id", "dish_id"}),
+        indexes = @Index(name = "idx_production_counts_meal_date", columnList = "meal_date"))
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionCount {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "meal_date", nullable = false)
+    private LocalDate mealDate;
+
+    @Column(name = "daily_meal_id", nullable = false)
+    private Long dailyMealId;
+
+    @Column(name = "dish_id", nullable = false)
+    private Long dishId;
+
+    /** Reservations that are not cancelled. */
+    @Column(name = "reserved_count", nullable = false)
+    private int reservedCount;
+
+    /** Reservations already served; a subset of {@link #reservedCount}. */
+    @Column(name = "delivered_count", nullable = false)
+    private int deliveredCount;
+
+    @Column(name = "guest_count", nullable = false)
+    private int guestCount;
+
+    public ProductionCount(LocalDate mealDate, Long dailyMealId, Long dishId,
+                           int reservedCount, int deliveredCount, int guestCount) {
+        this.mealDate = mealDate;
+        this.dailyMealId = dailyMealId;
+        this.dishId = dishId;
+        this.reservedCount = reservedCount;
+        this.deliveredCount = deliveredCount;
+        this.guestCount = guestCount;
+    }
+}
@@ -3,6 +3,8 @@ package com.mapnaom.foodapp.models;
 import com.mapnaom.foodapp.enums.ReservationStatus;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.time.LocalDateTime;
 
 @Builder
@@ -39,6 +41,12 @@ public class Reservation extends Auditable<String> {
     @OneToOne(mappedBy = "reservation", cascade = CascadeType.ALL, orphanRemoval = true)
     private CostShare costShare;
 
+    // Primitive, so Spring Data still decides new vs. existing by id; the default fills existing rows
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
     public void setCostShare(CostShare costShare) {
         if (costShare != null) {
             costShare.setReservation(this);
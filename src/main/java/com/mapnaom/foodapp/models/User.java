@@ -2,6 +2,7 @@ package com.mapnaom.foodapp.models;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.proxy.HibernateProxy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -40,6 +41,14 @@ public class User implements UserDetails {
     private boolean accountExpired = false;
     private boolean credentialsExpired = false;
 
+    /**
+     * Incremented whenever tokens issued so far must stop working
+     * (role change, password reset, lock or logout).
+     */
+    @ColumnDefault("0")
+    @Column(name = "security_epoch", nullable = false)
+    private long securityEpoch;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "users_roles",
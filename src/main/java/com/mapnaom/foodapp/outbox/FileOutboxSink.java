@@ -0,0 +1,53 @@
+package com.mapnaom.foodapp.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mapnaom.foodapp.dtos.ChangeDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends relayed changes to a JSON lines file and forces them to disk before the relay marks
+ * them as published. Stands in for a webhook or message broker.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    public FileOutboxSink(ObjectMapper objectMapper, @Value("${app.outbox.file:./outbox/changes.jsonl}") String path) {
+        this.objectMapper = objectMapper;
+        this.path = Path.of(path);
+    }
+
+    @Override
+    public synchronized void publish(List<ChangeDto> changes) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (ChangeDto change : changes) {
+            lines.append(objectMapper.writeValueAsString(change)).append('\n');
+        }
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
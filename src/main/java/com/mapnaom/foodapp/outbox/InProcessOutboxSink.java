@@ -0,0 +1,26 @@
+package com.mapnaom.foodapp.outbox;
+
+import com.mapnaom.foodapp.dtos.ChangeDto;
+import com.mapnaom.foodapp.events.ChangesRelayedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hands relayed changes to {@link ChangesRelayedEvent} listeners of this application.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "in-process", matchIfMissing = true)
+public class InProcessOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(List<ChangeDto> changes) {
+        eventPublisher.publishEvent(new ChangesRelayedEvent(changes));
+    }
+}
@@ -0,0 +1,100 @@
+package com.mapnaom.foodapp.outbox;
+
+import com.mapnaom.foodapp.dtos.ChangeDto;
+import com.mapnaom.foodapp.mappers.OutboxEventMapper;
+import com.mapnaom.foodapp.models.OutboxEvent;
+import com.mapnaom.foodapp.repositories.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Moves committed outbox events to the configured {@link OutboxSink}.
+ * <p>
+ * Each run locks the oldest unrelayed rows, publishes them and assigns their feed sequence in
+ * one transaction. If the sink fails the transaction rolls back and the batch is retried on the
+ * next run. Relays of other instances block on the same rows, so sequence numbers are handed
+ * out by one relay at a time and only ever grow.
+ * </p>
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventMapper outboxEventMapper;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxEventMapper outboxEventMapper,
+                       OutboxSink sink,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${app.outbox.batch-size:200}") int batchSize,
+                       @Value("${app.outbox.retention-days:30}") int retentionDays) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventMapper = outboxEventMapper;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay-interval-ms:1000}")
+    public void relay() {
+        try {
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(tx -> relayBatch());
+            } while (relayed != null && relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findUnpublishedForUpdate(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        long seq = outboxEventRepository.findMaxSeq();
+        Instant now = Instant.now();
+        for (OutboxEvent event : batch) {
+            event.setSeq(++seq);
+            event.setPublishedAt(now);
+        }
+
+        List<ChangeDto> changes = batch.stream().map(outboxEventMapper::toChange).toList();
+        try {
+            sink.publish(changes);
+        } catch (Exception e) {
+            throw new IllegalStateException("Outbox sink failed: %s".formatted(e.getMessage()), e);
+        }
+        log.debug("Relayed {} outbox events up to seq {}", batch.size(), seq);
+        return batch.size();
+    }
+
+    /**
+     * Drops relayed events older than the retention period. Feed clients must sync at least
+     * that often.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.sweep-interval-ms:3600000}")
+    public void sweep() {
+        Integer deleted = transactionTemplate.execute(tx ->
+                outboxEventRepository.deletePublishedBefore(Instant.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Removed {} relayed outbox events", deleted);
+        }
+    }
+}
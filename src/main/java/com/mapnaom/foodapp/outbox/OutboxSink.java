@@ -0,0 +1,14 @@
+package com.mapnaom.foodapp.outbox;
+
+import com.mapnaom.foodapp.dtos.ChangeDto;
+
+import java.util.List;
+
+/**
+ * Destination of relayed outbox events. Delivery is at least once: a batch is published again
+ * if the relay fails to record it afterwards, so consumers should ignore ids they have seen.
+ */
+public interface OutboxSink {
+
+    void publish(List<ChangeDto> changes) throws Exception;
+}
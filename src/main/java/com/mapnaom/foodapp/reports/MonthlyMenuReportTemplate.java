@@ -0,0 +1,128 @@
+package com.mapnaom.foodapp.reports;
+
+import com.github.eloyzone.jalalicalendar.JalaliDate;
+import com.mapnaom.foodapp.events.DailyMealChangedEvent;
+import com.mapnaom.foodapp.events.DishChangedEvent;
+import com.mapnaom.foodapp.models.DailyMeal;
+import com.mapnaom.foodapp.models.DailyMealDish;
+import com.mapnaom.foodapp.repositories.DailyMealRepository;
+import com.mapnaom.foodapp.services.DailyMealService;
+import com.mapnaom.foodapp.utils.ExcelStyleUtil;
+import lombok.RequiredArgsConstructor;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.mapnaom.foodapp.utils.JalaliUtils.toJalali;
+
+/**
+ * Monthly menu sheet keyed by (jYear, jMonth). Cached renderings are dropped after any
+ * change to a daily meal of that month, or to any dish.
+ */
+@Component
+@RequiredArgsConstructor
+public class MonthlyMenuReportTemplate implements ReportTemplate {
+
+    public static final String TEMPLATE_NAME = "monthly-menu";
+    private static final int TEMPLATE_VERSION = 1;
+
+    private final DailyMealRepository dailyMealRepository;
+    private final ReportRenderCache reportRenderCache;
+
+    @Override
+    public String getName() {
+        return TEMPLATE_NAME;
+    }
+
+    @Override
+    public int getVersion() {
+        return TEMPLATE_VERSION;
+    }
+
+    @Override
+    public String getFilename(List<Object> params) {
+        return "menu-%d-%02d.xlsx".formatted(params.get(0), params.get(1));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public byte[] render(List<Object> params) throws IOException {
+        int jYear = (Integer) params.get(0);
+        int jMonth = (Integer) params.get(1);
+
+        List<DailyMeal> dailyMeals = dailyMealRepository.findByJalaliYearAndJalaliMonth(jYear, jMonth).stream()
+                .sorted(Comparator.comparing(DailyMeal::getDate))
+                .toList();
+
+        try (Workbook workbook = new XSSFWorkbook();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+
+            Sheet sheet = workbook.createSheet("منوی %d-%02d".formatted(jYear, jMonth));
+            sheet.setRightToLeft(true);
+
+            ExcelStyleUtil styleUtil = new ExcelStyleUtil(workbook);
+            CellStyle headerStyle = styleUtil.getHeaderStyle();
+            CellStyle dataStyle = styleUtil.getDataStyle();
+            CellStyle priceStyle = styleUtil.getPriceStyle();
+
+            String[] headers = {"تاریخ", "غذا", "قیمت"};
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+
+            int rowIdx = 1;
+            for (DailyMeal dailyMeal : dailyMeals) {
+                String jalaliDate = DailyMealService.convertGregorianToJalali(dailyMeal.getDate());
+                for (DailyMealDish dailyMealDish : dailyMeal.getDailyMealDishes()) {
+                    Row row = sheet.createRow(rowIdx++);
+
+                    Cell dateCell = row.createCell(0);
+                    dateCell.setCellValue(jalaliDate);
+                    dateCell.setCellStyle(dataStyle);
+
+                    Cell nameCell = row.createCell(1);
+                    nameCell.setCellValue(dailyMealDish.getDish().getName());
+                    nameCell.setCellStyle(dataStyle);
+
+                    Cell priceCell = row.createCell(2);
+                    Integer price = dailyMealDish.getDish().getPrice();
+                    priceCell.setCellValue(price != null ? price : 0);
+                    priceCell.setCellStyle(priceStyle);
+                }
+            }
+
+            // Fixed widths instead of autoSizeColumn, which measures every cell
+            sheet.setColumnWidth(0, 14 * 256);
+            sheet.setColumnWidth(1, 40 * 256);
+            sheet.setColumnWidth(2, 14 * 256);
+
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDailyMealChanged(DailyMealChangedEvent event) {
+        JalaliDate jalaliDate = toJalali(event.getDate());
+        reportRenderCache.invalidate(TEMPLATE_NAME, jalaliDate.getYear(), jalaliDate.getMonthPersian().getValue());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDishChanged(DishChangedEvent event) {
+        reportRenderCache.invalidateAll(TEMPLATE_NAME);
+    }
+}
@@ -0,0 +1,12 @@
+package com.mapnaom.foodapp.reports;
+
+import lombok.Value;
+
+@Value
+public class RenderedReport {
+    int templateVersion;
+    byte[] content;
+    /** Strong, quoted ETag derived from the SHA-256 of {@link #content}. */
+    String etag;
+    String filename;
+}
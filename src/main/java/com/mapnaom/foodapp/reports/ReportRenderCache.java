@@ -0,0 +1,104 @@
+package com.mapnaom.foodapp.reports;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of rendered report bytes keyed by template name and parameters.
+ * <p>
+ * An entry is reused as long as its template version matches; data-driven templates call
+ * {@link #invalidate} when the underlying data changes. Rendering happens outside the lock,
+ * and a result is only stored if no invalidation happened while it was being rendered.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ReportRenderCache {
+
+    private final Map<String, RenderedReport> entries;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public ReportRenderCache(@Value("${app.reports.cache.max-entries:32}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RenderedReport> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public RenderedReport get(ReportTemplate template, Object... params) throws IOException {
+        List<Object> paramList = List.of(params);
+        String key = cacheKey(template.getName(), paramList);
+
+        synchronized (entries) {
+            RenderedReport cached = entries.get(key);
+            if (cached != null && cached.getTemplateVersion() == template.getVersion()) {
+                return cached;
+            }
+        }
+
+        long generation = generation(template.getName()).get();
+        long start = System.currentTimeMillis();
+        byte[] content = template.render(paramList);
+        RenderedReport report = new RenderedReport(
+                template.getVersion(), content, etag(content), template.getFilename(paramList));
+        log.debug("Rendered report {} in {} ms ({} bytes)", key, System.currentTimeMillis() - start, content.length);
+
+        synchronized (entries) {
+            if (generation(template.getName()).get() == generation) {
+                entries.put(key, report);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Drops the cached rendering of one parameter set of a template.
+     */
+    public void invalidate(String templateName, Object... params) {
+        synchronized (entries) {
+            generation(templateName).incrementAndGet();
+            entries.remove(cacheKey(templateName, List.of(params)));
+        }
+    }
+
+    /**
+     * Drops every cached rendering of a template.
+     */
+    public void invalidateAll(String templateName) {
+        String prefix = templateName + ":";
+        synchronized (entries) {
+            generation(templateName).incrementAndGet();
+            entries.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    private AtomicLong generation(String templateName) {
+        return generations.computeIfAbsent(templateName, name -> new AtomicLong());
+    }
+
+    private static String cacheKey(String templateName, List<Object> params) {
+        return templateName + ":" + params;
+    }
+
+    private static String etag(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            return "\"" + HexFormat.of().formatHex(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.mapnaom.foodapp.reports;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A workbook that can be rendered once and served from {@link ReportRenderCache}
+ * until its version or parameters change.
+ */
+public interface ReportTemplate {
+
+    /**
+     * Unique name of the template, used as the cache namespace.
+     */
+    String getName();
+
+    /**
+     * Layout version; bump it whenever the rendering code changes.
+     */
+    int getVersion();
+
+    byte[] render(List<Object> params) throws IOException;
+
+    String getFilename(List<Object> params);
+}
@@ -17,7 +17,4 @@ public interface AppSettingRepository extends JpaRepository<AppSetting, Long> {
     @Query("select a from AppSetting a where a.id = :id")
     @NotNull
     Optional<AppSetting> findById(@Param("id") Long id);
-
-    @Query("select a from AppSetting a")
-    AppSetting findFirst(@Param("singletonId") Long singletonId);
 }
@@ -0,0 +1,10 @@
+package com.mapnaom.foodapp.repositories;
+
+import com.mapnaom.foodapp.models.CostCenter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CostCenterRepository extends JpaRepository<CostCenter, Long> {
+    boolean existsByName(String name);
+}
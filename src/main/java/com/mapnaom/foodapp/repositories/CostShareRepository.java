@@ -0,0 +1,117 @@
+package com.mapnaom.foodapp.repositories;
+
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.models.CostShare;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+public interface CostShareRepository extends JpaRepository<CostShare, Long> {
+
+    /**
+     * Id range and count of the cost shares of reservations on or after {@code fromDate} that
+     * are not delivered, optionally limited to one dish.
+     */
+    @Query("""
+            select min(c.id) as minId, max(c.id) as maxId, count(c) as total
+            from CostShare c
+            join c.reservation r
+            where r.dailyMeal.date >= :fromDate
+              and r.reservationStatus <> :excludedStatus
+              and (:dishId is null or r.dailyMealDish.dish.id = :dishId)
+            """)
+    IdRange findRecomputeRange(@Param("fromDate") LocalDate fromDate,
+                                @Param("excludedStatus") ReservationStatus excludedStatus,
+                                @Param("dishId") Long dishId);
+
+    /**
+     * Copies the current dish name and price onto the matching cost shares in {@code [fromId, toId)}.
+     */
+    @Modifying
+    @Query("""
+            update CostShare c
+            set c.unitPrice = coalesce((
+                    select d.price from Reservation r join r.dailyMealDish dmd join dmd.dish d
+                    where r = c.reservation), c.unitPrice),
+                c.dishName = coalesce((
+                    select d.name from Reservation r join r.dailyMealDish dmd join dmd.dish d
+                    where r = c.reservation), c.dishName),
+                c.version = c.version + 1
+            where c.id >= :fromId and c.id < :toId
+              and c.reservation.id in (
+                    select r.id from Reservation r
+                    where r.dailyMeal.date >= :fromDate
+                      and r.reservationStatus <> :excludedStatus
+                      and (:dishId is null or r.dailyMealDish.dish.id = :dishId))
+            """)
+    int recomputeDishSnapshot(@Param("fromId") long fromId,
+                           @Param("toId") long toId,
+                           @Param("fromDate") LocalDate fromDate,
+                           @Param("excludedStatus") ReservationStatus excludedStatus,
+                           @Param("dishId") Long dishId);
+
+    /**
+     * Recalculates the total cost of the matching cost shares in {@code [fromId, toId)} from the
+     * snapshotted unit price and splits it between employee and employer.
+     */
+    @Modifying
+    @Query("""
+            update CostShare c
+            set c.totalCost = c.quantity * c.unitPrice,
+                c.employeePortion = round(c.quantity * c.unitPrice * :employeeRatio, 2),
+                c.employerPortion = c.quantity * c.unitPrice - round(c.quantity * c.unitPrice * :employeeRatio, 2),
+                c.employeeSharePercentage = :employeePercentage,
+                c.version = c.version + 1
+            where c.id >= :fromId and c.id < :toId
+              and c.reservation.id in (
+                    select r.id from Reservation r
+                    where r.dailyMeal.date >= :fromDate
+                      and r.reservationStatus <> :excludedStatus
+                      and (:dishId is null or r.dailyMealDish.dish.id = :dishId))
+            """)
+    int recomputePortions(@Param("fromId") long fromId,
+                          @Param("toId") long toId,
+                          @Param("fromDate") LocalDate fromDate,
+                          @Param("excludedStatus") ReservationStatus excludedStatus,
+                          @Param("dishId") Long dishId,
+                          @Param("employeeRatio") BigDecimal employeeRatio,
+                          @Param("employeePercentage") BigDecimal employeePercentage);
+
+    @Query("select min(c.id) as minId, max(c.id) as maxId, count(c) as total from CostShare c where c.unitPrice is null")
+    IdRange findMissingSnapshotRange();
+
+    /**
+     * Fills the dish snapshot of cost shares in {@code [fromId, toId)} booked before it existed,
+     * and the total cost where it was never set.
+     */
+    @Modifying
+    @Query("""
+            update CostShare c
+            set c.unitPrice = coalesce((
+                    select d.price from Reservation r join r.dailyMealDish dmd join dmd.dish d
+                    where r = c.reservation), 0),
+                c.dishName = (
+                    select d.name from Reservation r join r.dailyMealDish dmd join dmd.dish d
+                    where r = c.reservation),
+                c.totalCost = coalesce(c.totalCost, c.quantity * coalesce((
+                    select d.price from Reservation r join r.dailyMealDish dmd join dmd.dish d
+                    where r = c.reservation), 0)),
+                c.version = c.version + 1
+            where c.id >= :fromId and c.id < :toId and c.unitPrice is null
+            """)
+    int backfillDishSnapshot(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    interface IdRange {
+        Long getMinId();
+
+        Long getMaxId();
+
+        long getTotal();
+    }
+}
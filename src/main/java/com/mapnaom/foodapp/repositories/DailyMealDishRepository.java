@@ -3,13 +3,16 @@ package com.mapnaom.foodapp.repositories;
 import com.mapnaom.foodapp.models.DailyMeal;
 import com.mapnaom.foodapp.models.DailyMealDish;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DailyMealDishRepository extends JpaRepository<DailyMealDish, Long>, JpaSpecificationExecutor<DailyMealDish> {
@@ -21,4 +24,31 @@ public interface DailyMealDishRepository extends JpaRepository<DailyMealDish, Lo
 
     @Query("select (count(d) > 0) from DailyMealDish d where d.dish.id = :dishId")
     boolean existsAllByDishId(@Param("dishId") Long dishId);
-}
\ No newline at end of file
+
+    /**
+     * Loads the dish of the day with a row lock, serializing capacity checks of concurrent bookings.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from DailyMealDish d join fetch d.dish where d.id = :id")
+    Optional<DailyMealDish> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Portions already booked for a dish of the day: active reservations plus guests.
+     */
+    @Query("""
+            select (select count(r) from Reservation r
+                    where r.dailyMealDish.id = :id and r.reservationStatus <> com.mapnaom.foodapp.enums.ReservationStatus.CANCELLED)
+                 + (select count(g) from Guest g where g.dailyMealDish.id = :id)
+            from DailyMealDish d where d.id = :id
+            """)
+    long countBookedPortions(@Param("id") Long id);
+
+    /**
+     * The whole menu of a Jalali month, with the meal and dish of every entry loaded.
+     */
+    @Query("""
+            select d from DailyMealDish d join fetch d.dailyMeal m join fetch d.dish
+            where m.jalaliYear = :jYear and m.jalaliMonth = :jMonth
+            """)
+    List<DailyMealDish> findMonthMenu(@Param("jYear") int jYear, @Param("jMonth") int jMonth);
+}
@@ -21,6 +21,12 @@ public interface DailyMealRepository extends JpaRepository<DailyMeal, Long>, Jpa
     @Query("select d from DailyMeal d where d.jalaliYear = :jalaliYear and d.jalaliMonth = :jalaliMonth")
     List<DailyMeal> findByJalaliYearAndJalaliMonth(@Param("jalaliYear") int jalaliYear, @Param("jalaliMonth") int jalaliMonth);
 
+    @Query("select distinct d.date from DailyMeal d where d.jalaliYear = :jalaliYear and d.jalaliMonth = :jalaliMonth order by d.date")
+    List<LocalDate> findDatesByJalaliYearAndJalaliMonth(@Param("jalaliYear") int jalaliYear, @Param("jalaliMonth") int jalaliMonth);
+
+    @Query("select distinct d.date from DailyMeal d where d.date >= :from order by d.date")
+    List<LocalDate> findDatesFrom(@Param("from") LocalDate from);
+
 
 
     @Query("select (count(d) > 0) from DailyMeal d where d.date = :finalDate and d.id <> :id")
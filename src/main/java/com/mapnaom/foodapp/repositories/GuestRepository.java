@@ -0,0 +1,40 @@
+package com.mapnaom.foodapp.repositories;
+
+import com.mapnaom.foodapp.dtos.CostCenterBillingRowDto;
+import com.mapnaom.foodapp.models.Guest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface GuestRepository extends JpaRepository<Guest, Long> {
+
+    @Query("""
+            select g from Guest g
+            join fetch g.dailyMealDish dmd
+            join fetch dmd.dish
+            left join fetch g.costCenter
+            where dmd.dailyMeal.date = :date
+            order by g.id""")
+    List<Guest> findAllByDate(@Param("date") LocalDate date);
+
+    /**
+     * Number of guest meals and their total price per cost center for one Jalali month,
+     * aggregated in the database.
+     */
+    @Query("""
+            select new com.mapnaom.foodapp.dtos.CostCenterBillingRowDto(
+                cc.id, cc.name, count(g), coalesce(sum(g.unitPrice), 0))
+            from Guest g
+            join g.costCenter cc
+            join g.dailyMealDish dmd
+            join dmd.dailyMeal dm
+            where dm.jalaliYear = :jYear and dm.jalaliMonth = :jMonth
+            group by cc.id, cc.name
+            order by cc.name""")
+    List<CostCenterBillingRowDto> findMonthlyBilling(@Param("jYear") int jYear, @Param("jMonth") int jMonth);
+}
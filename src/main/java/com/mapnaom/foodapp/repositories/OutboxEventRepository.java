@@ -0,0 +1,35 @@
+package com.mapnaom.foodapp.repositories;
+
+import com.mapnaom.foodapp.models.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Oldest events not relayed yet, locked so that relays of other instances wait for this one.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from OutboxEvent o where o.seq is null order by o.id")
+    List<OutboxEvent> findUnpublishedForUpdate(Pageable pageable);
+
+    @Query("select coalesce(max(o.seq), 0) from OutboxEvent o")
+    long findMaxSeq();
+
+    @Query("select o from OutboxEvent o where o.seq > :since order by o.seq")
+    List<OutboxEvent> findChangesSince(@Param("since") long since, Pageable pageable);
+
+    @Modifying
+    @Query("delete from OutboxEvent o where o.seq is not null and o.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") Instant before);
+}
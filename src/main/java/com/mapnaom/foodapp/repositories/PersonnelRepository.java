@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -30,4 +32,13 @@ public interface PersonnelRepository extends JpaRepository<Personnel, Long>, Jpa
 
     @Query("select p from Personnel p where p.username = :currentUsername")
     Personnel findByUsername(@Param("currentUsername") String currentUsername);
-}
\ No newline at end of file
+
+    @Query("select p.id as id, p.persCode as persCode from Personnel p where p.persCode in :persCodes")
+    List<PersCodeId> findIdsByPersCodeIn(@Param("persCodes") Collection<String> persCodes);
+
+    interface PersCodeId {
+        Long getId();
+
+        String getPersCode();
+    }
+}
@@ -0,0 +1,136 @@
+package com.mapnaom.foodapp.repositories;
+
+import com.mapnaom.foodapp.dtos.ProductionForecastRowDto;
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.models.ProductionCount;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ProductionCountRepository extends JpaRepository<ProductionCount, Long> {
+
+    /**
+     * Adds to the counters of one dish of a daily meal, creating the counter when it does not
+     * exist yet. A single statement, so concurrent first bookings of a dish cannot both insert.
+     */
+    @Modifying
+    @Query(value = """
+            insert into production_counts
+                (meal_date, daily_meal_id, dish_id, reserved_count, delivered_count, guest_count)
+            values (:mealDate, :dailyMealId, :dishId, :reserved, :delivered, :guests)
+            on conflict (daily_meal_id, dish_id) do update
+            set reserved_count = production_counts.reserved_count + excluded.reserved_count,
+                delivered_count = production_counts.delivered_count + excluded.delivered_count,
+                guest_count = production_counts.guest_count + excluded.guest_count""", nativeQuery = true)
+    int upsertCounts(@Param("mealDate") LocalDate mealDate, @Param("dailyMealId") Long dailyMealId,
+                     @Param("dishId") Long dishId, @Param("reserved") int reserved,
+                     @Param("delivered") int delivered, @Param("guests") int guests);
+
+    /**
+     * Sets the counters of one dish of a daily meal, creating the counter when it does not
+     * exist yet.
+     */
+    @Modifying
+    @Query(value = """
+            insert into production_counts
+                (meal_date, daily_meal_id, dish_id, reserved_count, delivered_count, guest_count)
+            values (:mealDate, :dailyMealId, :dishId, :reserved, :delivered, :guests)
+            on conflict (daily_meal_id, dish_id) do update
+            set reserved_count = excluded.reserved_count,
+                delivered_count = excluded.delivered_count,
+                guest_count = excluded.guest_count""", nativeQuery = true)
+    int upsertAbsoluteCounts(@Param("mealDate") LocalDate mealDate, @Param("dailyMealId") Long dailyMealId,
+                             @Param("dishId") Long dishId, @Param("reserved") int reserved,
+                             @Param("delivered") int delivered, @Param("guests") int guests);
+
+    /**
+     * Creates an empty counter for every dish on the menu of a day that has none. Waits for
+     * transactions that are inserting one of those counters to finish.
+     */
+    @Modifying
+    @Query(value = """
+            insert into production_counts
+                (meal_date, daily_meal_id, dish_id, reserved_count, delivered_count, guest_count)
+            select dm.meal_date, dm.id, dmd.dish_id, 0, 0, 0
+            from daily_meal dm
+            join daily_meal_dish dmd on dmd.daily_meal_id = dm.id
+            where dm.meal_date = :date and dmd.dish_id is not null
+            on conflict (daily_meal_id, dish_id) do nothing""", nativeQuery = true)
+    int insertMissingForDate(@Param("date") LocalDate date);
+
+    /**
+     * Locks the counters of a day ({@code SELECT ... FOR UPDATE}), so bookings wait to adjust
+     * them until the caller commits.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from ProductionCount p where p.mealDate = :date")
+    List<ProductionCount> lockByMealDate(@Param("date") LocalDate date);
+
+    /**
+     * Adds to the counters of one dish of a daily meal.
+     *
+     * @return the number of rows updated, {@code 0} when the counter does not exist yet
+     */
+    @Modifying
+    @Query("""
+            update ProductionCount p
+            set p.reservedCount = p.reservedCount + :reserved,
+                p.deliveredCount = p.deliveredCount + :delivered,
+                p.guestCount = p.guestCount + :guests
+            where p.dailyMealId = :dailyMealId and p.dishId = :dishId""")
+    int addCounts(@Param("dailyMealId") Long dailyMealId, @Param("dishId") Long dishId,
+                  @Param("reserved") int reserved, @Param("delivered") int delivered, @Param("guests") int guests);
+
+    @Query("""
+            select new com.mapnaom.foodapp.dtos.ProductionForecastRowDto(
+                p.mealDate, p.dailyMealId, p.dishId, d.name, p.reservedCount, p.deliveredCount, p.guestCount)
+            from ProductionCount p
+            join Dish d on d.id = p.dishId
+            where p.mealDate = :date and p.reservedCount + p.guestCount > 0
+            order by p.dailyMealId, d.name""")
+    List<ProductionForecastRowDto> findForecast(@Param("date") LocalDate date);
+
+    @Query("""
+            select dm.date as mealDate, dm.id as dailyMealId, dish.id as dishId, count(r) as total,
+                sum(case when r.reservationStatus = :deliveredStatus then 1L else 0L end) as delivered
+            from Reservation r
+            join r.dailyMeal dm
+            join r.dailyMealDish dmd
+            join dmd.dish dish
+            where dm.date = :date and r.reservationStatus <> :excludedStatus
+            group by dm.date, dm.id, dish.id""")
+    List<SlotCount> countReservations(@Param("date") LocalDate date,
+                                      @Param("excludedStatus") ReservationStatus excludedStatus,
+                                      @Param("deliveredStatus") ReservationStatus deliveredStatus);
+
+    @Query("""
+            select dm.date as mealDate, dm.id as dailyMealId, dish.id as dishId, count(g) as total,
+                0L as delivered
+            from Guest g
+            join g.dailyMealDish dmd
+            join dmd.dailyMeal dm
+            join dmd.dish dish
+            where dm.date = :date
+            group by dm.date, dm.id, dish.id""")
+    List<SlotCount> countGuests(@Param("date") LocalDate date);
+
+    interface SlotCount {
+        LocalDate getMealDate();
+
+        Long getDailyMealId();
+
+        Long getDishId();
+
+        Long getTotal();
+
+        Long getDelivered();
+    }
+}
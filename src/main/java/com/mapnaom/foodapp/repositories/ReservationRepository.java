@@ -1,10 +1,16 @@
 package com.mapnaom.foodapp.repositories;
 
+import com.mapnaom.foodapp.dtos.DailyReportRowDto;
+import com.mapnaom.foodapp.dtos.PayrollDeductionRowDto;
 import com.mapnaom.foodapp.enums.ReservationStatus;
 import com.mapnaom.foodapp.models.*;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,6 +18,7 @@ import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, Long>, JpaSpecificationExecutor<Reservation> {
@@ -47,6 +54,52 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>,
     List<Reservation> findByDailyMeal_JalaliYearAndDailyMeal_JalaliMonthAndCreatedBy(@Param("jYear") int jYear, @Param("jMonth") int jMonth, @Param("currentUsername") String currentUsername);
 
 
+    /**
+     * One employee's reservations of a Jalali month, with the cost share and dish loaded.
+     */
+    @Query("""
+            select r from Reservation r join fetch r.dailyMeal m
+            left join fetch r.dailyMealDish dmd left join fetch dmd.dish left join fetch r.costShare
+            where r.personnel.id = :personnelId and m.jalaliYear = :jYear and m.jalaliMonth = :jMonth""")
+    List<Reservation> findMonthOfPersonnel(@Param("personnelId") Long personnelId, @Param("jYear") int jYear, @Param("jMonth") int jMonth);
+
+    /**
+     * Reservations of any of the personnel on any of the meals, with the cost share and dish loaded.
+     */
+    @Query("""
+            select r from Reservation r join fetch r.dailyMeal m
+            left join fetch r.dailyMealDish dmd left join fetch dmd.dish left join fetch r.costShare
+            where r.personnel.id in :personnelIds and m.id in :dailyMealIds""")
+    List<Reservation> findByPersonnelAndMeals(@Param("personnelIds") Collection<Long> personnelIds, @Param("dailyMealIds") Collection<Long> dailyMealIds);
+
+    /**
+     * Id range and count of the reservations in {@code status} for meals up to {@code lastDate}.
+     */
+    @Query("""
+            select min(r.id) as minId, max(r.id) as maxId, count(r) as total
+            from Reservation r
+            where r.reservationStatus = :status and r.dailyMeal.date <= :lastDate
+            """)
+    CostShareRepository.IdRange findStatusRange(@Param("status") ReservationStatus status,
+                                                @Param("lastDate") LocalDate lastDate);
+
+    /**
+     * Moves the reservations in {@code [fromId, toId)} from one status to another, for meals up
+     * to {@code lastDate}.
+     */
+    @Modifying
+    @Query("""
+            update Reservation r
+            set r.reservationStatus = :to,
+                r.version = r.version + 1
+            where r.id >= :fromId and r.id < :toId
+              and r.reservationStatus = :from
+              and r.dailyMeal.id in (select m.id from DailyMeal m where m.date <= :lastDate)
+            """)
+    int transitionStatus(@Param("fromId") long fromId, @Param("toId") long toId,
+                         @Param("from") ReservationStatus from, @Param("to") ReservationStatus to,
+                         @Param("lastDate") LocalDate lastDate);
+
     @Query("SELECT r FROM Reservation r WHERE r.reservationStatus = :status AND r.dailyMeal.date = :date")
     List<Reservation> findByReservationStatusAndDailyMeal_Date(@Param("status") com.mapnaom.foodapp.enums.ReservationStatus status, @Param("date") LocalDate date);
 
@@ -60,4 +113,61 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>,
     List<Reservation> findByPersonnelUsernameAndDailyMealIdAndReservationStatus(String username, Long dailyMealId, ReservationStatus status);
 
     Collection<Reservation> findByDailyMeal_Date(LocalDate date);
+
+    @Query("""
+            select new com.mapnaom.foodapp.dtos.DailyReportRowDto(
+                r.id, p.persCode, p.firstName, p.lastName, c.dishName, c.unitPrice, r.reservationStatus,
+                c.quantity, c.employeePortion, c.employerPortion, c.totalCost)
+            from Reservation r
+            join r.personnel p
+            join r.dailyMeal dm
+            left join r.costShare c
+            where dm.date = :date
+            order by p.lastName, p.firstName, r.id
+            """)
+    List<DailyReportRowDto> findDailyReportRows(@Param("date") LocalDate date);
+
+    /**
+     * Sums the employee portions of one Jalali month per employee in a single query. The rows
+     * are streamed from a server-side cursor, so the caller must consume them inside a
+     * transaction and close the stream.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.mapnaom.foodapp.dtos.PayrollDeductionRowDto(
+                p.persCode, count(r), coalesce(sum(c.employeePortion), 0))
+            from Reservation r
+            join r.personnel p
+            join r.dailyMeal dm
+            join r.costShare c
+            where dm.jalaliYear = :jYear and dm.jalaliMonth = :jMonth
+              and r.reservationStatus in :statuses
+            group by p.id, p.persCode
+            order by p.persCode
+            """)
+    Stream<PayrollDeductionRowDto> streamPayrollDeductions(@Param("jYear") int jYear,
+                                                           @Param("jMonth") int jMonth,
+                                                           @Param("statuses") Collection<ReservationStatus> statuses);
+
+    /**
+     * Personnel codes of the payroll export rows that are longer than {@code maxLength} once
+     * trimmed, checked before the file is streamed.
+     */
+    @Query("""
+            select distinct trim(p.persCode)
+            from Reservation r
+            join r.personnel p
+            join r.dailyMeal dm
+            join r.costShare c
+            where dm.jalaliYear = :jYear and dm.jalaliMonth = :jMonth
+              and r.reservationStatus in :statuses
+              and length(trim(p.persCode)) > :maxLength
+            """)
+    List<String> findPayrollPersCodesLongerThan(@Param("jYear") int jYear,
+                                                @Param("jMonth") int jMonth,
+                                                @Param("statuses") Collection<ReservationStatus> statuses,
+                                                @Param("maxLength") int maxLength);
 }
@@ -0,0 +1,86 @@
+package com.mapnaom.foodapp.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Implements {@link RetryOnConflict}. Runs outside the transaction advice, so a retry starts a
+ * fresh transaction; when the method joins a transaction that is already running, the conflict
+ * is left to the outermost caller, since only a new transaction sees the winning write.
+ * <p>
+ * Waits between attempts grow exponentially with full jitter, so writers that collided do not
+ * collide again on the same schedule.
+ * </p>
+ * <p>
+ * Lock timeouts and deadlocks on the {@code PESSIMISTIC_WRITE} reads
+ * ({@link org.springframework.dao.CannotAcquireLockException} and the other
+ * {@link PessimisticLockingFailureException}s) are retried the same way; the database has
+ * already rolled the losing transaction back, so a fresh attempt is safe.
+ * </p>
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OptimisticRetryAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final int defaultMaxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public OptimisticRetryAspect(MeterRegistry meterRegistry,
+                                 @Value("${app.retry.optimistic.max-attempts:3}") int defaultMaxAttempts,
+                                 @Value("${app.retry.optimistic.base-delay-ms:20}") long baseDelayMillis,
+                                 @Value("${app.retry.optimistic.max-delay-ms:200}") long maxDelayMillis) {
+        this.meterRegistry = meterRegistry;
+        this.defaultMaxAttempts = defaultMaxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        int maxAttempts = retryOnConflict.maxAttempts() > 0 ? retryOnConflict.maxAttempts() : defaultMaxAttempts;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException | PessimisticLockingFailureException e) {
+                String lock = e instanceof OptimisticLockingFailureException ? "optimistic" : "pessimistic";
+                counter("optimistic.lock.conflicts", method, lock).increment();
+                if (attempt >= maxAttempts) {
+                    counter("optimistic.lock.retries.exhausted", method, lock).increment();
+                    log.warn("{} lost {} {} locking races, giving up: {}", method, attempt, lock, e.getMessage());
+                    throw e;
+                }
+                long delay = ThreadLocalRandom.current().nextLong(
+                        Math.min(maxDelayMillis, baseDelayMillis << (attempt - 1)) + 1);
+                log.debug("{} lost a {} locking race, attempt {} of {}, retrying in {} ms",
+                        method, lock, attempt, maxAttempts, delay);
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    private Counter counter(String name, String method, String lock) {
+        return Counter.builder(name).tag("method", method).tag("lock", lock).register(meterRegistry);
+    }
+}
@@ -0,0 +1,27 @@
+package com.mapnaom.foodapp.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs a transactional method when its commit loses an optimistic locking race, or when it
+ * times out or deadlocks waiting for a row lock.
+ * <p>
+ * Each attempt runs in a new transaction, so it re-reads the current rows and applies its
+ * change to them. Only use on methods whose change can safely be applied again, such as
+ * setting a status or replacing fields from a request.
+ * </p>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+
+    /**
+     * Attempts including the first one; {@code 0} uses {@code app.retry.optimistic.max-attempts}.
+     */
+    int maxAttempts() default 0;
+}
@@ -0,0 +1,305 @@
+package com.mapnaom.foodapp.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Protects the login endpoint, and the CPU spent on BCrypt, from password guessing and floods.
+ * <ul>
+ *     <li>Every username and client address has a token bucket; an empty bucket rejects the
+ *     attempt until a token refills. The username bucket is the guard against guessing; the
+ *     address bucket is a loose flood limit, since the whole plant logs in from one NAT
+ *     address, and addresses in the exempt ranges (the NAT or a proxy) skip it.</li>
+ *     <li>After a number of failed attempts the username or address backs off exponentially,
+ *     until a quiet period resets it. A successful login clears the username's failures and
+ *     takes one failure off the address, so typos spread over many users do not add up.</li>
+ *     <li>At most a fixed number of password checks run at once; when all permits are taken,
+ *     attempts fail fast instead of queueing on the CPU.</li>
+ * </ul>
+ * Buckets live in a fixed number of bounded LRU stripes, so a flood of random usernames
+ * cannot grow memory and threads rarely contend on the same lock.
+ */
+@Slf4j
+@Component
+public class LoginThrottle {
+
+    private static final int STRIPES = 16;
+
+    private final Limits userLimits;
+    private final Limits ipLimits;
+    private final List<IpAddressMatcher> exemptAddresses;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Semaphore hashPermits;
+    private final long hashWaitMillis;
+    private final LongSupplier clock;
+
+    private final Counter userThrottled;
+    private final Counter ipThrottled;
+    private final Counter hashRejected;
+    private final Timer hashTimer;
+
+    @Autowired
+    public LoginThrottle(@Value("${app.security.login.max-tracked-keys:10000}") int maxTrackedKeys,
+                         @Value("${app.security.login.user.capacity:5}") int userCapacity,
+                         @Value("${app.security.login.user.refill-per-minute:5}") double userRefillPerMinute,
+                         @Value("${app.security.login.user.free-failures:5}") int userFreeFailures,
+                         @Value("${app.security.login.ip.capacity:600}") int ipCapacity,
+                         @Value("${app.security.login.ip.refill-per-minute:600}") double ipRefillPerMinute,
+                         @Value("${app.security.login.ip.free-failures:200}") int ipFreeFailures,
+                         @Value("${app.security.login.ip.exempt-ranges:}") String ipExemptRanges,
+                         @Value("${app.security.login.backoff.base-seconds:1}") long backoffBaseSeconds,
+                         @Value("${app.security.login.backoff.max-seconds:900}") long backoffMaxSeconds,
+                         @Value("${app.security.login.max-concurrent-hashes:0}") int maxConcurrentHashes,
+                         @Value("${app.security.login.hash-wait-ms:100}") long hashWaitMillis,
+                         MeterRegistry meterRegistry) {
+        this(maxTrackedKeys, userCapacity, userRefillPerMinute, userFreeFailures, ipCapacity, ipRefillPerMinute,
+                ipFreeFailures, ipExemptRanges, backoffBaseSeconds, backoffMaxSeconds, maxConcurrentHashes,
+                hashWaitMillis, meterRegistry, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock current time in epoch milliseconds; tests pass one they can advance
+     */
+    LoginThrottle(int maxTrackedKeys, int userCapacity, double userRefillPerMinute, int userFreeFailures,
+                  int ipCapacity, double ipRefillPerMinute, int ipFreeFailures, String ipExemptRanges,
+                  long backoffBaseSeconds, long backoffMaxSeconds, int maxConcurrentHashes, long hashWaitMillis,
+                  MeterRegistry meterRegistry, LongSupplier clock) {
+        this.clock = clock;
+        long backoffBase = TimeUnit.SECONDS.toMillis(backoffBaseSeconds);
+        long backoffMax = TimeUnit.SECONDS.toMillis(backoffMaxSeconds);
+        this.userLimits = new Limits(userCapacity, userRefillPerMinute, userFreeFailures, backoffBase, backoffMax);
+        this.ipLimits = new Limits(ipCapacity, ipRefillPerMinute, ipFreeFailures, backoffBase, backoffMax);
+        this.exemptAddresses = Arrays.stream(ipExemptRanges.split(","))
+                .map(String::trim)
+                .filter(range -> !range.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+
+        int stripeSize = Math.max(16, maxTrackedKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeSize);
+        }
+
+        int permits = maxConcurrentHashes > 0 ? maxConcurrentHashes : Runtime.getRuntime().availableProcessors();
+        this.hashPermits = new Semaphore(permits);
+        this.hashWaitMillis = hashWaitMillis;
+
+        this.userThrottled = Counter.builder("security.login.throttled").tag("reason", "username").register(meterRegistry);
+        this.ipThrottled = Counter.builder("security.login.throttled").tag("reason", "ip").register(meterRegistry);
+        this.hashRejected = Counter.builder("security.login.throttled").tag("reason", "hash_budget").register(meterRegistry);
+        this.hashTimer = Timer.builder("security.login.hash")
+                .description("Time spent checking passwords on login")
+                .register(meterRegistry);
+        Gauge.builder("security.login.hash.in_flight", hashPermits, semaphore -> permits - semaphore.availablePermits())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the client address and the username buckets.
+     *
+     * @throws LoginThrottledException if either is empty or backing off
+     */
+    public void checkAttempt(String username, String clientIp) {
+        long now = clock.getAsLong();
+
+        long ipWait = isExempt(clientIp) ? 0 : acquire(ipKey(clientIp), ipLimits, now);
+        if (ipWait > 0) {
+            ipThrottled.increment();
+            log.debug("Login attempt from {} throttled for {} ms", clientIp, ipWait);
+            throw new LoginThrottledException("Too many login attempts", toSeconds(ipWait));
+        }
+
+        long userWait = acquire(userKey(username), userLimits, now);
+        if (userWait > 0) {
+            userThrottled.increment();
+            log.debug("Login attempt for user {} throttled for {} ms", username, userWait);
+            throw new LoginThrottledException("Too many login attempts", toSeconds(userWait));
+        }
+    }
+
+    /**
+     * Runs the password check within the global hashing budget, recording its duration.
+     *
+     * @throws LoginThrottledException if no permit becomes free within the configured wait
+     */
+    public <T> T withHashPermit(Supplier<T> passwordCheck) {
+        boolean acquired;
+        try {
+            acquired = hashPermits.tryAcquire(hashWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            hashRejected.increment();
+            throw new LoginThrottledException("Authentication service is busy", 1);
+        }
+
+        try {
+            return hashTimer.record(passwordCheck);
+        } finally {
+            hashPermits.release();
+        }
+    }
+
+    public void recordFailure(String username, String clientIp) {
+        long now = clock.getAsLong();
+        if (!isExempt(clientIp)) {
+            fail(ipKey(clientIp), ipLimits, now);
+        }
+        fail(userKey(username), userLimits, now);
+    }
+
+    /**
+     * Clears the failures and backoff of the username, and takes one failure off the client
+     * address. The address keeps the rest of its history, since many users share it behind
+     * the company NAT and one success says little about the others.
+     */
+    public void recordSuccess(String username, String clientIp) {
+        String userKey = userKey(username);
+        Stripe userStripe = stripeFor(userKey);
+        synchronized (userStripe) {
+            Bucket bucket = userStripe.get(userKey);
+            if (bucket != null) {
+                bucket.failures = 0;
+                bucket.blockedUntil = 0;
+            }
+        }
+
+        String ipKey = ipKey(clientIp);
+        Stripe ipStripe = stripeFor(ipKey);
+        synchronized (ipStripe) {
+            Bucket bucket = ipStripe.get(ipKey);
+            if (bucket != null && bucket.failures > 0) {
+                bucket.failures--;
+                if (bucket.failures < ipLimits.freeFailures) {
+                    bucket.blockedUntil = 0;
+                }
+            }
+        }
+    }
+
+    private boolean isExempt(String clientIp) {
+        if (clientIp == null) {
+            return false;
+        }
+        return exemptAddresses.stream().anyMatch(range -> range.matches(clientIp));
+    }
+
+    private long acquire(String key, Limits limits, long now) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.computeIfAbsent(key, k -> new Bucket(limits.capacity, now));
+            bucket.refill(limits, now);
+
+            if (bucket.blockedUntil > now) {
+                return bucket.blockedUntil - now;
+            }
+            if (bucket.tokens < 1) {
+                return (long) Math.ceil((1 - bucket.tokens) / limits.refillPerMilli);
+            }
+            bucket.tokens -= 1;
+            return 0;
+        }
+    }
+
+    private void fail(String key, Limits limits, long now) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.computeIfAbsent(key, k -> new Bucket(limits.capacity, now));
+            // Forget old failures once the key has been quiet for the longest backoff
+            if (now - bucket.lastFailure > limits.backoffMax) {
+                bucket.failures = 0;
+            }
+            bucket.failures++;
+            bucket.lastFailure = now;
+
+            int excess = bucket.failures - limits.freeFailures;
+            if (excess >= 0) {
+                long backoff = Math.min(limits.backoffMax, limits.backoffBase << Math.min(excess, 20));
+                bucket.blockedUntil = now + backoff;
+            }
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static String userKey(String username) {
+        return "u:" + (username == null ? "" : username.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static String ipKey(String clientIp) {
+        return "ip:" + (clientIp == null ? "unknown" : clientIp);
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+
+    private static final class Limits {
+        private final int capacity;
+        private final double refillPerMilli;
+        private final int freeFailures;
+        private final long backoffBase;
+        private final long backoffMax;
+
+        private Limits(int capacity, double refillPerMinute, int freeFailures, long backoffBase, long backoffMax) {
+            this.capacity = capacity;
+            this.refillPerMilli = refillPerMinute / 60_000d;
+            this.freeFailures = freeFailures;
+            this.backoffBase = backoffBase;
+            this.backoffMax = backoffMax;
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefill;
+        private int failures;
+        private long lastFailure;
+        private long blockedUntil;
+
+        private Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        private void refill(Limits limits, long now) {
+            tokens = Math.min(limits.capacity, tokens + (now - lastRefill) * limits.refillPerMilli);
+            lastRefill = now;
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+        private final int maxSize;
+
+        private Stripe(int maxSize) {
+            super(64, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.mapnaom.foodapp.security;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a login attempt is rejected before the password is checked, either because the
+ * username or client address is backing off or because the password hashing budget is used up.
+ */
+@Getter
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,31 @@
+package com.mapnaom.foodapp.security;
+
+import lombok.Getter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serial;
+import java.util.Collection;
+
+/**
+ * Authenticated token that carries the principal's {@link PrivilegeMask}, so privilege checks
+ * during the request do not scan the authority strings.
+ */
+@Getter
+public class PrivilegeAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long privilegeMask;
+
+    public PrivilegeAuthenticationToken(Object principal, Collection<? extends GrantedAuthority> authorities,
+                                        long privilegeMask) {
+        super(principal, null, authorities);
+        this.privilegeMask = privilegeMask;
+    }
+
+    public PrivilegeAuthenticationToken(Object principal, Collection<? extends GrantedAuthority> authorities) {
+        this(principal, authorities, PrivilegeMask.of(authorities));
+    }
+}
@@ -0,0 +1,134 @@
+package com.mapnaom.foodapp.security;
+
+import com.mapnaom.foodapp.enums.Privilege;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents a set of {@link Privilege}s as a {@code long}, one bit per ordinal, so a
+ * privilege check is a single mask test. The mask is computed once per authentication, over
+ * the authorities reachable through the role hierarchy, and travels in the access token as the
+ * {@code pm} claim.
+ * <p>
+ * Bits follow the enum order: new privileges must be appended, never inserted or reordered,
+ * or masks in tokens issued before the change would be read wrongly.
+ * </p>
+ */
+public final class PrivilegeMask {
+
+    public static final String CLAIM = "pm";
+
+    private static final Map<String, Long> BITS = new HashMap<>();
+
+    static {
+        Privilege[] privileges = Privilege.values();
+        if (privileges.length > Long.SIZE) {
+            throw new IllegalStateException("Privilege mask supports at most 64 privileges");
+        }
+        for (Privilege privilege : privileges) {
+            BITS.put(privilege.name(), bit(privilege));
+        }
+    }
+
+    private PrivilegeMask() {
+    }
+
+    public static long bit(Privilege privilege) {
+        return 1L << privilege.ordinal();
+    }
+
+    /**
+     * @return the bit of the named privilege, or {@code 0} if the name is not a {@link Privilege}
+     */
+    public static long bitOf(String name) {
+        Long bit = name == null ? null : BITS.get(name);
+        return bit == null ? 0L : bit;
+    }
+
+    public static long of(Privilege... privileges) {
+        long mask = 0L;
+        for (Privilege privilege : privileges) {
+            mask |= bit(privilege);
+        }
+        return mask;
+    }
+
+    public static long of(Collection<? extends GrantedAuthority> authorities) {
+        long mask = 0L;
+        if (authorities != null) {
+            for (GrantedAuthority authority : authorities) {
+                mask |= bitOf(authority.getAuthority());
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the mask of the authorities and of everything they imply through the role
+     * hierarchy, so a privilege granted only by a role sets its bit as {@code hasAuthority} would
+     * see it.
+     */
+    public static long of(Collection<? extends GrantedAuthority> authorities, RoleHierarchy roleHierarchy) {
+        if (authorities == null || roleHierarchy == null) {
+            return of(authorities);
+        }
+        return of(roleHierarchy.getReachableGrantedAuthorities(authorities));
+    }
+
+    /**
+     * Returns the precomputed mask of a {@link PrivilegeAuthenticationToken}, computing it from
+     * the authorities reachable through the role hierarchy for other authentication types.
+     */
+    public static long of(Authentication authentication, RoleHierarchy roleHierarchy) {
+        if (authentication == null) {
+            return 0L;
+        }
+        if (authentication instanceof PrivilegeAuthenticationToken token) {
+            return token.getPrivilegeMask();
+        }
+        return of(authentication.getAuthorities(), roleHierarchy);
+    }
+
+    /**
+     * Returns the precomputed mask of a {@link PrivilegeAuthenticationToken}, computing it from
+     * the authorities only for other authentication types.
+     */
+    public static long of(Authentication authentication) {
+        if (authentication == null) {
+            return 0L;
+        }
+        if (authentication instanceof PrivilegeAuthenticationToken token) {
+            return token.getPrivilegeMask();
+        }
+        return of(authentication.getAuthorities());
+    }
+
+    public static boolean has(long mask, Privilege privilege) {
+        return (mask & bit(privilege)) != 0;
+    }
+
+    public static boolean hasAll(long mask, long required) {
+        return (mask & required) == required;
+    }
+
+    public static boolean hasAny(long mask, long wanted) {
+        return (mask & wanted) != 0;
+    }
+
+    public static Set<Privilege> toPrivileges(long mask) {
+        Set<Privilege> privileges = EnumSet.noneOf(Privilege.class);
+        for (Privilege privilege : Privilege.values()) {
+            if (has(mask, privilege)) {
+                privileges.add(privilege);
+            }
+        }
+        return privileges;
+    }
+}
@@ -0,0 +1,42 @@
+package com.mapnaom.foodapp.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+
+import java.util.function.Supplier;
+
+/**
+ * Method security expression handler that evaluates expressions against a
+ * {@link PrivilegeSecurityExpressionRoot}.
+ */
+public class PrivilegeMethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+    @Override
+    public EvaluationContext createEvaluationContext(Supplier<Authentication> authentication, MethodInvocation mi) {
+        StandardEvaluationContext context =
+                (StandardEvaluationContext) super.createEvaluationContext(authentication, mi);
+        context.setRootObject(createRoot(authentication, mi));
+        return context;
+    }
+
+    @Override
+    protected MethodSecurityExpressionOperations createSecurityExpressionRoot(Authentication authentication,
+                                                                              MethodInvocation invocation) {
+        return createRoot(() -> authentication, invocation);
+    }
+
+    private PrivilegeSecurityExpressionRoot createRoot(Supplier<Authentication> authentication,
+                                                       MethodInvocation invocation) {
+        PrivilegeSecurityExpressionRoot root = new PrivilegeSecurityExpressionRoot(authentication);
+        root.setThis(invocation.getThis());
+        root.setPermissionEvaluator(getPermissionEvaluator());
+        root.setTrustResolver(new AuthenticationTrustResolverImpl());
+        root.setRoleHierarchy(getRoleHierarchy());
+        return root;
+    }
+}
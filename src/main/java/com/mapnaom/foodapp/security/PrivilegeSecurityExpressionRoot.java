@@ -0,0 +1,94 @@
+package com.mapnaom.foodapp.security;
+
+import org.springframework.security.access.expression.SecurityExpressionRoot;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.core.Authentication;
+
+import java.util.function.Supplier;
+
+/**
+ * {@code @PreAuthorize} expression root adding {@code hasPrivilege}, {@code hasAnyPrivilege}
+ * and {@code hasAllPrivileges}, evaluated against the principal's {@link PrivilegeMask}.
+ * Names that are not a {@code Privilege} fall back to a plain authority check.
+ */
+public class PrivilegeSecurityExpressionRoot extends SecurityExpressionRoot
+        implements MethodSecurityExpressionOperations {
+
+    private Object filterObject;
+    private Object returnObject;
+    private Object target;
+    private RoleHierarchy roleHierarchy;
+    private long privilegeMask;
+    private boolean maskResolved;
+
+    public PrivilegeSecurityExpressionRoot(Supplier<Authentication> authentication) {
+        super(authentication);
+    }
+
+    public boolean hasPrivilege(String privilege) {
+        long bit = PrivilegeMask.bitOf(privilege);
+        return bit != 0 ? (privilegeMask() & bit) != 0 : hasAuthority(privilege);
+    }
+
+    public boolean hasAnyPrivilege(String... privileges) {
+        for (String privilege : privileges) {
+            if (hasPrivilege(privilege)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasAllPrivileges(String... privileges) {
+        for (String privilege : privileges) {
+            if (!hasPrivilege(privilege)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long privilegeMask() {
+        if (!maskResolved) {
+            privilegeMask = PrivilegeMask.of(getAuthentication(), roleHierarchy);
+            maskResolved = true;
+        }
+        return privilegeMask;
+    }
+
+    @Override
+    public void setRoleHierarchy(RoleHierarchy roleHierarchy) {
+        super.setRoleHierarchy(roleHierarchy);
+        this.roleHierarchy = roleHierarchy;
+    }
+
+    @Override
+    public void setFilterObject(Object filterObject) {
+        this.filterObject = filterObject;
+    }
+
+    @Override
+    public Object getFilterObject() {
+        return filterObject;
+    }
+
+    @Override
+    public void setReturnObject(Object returnObject) {
+        this.returnObject = returnObject;
+    }
+
+    @Override
+    public Object getReturnObject() {
+        return returnObject;
+    }
+
+    void setThis(Object target) {
+        this.target = target;
+    }
+
+    @Override
+    public Object getThis() {
+        return target;
+    }
+}
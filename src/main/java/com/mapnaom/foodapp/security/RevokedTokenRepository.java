@@ -0,0 +1,34 @@
+package com.mapnaom.foodapp.security;
+
+import com.mapnaom.foodapp.models.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    @Query("select r.jti as jti, r.expiresAt as expiresAt from RevokedToken r where r.expiresAt > :now")
+    List<RevokedTokenView> findActive(@Param("now") Instant now);
+
+    @Query("select r.jti as jti, r.expiresAt as expiresAt from RevokedToken r " +
+            "where r.revokedAt >= :since and r.expiresAt > :now")
+    List<RevokedTokenView> findActiveRevokedSince(@Param("since") Instant since, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+
+    interface RevokedTokenView {
+        String getJti();
+
+        Instant getExpiresAt();
+    }
+}
@@ -0,0 +1,140 @@
+package com.mapnaom.foodapp.security;
+
+import com.mapnaom.foodapp.models.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory table of per-user security epochs. Access tokens carry the epoch of their user
+ * at issue time; a token whose epoch no longer matches is rejected, which revokes every
+ * token of a user at once without a database lookup on the request path.
+ * <p>
+ * The table is loaded at startup and updated after the transaction that bumps an epoch
+ * commits. Bumps made by other instances are picked up two ways: a token carrying a newer
+ * epoch than the table makes it re-read that user from the primary, so tokens issued
+ * elsewhere after a bump are accepted at once, and the whole table is re-read periodically,
+ * so tokens revoked elsewhere stop being accepted within one sync interval.
+ * </p>
+ */
+@Slf4j
+@Component
+public class SecurityEpochRegistry {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Long> epochs = new ConcurrentHashMap<>();
+
+    public SecurityEpochRegistry(UserRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        userRepository.findAllSecurityEpochs()
+                .forEach(view -> epochs.merge(view.getUsername(), view.getSecurityEpoch(), Math::max));
+        log.info("Loaded security epochs for {} users", epochs.size());
+    }
+
+    /**
+     * Picks up epochs bumped by other instances and drops users deleted there. Epochs only
+     * grow, so they are merged with the table rather than replacing it.
+     */
+    @Scheduled(fixedDelayString = "${app.security.epochs.sync-interval-ms:30000}",
+            initialDelayString = "${app.security.epochs.sync-interval-ms:30000}")
+    @Transactional(readOnly = true)
+    public void sync() {
+        Set<String> existing = new HashSet<>();
+        userRepository.findAllSecurityEpochs().forEach(view -> {
+            existing.add(view.getUsername());
+            epochs.merge(view.getUsername(), view.getSecurityEpoch(), Math::max);
+        });
+        epochs.keySet().retainAll(existing);
+    }
+
+    /**
+     * Returns the current epoch of a user for a token about to be issued. It is read from the
+     * primary, since a table that missed a bump on another instance would issue tokens that
+     * are rejected as soon as the bump is synced.
+     *
+     * @return the epoch, or {@code null} if the user does not exist
+     */
+    public Long getEpoch(String username) {
+        return loadFromPrimary(username);
+    }
+
+    /**
+     * Checks a token's epoch against the user's current one. A token newer than the table was
+     * issued by an instance that saw a bump this one has not synced yet, so the user is
+     * re-read from the primary before deciding.
+     */
+    public boolean isCurrent(String username, long tokenEpoch) {
+        Long epoch = epochs.get(username);
+        if (epoch == null || tokenEpoch > epoch) {
+            epoch = loadFromPrimary(username);
+        }
+        return epoch != null && epoch == tokenEpoch;
+    }
+
+    private Long loadFromPrimary(String username) {
+        // A read-write transaction, so the read is not routed to a lagging replica
+        return transactionTemplate.execute(tx -> userRepository.findSecurityEpochByUsername(username)
+                .map(loaded -> epochs.merge(username, loaded, Math::max))
+                .orElse(null));
+    }
+
+    /**
+     * Bumps the epoch of a managed user entity; the change is flushed with the entity.
+     */
+    public void bump(User user) {
+        long next = user.getSecurityEpoch() + 1;
+        user.setSecurityEpoch(next);
+        afterCommit(() -> epochs.merge(user.getUsername(), next, Math::max));
+    }
+
+    /**
+     * Bumps the epoch of a user by name, revoking every token issued to that user so far.
+     */
+    @Transactional
+    public void bump(String username) {
+        if (userRepository.incrementSecurityEpoch(username) == 0) {
+            return;
+        }
+        userRepository.findSecurityEpochByUsername(username)
+                .ifPresent(next -> afterCommit(() -> epochs.merge(username, next, Math::max)));
+    }
+
+    /**
+     * Drops a deleted user so its tokens are no longer accepted.
+     */
+    public void forget(String username) {
+        afterCommit(() -> epochs.remove(username));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
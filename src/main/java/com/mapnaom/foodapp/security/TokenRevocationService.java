@@ -0,0 +1,191 @@
+package com.mapnaom.foodapp.security;
+
+import com.mapnaom.foodapp.models.RevokedToken;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records revoked JWT ids ({@code jti}) in the {@code revoked_tokens} table and mirrors the
+ * unexpired ones in memory.
+ * <p>
+ * A Bloom filter answers the common "not revoked" case with a few bit probes; only possible
+ * hits are confirmed against the exact map, which keeps each id for as long as the parser
+ * would still accept its token: until its expiry plus the allowed clock skew. Both are rebuilt from the table at startup and when expired ids are swept, and rows revoked
+ * by other instances are picked up periodically.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    /** Revoked id to the epoch millis after which the parser rejects its token anyway. */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    @Value("${jwt.clock-skew-seconds:300}")
+    private int clockSkewSeconds;
+
+    @Value("${app.security.revocation.expected-tokens:10000}")
+    private int expectedTokens;
+
+    @Value("${app.security.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter = new BloomFilter(1024, 0.01);
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Instant now = Instant.now();
+        revokedTokenRepository.findActive(now.minus(clockSkew()))
+                .forEach(view -> revoked.put(view.getJti(), acceptedUntil(view.getExpiresAt())));
+        lastSync = now;
+        rebuild();
+        log.info("Loaded {} revoked tokens", revoked.size());
+    }
+
+    /**
+     * Revokes a single token until the parser would reject it anyway. Tokens without an id
+     * (issued before ids were added) cannot be revoked individually.
+     */
+    public void revoke(String jti, String username, Date expiration) {
+        if (jti == null || expiration == null
+                || acceptedUntil(expiration.toInstant()) <= System.currentTimeMillis()) {
+            return;
+        }
+        if (!revokedTokenRepository.existsById(jti)) {
+            revokedTokenRepository.save(new RevokedToken(jti, username, expiration.toInstant(), Instant.now()));
+        }
+        remember(jti, acceptedUntil(expiration.toInstant()));
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        Long acceptedUntil = revoked.get(jti);
+        return acceptedUntil != null && acceptedUntil > System.currentTimeMillis();
+    }
+
+    /**
+     * Picks up tokens revoked by other instances since the last sync.
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.sync-interval-ms:30000}",
+            initialDelayString = "${app.security.revocation.sync-interval-ms:30000}")
+    public void sync() {
+        Instant now = Instant.now();
+        // Overlap the window slightly so rows committed late by other instances are not missed
+        Instant since = lastSync.minus(Duration.ofSeconds(5));
+        revokedTokenRepository.findActiveRevokedSince(since, now.minus(clockSkew()))
+                .forEach(view -> remember(view.getJti(), acceptedUntil(view.getExpiresAt())));
+        lastSync = now;
+    }
+
+    /**
+     * Drops ids whose tokens the parser no longer accepts from memory and the table, then
+     * rebuilds the Bloom filter, which cannot remove entries on its own.
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.sweep-interval-ms:600000}",
+            initialDelayString = "${app.security.revocation.sweep-interval-ms:600000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(acceptedUntil -> acceptedUntil <= now);
+        int deleted = revokedTokenRepository.deleteExpired(Instant.ofEpochMilli(now).minus(clockSkew()));
+        rebuild();
+        log.debug("Swept {} expired revoked tokens, {} remain", deleted, revoked.size());
+    }
+
+    private synchronized void remember(String jti, long acceptedUntil) {
+        revoked.put(jti, acceptedUntil);
+        filter.put(jti);
+    }
+
+    /**
+     * The parser accepts a token until its expiry plus the allowed clock skew, so a
+     * revocation has to last as long.
+     */
+    private long acceptedUntil(Instant expiresAt) {
+        return expiresAt.plus(clockSkew()).toEpochMilli();
+    }
+
+    private Duration clockSkew() {
+        return Duration.ofSeconds(clockSkewSeconds);
+    }
+
+    private synchronized void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, revoked.size() * 2), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+    }
+
+    /**
+     * Lock-free Bloom filter over a fixed bit array, using double hashing to derive the probe
+     * positions from one 64-bit hash.
+     */
+    static final class BloomFilter {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate)
+                    / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = words * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+
+        void put(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                long mask = 1L << index;
+                bits.getAndAccumulate((int) (index >>> 6), mask, (word, bit) -> word | bit);
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** 64-bit FNV-1a followed by a final avalanche mix. */
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.mapnaom.foodapp.security;
+
+import com.mapnaom.foodapp.events.UserSecurityChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, TTL-based cache of resolved principals and authorities, used by the JWT filter
+ * so authenticated requests do not reload the user, roles and privileges on every call.
+ * <p>
+ * Each entry also holds the user's {@link PrivilegeMask}, computed once when the principal is
+ * cached and including the privileges implied by the user's roles. Entries are evicted after commit of any change published as
+ * {@link UserSecurityChangedEvent}. Password hashes are not kept in the cache.
+ * </p>
+ */
+@Slf4j
+@Component
+public class UserDetailsCache implements UserCache {
+
+    private final Map<String, Entry> entries;
+    private final long ttlMillis;
+    private final RoleHierarchy roleHierarchy;
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserDetailsCache(@Value("${app.security.user-cache.max-size:1000}") int maxSize,
+                            @Value("${app.security.user-cache.ttl-seconds:300}") long ttlSeconds,
+                            RoleHierarchy roleHierarchy,
+                            MeterRegistry meterRegistry) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.roleHierarchy = roleHierarchy;
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = Counter.builder("security.user_cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("security.user_cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("security.user_cache.size", this, UserDetailsCache::size).register(meterRegistry);
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        CachedPrincipal principal = getPrincipal(username);
+        return principal != null ? principal.userDetails() : null;
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        putPrincipal(user);
+    }
+
+    /**
+     * Returns the cached principal with its privilege mask, or {@code null} on a miss.
+     */
+    public CachedPrincipal getPrincipal(String username) {
+        synchronized (entries) {
+            Entry entry = entries.get(username);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.increment();
+                return entry.principal;
+            }
+            if (entry != null) {
+                entries.remove(username);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches a freshly loaded principal, computing its privilege mask once.
+     */
+    public CachedPrincipal putPrincipal(UserDetails user) {
+        UserDetails withoutPassword = new User(user.getUsername(), "", user.isEnabled(),
+                user.isAccountNonExpired(), user.isCredentialsNonExpired(), user.isAccountNonLocked(),
+                user.getAuthorities());
+        CachedPrincipal principal = new CachedPrincipal(withoutPassword,
+                PrivilegeMask.of(user.getAuthorities(), roleHierarchy));
+        synchronized (entries) {
+            entries.put(user.getUsername(), new Entry(principal, System.currentTimeMillis() + ttlMillis));
+        }
+        return principal;
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        synchronized (entries) {
+            entries.remove(username);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        if (event.getUsername() == null) {
+            log.debug("Clearing user details cache");
+            clear();
+        } else {
+            log.debug("Evicting {} from user details cache", event.getUsername());
+            removeUserFromCache(event.getUsername());
+        }
+    }
+
+    public record CachedPrincipal(UserDetails userDetails, long privilegeMask) {
+    }
+
+    private static class Entry {
+        private final CachedPrincipal principal;
+        private final long expiresAt;
+
+        private Entry(CachedPrincipal principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -5,10 +5,12 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -25,6 +27,22 @@ public interface UserRepository  extends JpaRepository<User, Long> , JpaSpecific
 
     boolean existsByUsername(@NotBlank(message = "Username cannot be blank") @Size(min = 3, message = "Username must be at least 3 characters long") String username);
 
+    @Query("select u.username as username, u.securityEpoch as securityEpoch from User u")
+    List<SecurityEpochView> findAllSecurityEpochs();
+
+    @Query("select u.securityEpoch from User u where u.username = :username")
+    Optional<Long> findSecurityEpochByUsername(@Param("username") String username);
+
+    @Modifying
+    @Query("update User u set u.securityEpoch = u.securityEpoch + 1 where u.username = :username")
+    int incrementSecurityEpoch(@Param("username") String username);
+
     @Query("select u from User u where u.employeeCode = :employeeCode")
     Optional<User> findByEmployeeCode(@Param("employeeCode") String employeeCode);
+
+    interface SecurityEpochView {
+        String getUsername();
+
+        long getSecurityEpoch();
+    }
 }
@@ -1,16 +1,21 @@
 package com.mapnaom.foodapp.security.jwt;
 
+import com.mapnaom.foodapp.security.LoginThrottle;
+import com.mapnaom.foodapp.security.LoginThrottledException;
 import com.mapnaom.foodapp.security.jwt.dtos.*;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -33,22 +38,29 @@ public class JwtAuthenticationController {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
     private final AuthenticationManager authenticationManager;
+    private final LoginThrottle loginThrottle;
 
     /**
      * Authenticates user and returns JWT tokens
      */
     @PostMapping("/authenticate")
-    public ResponseEntity<?> authenticate(@Valid @RequestBody AuthenticationRequest request) {
+    public ResponseEntity<?> authenticate(@Valid @RequestBody AuthenticationRequest request,
+                                          HttpServletRequest httpRequest) {
         log.debug("Authentication attempt for user: {}", request.getUsername());
+        String clientIp = httpRequest.getRemoteAddr();
 
         try {
+            // Reject throttled clients before spending CPU on the password hash
+            loginThrottle.checkAttempt(request.getUsername(), clientIp);
+
             // Authenticate the user
-            Authentication authentication = authenticationManager.authenticate(
+            Authentication authentication = loginThrottle.withHashPermit(() -> authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             request.getUsername(),
                             request.getPassword()
                     )
-            );
+            ));
+            loginThrottle.recordSuccess(request.getUsername(), clientIp);
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
@@ -72,6 +84,15 @@ public class JwtAuthenticationController {
             log.info("User {} authenticated successfully", request.getUsername());
             return ResponseEntity.ok(response);
 
+        } catch (LoginThrottledException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new ErrorResponse(e.getMessage(), "TOO_MANY_ATTEMPTS"));
+        } catch (AuthenticationException e) {
+            loginThrottle.recordFailure(request.getUsername(), clientIp);
+            log.warn("Authentication failed for user: {}", request.getUsername());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ErrorResponse("Authentication failed", "AUTH_FAILED"));
         } catch (Exception e) {
             log.error("Authentication failed for user: {}", request.getUsername(), e);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -109,6 +130,12 @@ public class JwtAuthenticationController {
                         .body(new ErrorResponse("Refresh token is expired or invalid", "EXPIRED_REFRESH_TOKEN"));
             }
 
+            // Reject unexpired refresh tokens revoked by logout, password reset or role change
+            if (jwtService.isRevoked(jwtService.verify(refreshToken))) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new ErrorResponse("Invalid refresh token", "INVALID_TOKEN"));
+            }
+
             // Generate new access token
             String newAccessToken = jwtService.generateAccessToken(userDetails);
 
@@ -121,6 +148,9 @@ public class JwtAuthenticationController {
             log.info("Token refreshed successfully for user: {}", username);
             return ResponseEntity.ok(response);
 
+        } catch (ExpiredJwtException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ErrorResponse("Refresh token is expired or invalid", "EXPIRED_REFRESH_TOKEN"));
         } catch (Exception e) {
             log.error("Error refreshing token", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -143,11 +173,12 @@ public class JwtAuthenticationController {
         String token = authHeader.substring(7);
 
         try {
-            String username = jwtService.extractUsername(token);
+            VerifiedToken verifiedToken = jwtService.verify(token);
+            String username = verifiedToken.getSubject();
             UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
-            if (jwtService.isTokenValid(token, userDetails)) {
-                long remainingValidity = jwtService.getTokenRemainingValidity(token);
+            if (username.equals(userDetails.getUsername())) {
+                long remainingValidity = verifiedToken.getRemainingValidity();
 
                 TokenValidationResponse response = TokenValidationResponse.builder()
                         .valid(true)
@@ -176,20 +207,33 @@ public class JwtAuthenticationController {
     }
 
     /**
-     * Logs out the user (client should remove the token)
+     * Logs out the user by revoking the access token and, when sent in the body, the refresh token
      */
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(HttpServletRequest request) {
+    public ResponseEntity<?> logout(HttpServletRequest request,
+                                    @RequestBody(required = false) RefreshTokenRequest body) {
         String authHeader = request.getHeader("Authorization");
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            // Try to log username, but don't fail if token is invalid
+            // Expired or invalid tokens are already unusable, so failures are not reported
             try {
-                String username = jwtService.extractUsernameIgnoringExpiration(token);
-                log.info("User {} logged out", username);
+                VerifiedToken verifiedToken = jwtService.verify(token);
+                jwtService.revokeToken(verifiedToken);
+                log.info("User {} logged out", verifiedToken.getSubject());
             } catch (Exception e) {
-                log.debug("Could not extract username from token during logout");
+                log.debug("Could not revoke access token during logout: {}", e.getMessage());
+            }
+        }
+
+        if (body != null && body.getRefreshToken() != null) {
+            try {
+                VerifiedToken refreshToken = jwtService.verify(body.getRefreshToken());
+                if (refreshToken.isRefreshToken()) {
+                    jwtService.revokeToken(refreshToken);
+                }
+            } catch (Exception e) {
+                log.debug("Could not revoke refresh token during logout: {}", e.getMessage());
             }
         }
 
@@ -202,6 +246,30 @@ public class JwtAuthenticationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Logs the current user out of every session by revoking all tokens issued so far
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof UserDetails userDetails)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ErrorResponse("Not authenticated", "NO_AUTH"));
+        }
+
+        jwtService.revokeAllTokens(userDetails.getUsername());
+        SecurityContextHolder.clearContext();
+        log.info("User {} logged out of all sessions", userDetails.getUsername());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Logged out of all sessions");
+        response.put("success", true);
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Gets the current user information from the token
      */
@@ -8,8 +8,15 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import com.mapnaom.foodapp.security.PrivilegeAuthenticationToken;
+import com.mapnaom.foodapp.security.PrivilegeMask;
+import com.mapnaom.foodapp.security.UserDetailsCache;
 import org.jetbrains.annotations.NotNull;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -17,6 +24,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * JWT authentication filter that validates tokens on each request.
@@ -29,10 +37,19 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
+    private final RoleHierarchy roleHierarchy;
 
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
 
+    /**
+     * When enabled, the Authentication is built from the verified token claims and the
+     * request never touches the database; revocation relies on the security epoch.
+     */
+    @Value("${app.security.jwt.stateless:false}")
+    private boolean stateless;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     @NotNull HttpServletResponse response,
@@ -49,41 +66,62 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         String jwtToken = requestTokenHeader.substring(BEARER_PREFIX.length());
 
         try {
-            // Extract username from token
-            String username = jwtService.extractUsername(jwtToken);
-
-            // Check if username is valid and no authentication exists in context
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-                // Load user details
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            // Parse and verify the token once; expired or forged tokens throw here
+            VerifiedToken verifiedToken = jwtService.verify(jwtToken);
+            request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, verifiedToken);
+            String username = verifiedToken.getSubject();
+
+            // Refresh tokens are only accepted by the refresh endpoint
+            if (!verifiedToken.isAccessToken()) {
+                log.warn("Refresh token used for authentication, rejecting");
+            } else if (jwtService.isRevoked(verifiedToken)) {
+                log.debug("JWT token of user {} has been revoked", username);
+            } else if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+
+                UserDetails userDetails;
+                Long cachedMask = null;
+                if (stateless && verifiedToken.getEpoch() != null) {
+                    // Trust the authorities embedded in the token
+                    List<GrantedAuthority> authorities = verifiedToken.getAuthorities().stream()
+                            .map(SimpleGrantedAuthority::new)
+                            .map(GrantedAuthority.class::cast)
+                            .toList();
+                    userDetails = new User(username, "", authorities);
+                } else {
+                    // Load user details, from the cache when possible; the cache holds the mask too
+                    UserDetailsCache.CachedPrincipal principal = userDetailsCache.getPrincipal(username);
+                    if (principal == null) {
+                        principal = userDetailsCache.putPrincipal(this.userDetailsService.loadUserByUsername(username));
+                    }
+                    userDetails = principal.userDetails();
+                    cachedMask = principal.privilegeMask();
+                }
 
-                // Validate token for the user
-                if (jwtService.isTokenValid(jwtToken, userDetails)) {
+                // The mask in a token with a current epoch still matches the user's roles,
+                // since any role change bumps the epoch
+                long privilegeMask;
+                if (verifiedToken.getEpoch() != null && verifiedToken.getPrivilegeMask() != null) {
+                    privilegeMask = verifiedToken.getPrivilegeMask();
+                } else if (cachedMask != null) {
+                    privilegeMask = cachedMask;
+                } else {
+                    privilegeMask = PrivilegeMask.of(userDetails.getAuthorities(), roleHierarchy);
+                }
 
-                    // Check if it's an access token (not a refresh token)
-                    if (jwtService.isAccessToken(jwtToken)) {
-                        // Create authentication token
-                        UsernamePasswordAuthenticationToken authToken =
-                                new UsernamePasswordAuthenticationToken(
-                                        userDetails,
-                                        null,
-                                        userDetails.getAuthorities()
-                                );
+                // Create authentication token
+                PrivilegeAuthenticationToken authToken = new PrivilegeAuthenticationToken(
+                        userDetails,
+                        userDetails.getAuthorities(),
+                        privilegeMask
+                );
 
-                        // Set request details
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                // Set request details
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                        // Set authentication in security context
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
+                // Set authentication in security context
+                SecurityContextHolder.getContext().setAuthentication(authToken);
 
-                        log.debug("User {} authenticated via JWT", username);
-                    } else {
-                        log.warn("Refresh token used for authentication, rejecting");
-                    }
-                } else {
-                    log.debug("JWT token validation failed for user {}", username);
-                }
+                log.debug("User {} authenticated via JWT", username);
             }
         } catch (ExpiredJwtException e) {
             log.debug("JWT token has expired: {}", e.getMessage());
@@ -1,14 +1,21 @@
 package com.mapnaom.foodapp.security.jwt;
 
+import com.mapnaom.foodapp.security.PrivilegeMask;
+import com.mapnaom.foodapp.security.SecurityEpochRegistry;
+import com.mapnaom.foodapp.security.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 import static com.mapnaom.foodapp.security.jwt.JwtConstants.DEFAULT_ACCESS_TOKEN_EXPIRATION;
 
@@ -22,6 +29,9 @@ import static com.mapnaom.foodapp.security.jwt.JwtConstants.DEFAULT_ACCESS_TOKEN
 public class JwtService {
 
     private final JwtTokenUtil jwtTokenUtil;
+    private final SecurityEpochRegistry securityEpochRegistry;
+    private final TokenRevocationService tokenRevocationService;
+    private final RoleHierarchy roleHierarchy;
 
     @Value("${jwt.expiration:${security.jwt.expiration-time:" + DEFAULT_ACCESS_TOKEN_EXPIRATION + "}}")
     private long accessTokenExpiration;
@@ -35,7 +45,15 @@ public class JwtService {
     public String generateAccessToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("type", "ACCESS");
-        claims.put("authorities", userDetails.getAuthorities());
+        claims.put("authorities", userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        claims.put(PrivilegeMask.CLAIM, PrivilegeMask.of(userDetails.getAuthorities(), roleHierarchy));
+
+        Long epoch = securityEpochRegistry.getEpoch(userDetails.getUsername());
+        if (epoch != null) {
+            claims.put("epoch", epoch);
+        }
 
         return generateToken(claims, userDetails.getUsername(), accessTokenExpiration);
     }
@@ -47,9 +65,53 @@ public class JwtService {
         Map<String, Object> claims = new HashMap<>();
         claims.put("type", "REFRESH");
 
+        Long epoch = securityEpochRegistry.getEpoch(userDetails.getUsername());
+        if (epoch != null) {
+            claims.put("epoch", epoch);
+        }
+
         return generateToken(claims, userDetails.getUsername(), refreshTokenExpiration);
     }
 
+    /**
+     * Parses and verifies the token once, exposing its subject, type, expiry and authorities
+     */
+    public VerifiedToken verify(String token) {
+        return jwtTokenUtil.verify(token);
+    }
+
+    /**
+     * Checks the token's security epoch against the user's current one. Tokens issued before
+     * epochs were introduced carry none and are accepted until they expire.
+     */
+    public boolean isEpochCurrent(VerifiedToken token) {
+        if (token.getEpoch() == null) {
+            return true;
+        }
+        return securityEpochRegistry.isCurrent(token.getSubject(), token.getEpoch());
+    }
+
+    /**
+     * Checks whether the token was revoked individually or by a security epoch bump
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        return !isEpochCurrent(token) || tokenRevocationService.isRevoked(token.getId());
+    }
+
+    /**
+     * Revokes a single token until it expires
+     */
+    public void revokeToken(VerifiedToken token) {
+        tokenRevocationService.revoke(token.getId(), token.getSubject(), token.getExpiration());
+    }
+
+    /**
+     * Revokes every token issued to the user so far
+     */
+    public void revokeAllTokens(String username) {
+        securityEpochRegistry.bump(username);
+    }
+
     /**
      * Validates if a token is valid for the given user
      */
@@ -119,6 +181,7 @@ public class JwtService {
     private String generateToken(Map<String, Object> claims, String username, long expiration) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
+        claims.put(Claims.ID, UUID.randomUUID().toString());
 
         return jwtTokenUtil.buildToken(claims, username, now, expiryDate);
     }
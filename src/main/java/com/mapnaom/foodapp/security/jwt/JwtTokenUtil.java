@@ -1,9 +1,11 @@
 package com.mapnaom.foodapp.security.jwt;
 
+import com.mapnaom.foodapp.security.PrivilegeMask;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -11,7 +13,11 @@ import org.springframework.stereotype.Component;
 import java.io.Serial;
 import java.io.Serializable;
 import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -34,6 +40,72 @@ public class JwtTokenUtil implements Serializable {
     @Value("${jwt.clock-skew-seconds:300}")
     private int clockSkewSeconds;
 
+    @Value("${jwt.verified-cache-size:2048}")
+    private int verifiedCacheSize;
+
+    private transient Key signingKey;
+    private transient JwtParser parser;
+    private transient Map<String, CachedVerification> verifiedTokens;
+
+    /**
+     * Decodes the secret and builds the parser once; both are immutable and thread-safe.
+     */
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .setAllowedClockSkewSeconds(clockSkewSeconds)
+                .build();
+        this.verifiedTokens = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedVerification> eldest) {
+                return size() > verifiedCacheSize;
+            }
+        };
+    }
+
+    /**
+     * Parses the token and verifies its signature and expiration once, returning all the
+     * claims the application needs. Tokens verified recently are served from a small LRU
+     * keyed by their signature segment until they expire, skipping the HMAC check.
+     *
+     * @throws JwtException if the token is malformed, has an invalid signature or is expired
+     */
+    public VerifiedToken verify(String token) {
+        String signature = signatureOf(token);
+        long now = System.currentTimeMillis();
+
+        synchronized (verifiedTokens) {
+            CachedVerification cached = verifiedTokens.get(signature);
+            if (cached != null) {
+                if (cached.token.equals(token) && cached.validUntil > now) {
+                    return cached.verifiedToken;
+                }
+                verifiedTokens.remove(signature);
+            }
+        }
+
+        Claims claims = extractAllClaims(token);
+        VerifiedToken verifiedToken = new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                claims.get("type", String.class),
+                claims.getIssuedAt(),
+                claims.getExpiration(),
+                extractAuthorities(claims),
+                claims.get("epoch", Long.class),
+                claims.get(PrivilegeMask.CLAIM, Long.class));
+
+        if (claims.getExpiration() != null) {
+            long validUntil = claims.getExpiration().getTime() + clockSkewSeconds * 1000L;
+            synchronized (verifiedTokens) {
+                verifiedTokens.put(signature, new CachedVerification(token, verifiedToken, validUntil));
+            }
+        }
+        return verifiedToken;
+    }
+
     /**
      * Parses and extracts a specific claim from the token
      */
@@ -46,7 +118,7 @@ public class JwtTokenUtil implements Serializable {
      * Extracts username from token
      */
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getSubject();
     }
 
     /**
@@ -64,7 +136,7 @@ public class JwtTokenUtil implements Serializable {
      * Extracts expiration date from token
      */
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verify(token).getExpiration();
     }
 
     /**
@@ -72,7 +144,7 @@ public class JwtTokenUtil implements Serializable {
      */
     public String extractTokenType(String token) {
         try {
-            return extractClaim(token, claims -> claims.get("type", String.class));
+            return verify(token).getType();
         } catch (ExpiredJwtException e) {
             return e.getClaims().get("type", String.class);
         } catch (Exception e) {
@@ -101,10 +173,7 @@ public class JwtTokenUtil implements Serializable {
      */
     public boolean isTokenWellFormed(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSignInKey())
-                    .build()
-                    .parseClaimsJws(token);
+            verify(token);
             return true;
         } catch (ExpiredJwtException e) {
             return true; // Structure is valid, just expired
@@ -120,8 +189,9 @@ public class JwtTokenUtil implements Serializable {
      */
     public boolean validateTokenForUser(String token, String username) {
         try {
-            final String tokenUsername = extractUsername(token);
-            return tokenUsername.equals(username) && !isTokenExpired(token);
+            final VerifiedToken verifiedToken = verify(token);
+            return verifiedToken.getSubject().equals(username)
+                    && !verifiedToken.getExpiration().before(new Date());
         } catch (Exception e) {
             log.error("Token validation failed", e);
             return false;
@@ -153,7 +223,7 @@ public class JwtTokenUtil implements Serializable {
                 .setSubject(subject)
                 .setIssuedAt(issuedAt)
                 .setExpiration(expiration)
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -161,19 +231,45 @@ public class JwtTokenUtil implements Serializable {
      * Extracts all claims from token
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .setAllowedClockSkewSeconds(clockSkewSeconds)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     /**
-     * Gets the signing key from secret
+     * Reads the authorities claim, written either as plain names or as
+     * serialized {@code GrantedAuthority} objects ({@code {"authority": "..."}}).
      */
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private List<String> extractAuthorities(Claims claims) {
+        Object raw = claims.get("authorities");
+        List<String> authorities = new ArrayList<>();
+        if (raw instanceof Collection<?> items) {
+            for (Object item : items) {
+                if (item instanceof Map<?, ?> map && map.get("authority") != null) {
+                    authorities.add(map.get("authority").toString());
+                } else if (item instanceof String name) {
+                    authorities.add(name);
+                }
+            }
+        }
+        return List.copyOf(authorities);
+    }
+
+    private String signatureOf(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("JWT token cannot be null");
+        }
+        int lastDot = token.lastIndexOf('.');
+        return lastDot >= 0 ? token.substring(lastDot + 1) : token;
+    }
+
+    private static class CachedVerification {
+        private final String token;
+        private final VerifiedToken verifiedToken;
+        private final long validUntil;
+
+        private CachedVerification(String token, VerifiedToken verifiedToken, long validUntil) {
+            this.token = token;
+            this.verifiedToken = verifiedToken;
+            this.validUntil = validUntil;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.mapnaom.foodapp.security.jwt;
+
+import lombok.Value;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Result of parsing and verifying a JWT once. The filter stores it as a request attribute
+ * so later code can read the claims without parsing the token again.
+ */
+@Value
+public class VerifiedToken {
+
+    public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+    /** Token id ({@code jti}), or {@code null} for tokens issued before ids were added. */
+    String id;
+    String subject;
+    String type;
+    Date issuedAt;
+    Date expiration;
+    List<String> authorities;
+    /** Security epoch of the user when the token was issued, or {@code null} for older tokens. */
+    Long epoch;
+    /** {@link com.mapnaom.foodapp.security.PrivilegeMask} of the user at issue time, or {@code null} for older tokens. */
+    Long privilegeMask;
+
+    public boolean isAccessToken() {
+        return "ACCESS".equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return "REFRESH".equals(type);
+    }
+
+    public long getRemainingValidity() {
+        return Math.max(0, expiration.getTime() - System.currentTimeMillis());
+    }
+}
@@ -1,9 +1,12 @@
 package com.mapnaom.foodapp.security.jwt;
 
+import com.mapnaom.foodapp.security.PrivilegeMethodSecurityExpressionHandler;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
 import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -103,9 +106,11 @@ public class WebSecurityConfig {
      * - STAFF: Kitchen/staff operations (orders, dish availability) + user privileges
      * - USER: Basic customer operations (view items, manage own profile and reservations)
      * - GUEST: Read-only access (view dishes and daily meals)
+     * Static, so the JWT filter and the beans it depends on can use it while this
+     * configuration is still being created.
      */
     @Bean
-    public RoleHierarchy roleHierarchy() {
+    public static RoleHierarchy roleHierarchy() {
         // Build hierarchy string with proper formatting for readability
         String hierarchyDefinition = buildRoleHierarchy();
         return RoleHierarchyImpl.fromHierarchy(hierarchyDefinition);
@@ -115,9 +120,9 @@ public class WebSecurityConfig {
      * Constructs the role hierarchy definition string.
      * Each role inherits all privileges from roles below it in the hierarchy.
      */
-    private String buildRoleHierarchy() {
+    private static String buildRoleHierarchy() {
         // ADMIN privileges (full system access)
-        String adminPrivileges = String.join(" ",
+        String[] adminPrivileges = {
                 CREATE_USER, EDIT_USER, DELETE_USER, VIEW_USER,
                 CREATE_DAILY_MEAL, EDIT_DAILY_MEAL, DELETE_DAILY_MEAL, VIEW_DAILY_MEAL,
                 CREATE_DISH, EDIT_DISH, DELETE_DISH, VIEW_DISH,
@@ -125,36 +130,42 @@ public class WebSecurityConfig {
                 UPDATE_DISH_AVAILABILITY, VIEW_ORDERS_TO_PREPARE, UPDATE_ORDER_STATUS,
                 VIEW_OWN_PROFILE, EDIT_OWN_PROFILE,
                 CREATE_RESERVATION, EDIT_OWN_RESERVATION, CANCEL_OWN_RESERVATION
-        );
+        };
 
         // STAFF privileges (kitchen/operational access + user privileges)
-        String staffPrivileges = String.join(" ",
+        String[] staffPrivileges = {
                 VIEW_DAILY_MEAL, VIEW_DISH,
                 UPDATE_DISH_AVAILABILITY, VIEW_ORDERS_TO_PREPARE, UPDATE_ORDER_STATUS,
                 VIEW_OWN_PROFILE, EDIT_OWN_PROFILE,
                 CREATE_RESERVATION, EDIT_OWN_RESERVATION, CANCEL_OWN_RESERVATION
-        );
+        };
 
         // USER privileges (customer operations)
-        String userPrivileges = String.join(" ",
+        String[] userPrivileges = {
                 VIEW_DISH, VIEW_DAILY_MEAL,
                 VIEW_OWN_PROFILE, EDIT_OWN_PROFILE,
                 CREATE_RESERVATION, EDIT_OWN_RESERVATION, CANCEL_OWN_RESERVATION
-        );
+        };
 
         // GUEST privileges (read-only access)
-        String guestPrivileges = String.join(" ",
+        String[] guestPrivileges = {
                 VIEW_DISH, VIEW_DAILY_MEAL
-        );
-
-        // Construct the hierarchy: ADMIN > privileges\nSTAFF > privileges\n...
-        return String.format(
-                "%s > %s\n%s > %s\n%s > %s\n%s > %s",
-                ADMIN, adminPrivileges,
-                STAFF, staffPrivileges,
-                USER, userPrivileges,
-                GUEST, guestPrivileges
-        );
+        };
+
+        // One "ROLE > AUTHORITY" line per implied privilege; a space separated list on the
+        // right-hand side would be read as a single authority name
+        StringBuilder hierarchy = new StringBuilder();
+        appendImplied(hierarchy, ADMIN, adminPrivileges);
+        appendImplied(hierarchy, STAFF, staffPrivileges);
+        appendImplied(hierarchy, USER, userPrivileges);
+        appendImplied(hierarchy, GUEST, guestPrivileges);
+        return hierarchy.toString();
+    }
+
+    private static void appendImplied(StringBuilder hierarchy, String role, String... privileges) {
+        for (String privilege : privileges) {
+            hierarchy.append(role).append(" > ").append(privilege).append('\n');
+        }
     }
 
     /**
@@ -203,8 +214,13 @@ public class WebSecurityConfig {
                 .cors(cors -> cors.configurationSource(apiConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Streaming responses were authorized on the original request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(PUBLIC_URLS).permitAll()
-                        .requestMatchers("/api/v1/auth/logout", "/api/v1/auth/validate").authenticated()
+                        // Logout verifies and revokes the tokens it is given itself, and the JWT
+                        // filter skips it, so it must not require an authenticated request
+                        .requestMatchers("/api/v1/auth/logout").permitAll()
+                        .requestMatchers("/api/v1/auth/logout-all", "/api/v1/auth/validate").authenticated()
                         .anyRequest().authenticated()
                 )
                 .authenticationProvider(daoAuthenticationProvider())
@@ -249,7 +265,8 @@ public class WebSecurityConfig {
         // Expose headers that frontend might need to read
         configuration.setExposedHeaders(Arrays.asList(
                 "Authorization",
-                "Content-Disposition"
+                "Content-Disposition",
+                "Retry-After"
         ));
 
         // Allow credentials (cookies, authorization headers)
@@ -273,4 +290,15 @@ public class WebSecurityConfig {
         expressionHandler.setRoleHierarchy(roleHierarchy());
         return expressionHandler;
     }
+
+    /**
+     * Configures method security expressions with privilege mask checks
+     * ({@code hasPrivilege}, {@code hasAnyPrivilege}, {@code hasAllPrivileges}) and role hierarchy support.
+     */
+    @Bean
+    public MethodSecurityExpressionHandler methodSecurityExpressionHandler() {
+        PrivilegeMethodSecurityExpressionHandler expressionHandler = new PrivilegeMethodSecurityExpressionHandler();
+        expressionHandler.setRoleHierarchy(roleHierarchy());
+        return expressionHandler;
+    }
 }
\ No newline at end of file
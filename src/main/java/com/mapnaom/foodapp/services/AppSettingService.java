@@ -1,30 +1,46 @@
 package com.mapnaom.foodapp.services;
 
 
+import com.mapnaom.foodapp.coalesce.Coalesce;
+import com.mapnaom.foodapp.events.AppSettingChangedEvent;
 import com.mapnaom.foodapp.models.AppSetting;
 import com.mapnaom.foodapp.models.PriceShares;
 import com.mapnaom.foodapp.models.ReservationTime;
 import com.mapnaom.foodapp.repositories.AppSettingRepository;
 import jakarta.annotation.PostConstruct;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class AppSettingService {
 
     private final AppSettingRepository appSettingRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ZoneId zone;
+    private final AtomicReference<AppSettingSnapshot> snapshot = new AtomicReference<>();
 
-    public AppSettingService(AppSettingRepository appSettingRepository) {
+    public AppSettingService(AppSettingRepository appSettingRepository,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${app.time-zone:Asia/Tehran}") String zone) {
         this.appSettingRepository = appSettingRepository;
+        this.eventPublisher = eventPublisher;
+        this.zone = ZoneId.of(zone);
     }
 
     /**
-     * Retrieves the singleton AppSetting instance.
-     * Caches the result to prevent multiple database lookups.
+     * Retrieves the singleton AppSetting entity from the database.
+     * Read paths that only need the values should use {@link #getSnapshot()} instead.
      */
-    @Cacheable(value = "appSettings", key = "#root.methodName")
+    @Coalesce
     @Transactional(readOnly = true)
     public AppSetting getAppSetting() {
         return appSettingRepository.findById(AppSetting.SINGLETON_ID)
@@ -32,14 +48,58 @@ public class AppSettingService {
     }
 
     /**
-     * Updates the AppSetting and evicts the cache.
+     * Returns the current settings snapshot without touching the database. The snapshot is
+     * replaced after every save and rolled over to the new day at midnight.
+     */
+    public AppSettingSnapshot getSnapshot() {
+        AppSettingSnapshot current = snapshot.get();
+        if (current == null) {
+            return reload();
+        }
+        long now = System.currentTimeMillis();
+        if (!current.isCurrentAt(now)) {
+            AppSettingSnapshot rolled = current.forDay(LocalDate.now(zone));
+            snapshot.compareAndSet(current, rolled);
+            return rolled;
+        }
+        return current;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Updates the AppSetting; the snapshot is refreshed once the transaction commits.
      */
-    @CacheEvict(value = "appSettings", allEntries = true)
     @Transactional
     public AppSetting save(AppSetting appSetting) {
         // Enforce the singleton ID before saving.
         appSetting.setId(AppSetting.SINGLETON_ID);
-        return appSettingRepository.save(appSetting);
+        AppSetting saved = appSettingRepository.save(appSetting);
+        eventPublisher.publishEvent(new AppSettingChangedEvent(saved.getVersion()));
+        return saved;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppSettingChanged(AppSettingChangedEvent event) {
+        reload();
+    }
+
+    /**
+     * Picks up settings saved by other instances. A change is republished here as an
+     * {@link AppSettingChangedEvent}, so work that depends on the settings, such as re-pricing
+     * cost shares this instance priced with the old ones, runs again after the new values are
+     * in use locally.
+     */
+    @Scheduled(fixedDelayString = "${app.settings.refresh-interval-ms:60000}",
+            initialDelayString = "${app.settings.refresh-interval-ms:60000}")
+    public void refresh() {
+        AppSettingSnapshot previous = snapshot.get();
+        AppSettingSnapshot loaded = reload();
+        if (previous != null && !Objects.equals(previous.getVersion(), loaded.getVersion())) {
+            eventPublisher.publishEvent(new AppSettingChangedEvent(loaded.getVersion()));
+        }
     }
 
     /**
@@ -62,5 +122,14 @@ public class AppSettingService {
             );
             appSettingRepository.save(defaultSettings);
         }
+        reload();
+    }
+
+    private AppSettingSnapshot reload() {
+        AppSetting setting = appSettingRepository.findById(AppSetting.SINGLETON_ID)
+                .orElseThrow(() -> new IllegalStateException("AppSetting has not been initialized."));
+        AppSettingSnapshot loaded = AppSettingSnapshot.of(setting, zone, LocalDate.now(zone));
+        snapshot.set(loaded);
+        return loaded;
     }
-}
\ No newline at end of file
+}
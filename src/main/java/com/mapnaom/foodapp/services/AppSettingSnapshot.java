@@ -0,0 +1,109 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.models.AppSetting;
+import com.mapnaom.foodapp.models.PriceShares;
+import com.mapnaom.foodapp.models.ReservationTime;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * Immutable copy of {@link AppSetting} with the values the reservation path needs already
+ * derived: price share ratios and the booking cutoff of the current day in the plant's time zone.
+ * Settings that only the client reads, such as {@code foodPricesActive}, are not copied.
+ * <p>
+ * A snapshot belongs to one calendar day; {@link AppSettingService#getSnapshot()} rolls it
+ * over to the next day when the day changes.
+ * </p>
+ */
+@Value
+public class AppSettingSnapshot {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    Long version;
+    String companyName;
+    String address;
+    String phone;
+
+    /** Employee share as a percentage, e.g. {@code 40.00}. */
+    BigDecimal employeeSharePercentage;
+    /** Employee share as a ratio of the dish price, e.g. {@code 0.4000}. */
+    BigDecimal employeeShareRatio;
+    BigDecimal employerShareRatio;
+
+    /** Time of day after which reservations for that day are closed, or {@code null} if never. */
+    LocalTime cutoffTime;
+    ZoneId zone;
+
+    LocalDate today;
+    long todayCutoffMillis;
+    long nextDayStartMillis;
+
+    public static AppSettingSnapshot of(AppSetting setting, ZoneId zone, LocalDate today) {
+        PriceShares shares = setting.getPriceShares();
+        int employeeShare = shares != null && shares.getEmployeePriceShare() != null ? shares.getEmployeePriceShare() : 0;
+        int employerShare = shares != null && shares.getEmployerPriceShare() != null
+                ? shares.getEmployerPriceShare() : 100 - employeeShare;
+
+        ReservationTime time = setting.getReservationTime();
+        LocalTime cutoffTime = time != null && time.getHour() != null
+                ? LocalTime.of(time.getHour(), time.getMinute() != null ? time.getMinute() : 0)
+                : null;
+
+        return new AppSettingSnapshot(
+                setting.getVersion(),
+                setting.getCompanyName(),
+                setting.getAddress(),
+                setting.getPhone(),
+                BigDecimal.valueOf(employeeShare).setScale(2, RoundingMode.UNNECESSARY),
+                BigDecimal.valueOf(employeeShare).divide(HUNDRED, 4, RoundingMode.HALF_UP),
+                BigDecimal.valueOf(employerShare).divide(HUNDRED, 4, RoundingMode.HALF_UP),
+                cutoffTime,
+                zone,
+                today,
+                cutoffTime != null
+                        ? today.atTime(cutoffTime).atZone(zone).toInstant().toEpochMilli()
+                        : Long.MAX_VALUE,
+                today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Returns the same settings for another day.
+     */
+    public AppSettingSnapshot forDay(LocalDate day) {
+        return new AppSettingSnapshot(version, companyName, address, phone,
+                employeeSharePercentage, employeeShareRatio, employerShareRatio, cutoffTime, zone, day,
+                cutoffTime != null ? day.atTime(cutoffTime).atZone(zone).toInstant().toEpochMilli() : Long.MAX_VALUE,
+                day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+    }
+
+    public boolean isCurrentAt(long nowMillis) {
+        return nowMillis < nextDayStartMillis;
+    }
+
+    /**
+     * Reservations for a future day are open, for a past day closed, and for today open until
+     * the cutoff time.
+     */
+    public boolean isBookingOpen(LocalDate mealDate, long nowMillis) {
+        if (mealDate.isAfter(today)) {
+            return true;
+        }
+        if (mealDate.isBefore(today)) {
+            return false;
+        }
+        return nowMillis < todayCutoffMillis;
+    }
+
+    /**
+     * The employee's part of a price, rounded to two decimals.
+     */
+    public BigDecimal employeePortionOf(BigDecimal price) {
+        return price.multiply(employeeShareRatio).setScale(2, RoundingMode.HALF_UP);
+    }
+}
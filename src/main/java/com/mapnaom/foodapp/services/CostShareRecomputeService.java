@@ -0,0 +1,171 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.CostShareRecomputeStatusDto;
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.events.AppSettingChangedEvent;
+import com.mapnaom.foodapp.events.CostSharesRepricedEvent;
+import com.mapnaom.foodapp.events.DishChangedEvent;
+import com.mapnaom.foodapp.repositories.CostShareRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Re-prices the cost shares of upcoming, not yet delivered reservations after the price
+ * shares or a dish price change, and backfills the dish snapshot of older cost shares.
+ * <p>
+ * The work is done with set-based UPDATE statements over consecutive cost share id ranges,
+ * each range in its own short transaction, so rows are only locked for the duration of one
+ * chunk and readers are never blocked for the whole job. Jobs run one at a time on the
+ * {@code maintenanceExecutor}; progress of the latest job is available from {@link #getStatus()}.
+ * </p>
+ */
+@Slf4j
+@Service
+public class CostShareRecomputeService {
+
+    private final CostShareRepository costShareRepository;
+    private final AppSettingService appSettingService;
+    private final Executor maintenanceExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final AtomicReference<CostShareRecomputeStatusDto> status =
+            new AtomicReference<>(new CostShareRecomputeStatusDto("IDLE", null, 0, 0, null, null, null));
+
+    public CostShareRecomputeService(CostShareRepository costShareRepository,
+                                     AppSettingService appSettingService,
+                                     @Qualifier("maintenanceExecutor") Executor maintenanceExecutor,
+                                     ApplicationEventPublisher eventPublisher,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.pricing.recompute.chunk-size:2000}") int chunkSize) {
+        this.costShareRepository = costShareRepository;
+        this.appSettingService = appSettingService;
+        this.maintenanceExecutor = maintenanceExecutor;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppSettingChanged(AppSettingChangedEvent event) {
+        schedule(null, "settings v%s".formatted(event.getVersion()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDishChanged(DishChangedEvent event) {
+        schedule(event.getDishId(), "dish %d".formatted(event.getDishId()));
+    }
+
+    /**
+     * Queues a recompute of all upcoming cost shares, or only those of one dish.
+     */
+    public void schedule(Long dishId, String reason) {
+        maintenanceExecutor.execute(() -> recompute(dishId, reason));
+    }
+
+    public CostShareRecomputeStatusDto getStatus() {
+        return status.get();
+    }
+
+    /**
+     * Runs the recompute synchronously.
+     *
+     * @return the number of cost shares updated
+     */
+    public long recompute(Long dishId, String reason) {
+        // Read the settings from the database; the snapshot may not be refreshed yet. The
+        // read-write transaction keeps the read from joining a coalesced call started before the save.
+        AppSettingSnapshot settings = AppSettingSnapshot.of(
+                transactionTemplate.execute(tx -> appSettingService.getAppSetting()),
+                appSettingService.getZone(), LocalDate.now(appSettingService.getZone()));
+        LocalDate fromDate = settings.getToday();
+
+        CostShareRepository.IdRange range = transactionTemplate.execute(tx ->
+                costShareRepository.findRecomputeRange(fromDate, ReservationStatus.DELIVERED, dishId));
+
+        return runInChunks(range, "recompute from %s (%s)".formatted(fromDate, reason), (chunkStart, chunkEnd) -> {
+            costShareRepository.recomputeDishSnapshot(chunkStart, chunkEnd, fromDate,
+                    ReservationStatus.DELIVERED, dishId);
+            return costShareRepository.recomputePortions(chunkStart, chunkEnd, fromDate,
+                    ReservationStatus.DELIVERED, dishId,
+                    settings.getEmployeeShareRatio(), settings.getEmployeeSharePercentage());
+        });
+    }
+
+    /**
+     * Fills the dish name and unit price snapshot of cost shares created before the snapshot
+     * columns existed. Runs once at startup and is a no-op when nothing is missing.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleBackfill() {
+        maintenanceExecutor.execute(this::backfillDishSnapshots);
+    }
+
+    public long backfillDishSnapshots() {
+        CostShareRepository.IdRange range = transactionTemplate.execute(tx ->
+                costShareRepository.findMissingSnapshotRange());
+        return runInChunks(range, "dish snapshot backfill", costShareRepository::backfillDishSnapshot);
+    }
+
+    /**
+     * Applies {@code chunk} to consecutive id windows of {@code range}, each in its own
+     * transaction, publishing progress after every window.
+     */
+    private long runInChunks(CostShareRepository.IdRange range, String reason, Chunk chunk) {
+        Instant startedAt = Instant.now();
+        if (range == null || range.getMinId() == null) {
+            status.set(new CostShareRecomputeStatusDto("DONE", reason, 0, 0, startedAt, Instant.now(), null));
+            return 0;
+        }
+
+        long total = range.getTotal();
+        long processed = 0;
+        status.set(new CostShareRecomputeStatusDto("RUNNING", reason, total, 0, startedAt, null, null));
+        log.info("Cost shares {}: {} rows", reason, total);
+
+        try {
+            for (long fromId = range.getMinId(); fromId <= range.getMaxId(); fromId += chunkSize) {
+                long chunkStart = fromId;
+                long chunkEnd = fromId + chunkSize;
+                Integer updated = transactionTemplate.execute(tx -> {
+                    int count = chunk.apply(chunkStart, chunkEnd);
+                    if (count > 0) {
+                        eventPublisher.publishEvent(new CostSharesRepricedEvent(chunkStart, chunkEnd, count, reason));
+                    }
+                    return count;
+                });
+                processed += updated != null ? updated : 0;
+                status.set(new CostShareRecomputeStatusDto("RUNNING", reason, total, processed, startedAt, null, null));
+            }
+        } catch (RuntimeException e) {
+            log.error("Cost shares {} failed after {} of {} rows", reason, processed, total, e);
+            status.set(new CostShareRecomputeStatusDto("FAILED", reason, total, processed, startedAt,
+                    Instant.now(), e.getMessage()));
+            throw e;
+        }
+
+        Instant finishedAt = Instant.now();
+        status.set(new CostShareRecomputeStatusDto("DONE", reason, total, processed, startedAt, finishedAt, null));
+        log.info("Cost shares {}: updated {} rows in {} ms", reason, processed,
+                finishedAt.toEpochMilli() - startedAt.toEpochMilli());
+        return processed;
+    }
+
+    @FunctionalInterface
+    private interface Chunk {
+        int apply(long fromId, long toId);
+    }
+}
@@ -2,7 +2,9 @@ package com.mapnaom.foodapp.services;
 
 import com.mapnaom.foodapp.dtos.DailyMealDishDto;
 import com.mapnaom.foodapp.dtos.DishDto;
+import com.mapnaom.foodapp.exceptions.DishCapacityExceededException;
 import com.mapnaom.foodapp.exceptions.DishNotFoundException;
+import com.mapnaom.foodapp.exceptions.ResourceNotFoundException;
 import com.mapnaom.foodapp.mappers.DailyMealDishMapper;
 import com.mapnaom.foodapp.mappers.DishMapper;
 import com.mapnaom.foodapp.models.DailyMealDish;
@@ -38,6 +40,55 @@ public class DailyMealDishService {
     private final DishMapper dishMapper;
 
 
+    /**
+     * Locks the dish of the day and checks that {@code portions} more meals fit in its capacity.
+     * The row lock is held until the caller's transaction ends, so concurrent bookings of the
+     * same dish are counted one after the other.
+     *
+     * @return the locked DailyMealDish, with its dish loaded
+     * @throws DishCapacityExceededException if the booking would exceed the capacity
+     */
+    public DailyMealDish reservePortions(Long dailyMealDishId, int portions) {
+        DailyMealDish dailyMealDish = dailyMealDishRepository.findByIdForUpdate(dailyMealDishId)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "DailyMealDish not found with id: %d".formatted(dailyMealDishId)));
+        Integer capacity = dailyMealDish.getCapacity();
+        if (capacity != null) {
+            long booked = dailyMealDishRepository.countBookedPortions(dailyMealDishId);
+            if (booked + portions > capacity) {
+                throw new DishCapacityExceededException(
+                        "ظرفیت غذای %s تکمیل است: %d از %d پرس رزرو شده و %d پرس درخواست شده است"
+                                .formatted(dailyMealDish.getDish().getName(), booked, capacity, portions));
+            }
+        }
+        return dailyMealDish;
+    }
+
+    /**
+     * Like {@link #reservePortions} but reports a full dish instead of throwing, so one day of a
+     * batch can be rejected without rolling back the others.
+     */
+    public boolean tryReservePortions(DailyMealDish dailyMealDish, int portions) {
+        return lockFreePortions(dailyMealDish) >= portions;
+    }
+
+    /**
+     * Locks the dish of the day and returns the portions still free, or {@link Long#MAX_VALUE}
+     * when it has no capacity. Dishes without a capacity are not locked.
+     */
+    public long lockFreePortions(DailyMealDish dailyMealDish) {
+        if (dailyMealDish.getCapacity() == null) {
+            return Long.MAX_VALUE;
+        }
+        DailyMealDish locked = dailyMealDishRepository.findByIdForUpdate(dailyMealDish.getId())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "DailyMealDish not found with id: %d".formatted(dailyMealDish.getId())));
+        Integer capacity = locked.getCapacity();
+        return capacity == null
+                ? Long.MAX_VALUE
+                : capacity - dailyMealDishRepository.countBookedPortions(locked.getId());
+    }
+
     public List<DishDto> getAllDishesByDailyMealId(Long dailyMealId) {
         return dailyMealDishRepository.findAllByDailyMealId(dailyMealId)
                 .stream()
@@ -1,8 +1,10 @@
 package com.mapnaom.foodapp.services;
 
+import com.mapnaom.foodapp.coalesce.Coalesce;
 import com.github.eloyzone.jalalicalendar.DateConverter;
 import com.github.eloyzone.jalalicalendar.JalaliDate;
 import com.mapnaom.foodapp.dtos.*;
+import com.mapnaom.foodapp.events.DailyMealChangedEvent;
 import com.mapnaom.foodapp.exceptions.DishNotFoundException;
 import com.mapnaom.foodapp.exceptions.DuplicateDailyMealByDateException;
 import com.mapnaom.foodapp.exceptions.DuplicateDishException;
@@ -17,10 +19,12 @@ import com.mapnaom.foodapp.repositories.DishRepository;
 import com.mapnaom.foodapp.repositories.ReservationRepository;
 import com.mapnaom.foodapp.searchForms.DailyMealSearchForm;
 import com.mapnaom.foodapp.specifications.DailyMealSpecification;
+import com.mapnaom.foodapp.utils.CsvUtil;
 import com.mapnaom.foodapp.utils.ExcelUtil;
 import com.mapnaom.foodapp.utils.ImportOptions;
 import com.mapnaom.foodapp.utils.ImportResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -49,6 +53,8 @@ public class DailyMealService {
     private final DishRepository dishRepository;
     private final ReservationRepository reservationRepository;
     private final DailyMealListMapper dailyMealListMapper;
+    private final CsvUtil csvUtil;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Retrieves a DailyMeal by its ID.
@@ -57,6 +63,7 @@ public class DailyMealService {
      * @return The retrieved DailyMeal as a DTO.
      * @throws RuntimeException if no DailyMeal is found with the given ID.
      */
+    @Transactional(readOnly = true)
     public DailyMealDto getDailyMealById(Long id) {
         DailyMeal dailyMeal = dailyMealRepository.findById(id)
                 .orElseThrow(() ->
@@ -71,6 +78,7 @@ public class DailyMealService {
      * @param date The date of the DailyMeal to retrieve.
      * @return The retrieved DailyMeal as a DTO.
      */
+    @Transactional(readOnly = true)
     public DailyMealDto getDailyMealByDate(LocalDate date) {
         Optional<DailyMeal> dailyMeal = dailyMealRepository.findDailyMealByDate(date);
         return dailyMeal.map(dailyMealMapper::toDto).orElse(null);
@@ -82,6 +90,7 @@ public class DailyMealService {
      * @param form A form containing the search filters.
      * @return A list of DailyMeals matching the search criteria.
      */
+    @Transactional(readOnly = true)
     public List<DailyMealDto> searchDailyMeals(DailyMealSearchForm form) {
         return dailyMealRepository.findAll(DailyMealSpecification.withFilter(form))
                 .stream()
@@ -89,6 +98,7 @@ public class DailyMealService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<SelectOption> getAllMealTypes() {
         List<DailyMeal> list = dailyMealRepository.findAll();
         return list.stream()
@@ -111,6 +121,7 @@ public class DailyMealService {
      * @param order  The sorting order ("ASC" or "DESC").
      * @return A paginated list of DailyMeals as DTOs.
      */
+    @Transactional(readOnly = true)
     public Page<DailyMealDto> getAllDailyMeals(DailyMealSearchForm form, int page, int size, String sortBy, String order) {
         Sort sort = order.equalsIgnoreCase("DESC") ?
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
@@ -162,7 +173,9 @@ public class DailyMealService {
             );
         });
 
-        return dailyMealMapper.toDto(dailyMealRepository.save(dailyMeal));
+        DailyMeal savedDailyMeal = dailyMealRepository.save(dailyMeal);
+        eventPublisher.publishEvent(new DailyMealChangedEvent(savedDailyMeal.getDate()));
+        return dailyMealMapper.toDto(savedDailyMeal);
     }
 
 
@@ -212,7 +225,9 @@ public class DailyMealService {
         });
 
         // 6️⃣ Save and return
-        return dailyMealMapper.toDto(dailyMealRepository.save(dailyMeal));
+        DailyMeal savedDailyMeal = dailyMealRepository.save(dailyMeal);
+        eventPublisher.publishEvent(new DailyMealChangedEvent(savedDailyMeal.getDate()));
+        return dailyMealMapper.toDto(savedDailyMeal);
     }
 
 
@@ -238,6 +253,7 @@ public class DailyMealService {
 
         // 3) حذف منو
         dailyMealRepository.delete(dailyMeal);
+        eventPublisher.publishEvent(new DailyMealChangedEvent(dailyMeal.getDate()));
     }
 
     private static DateConverter getDateConverter() {
@@ -266,6 +282,8 @@ public class DailyMealService {
      * @return A list of DailyMeals sorted by date.
      * @throws IllegalArgumentException if jalaliYear or jalaliMonth is invalid
      */
+    @Coalesce
+    @Transactional(readOnly = true)
     public List<DailyMealListDto> getAllDailyMealListByJalaliYearAndJalaliMonth(Integer jalaliYear, Integer jalaliMonth) {
         // Validate jalaliYear
         if (jalaliYear == null) {
@@ -297,13 +315,8 @@ public class DailyMealService {
         int errorCount = 0;
 
         try {
-            // Process Excel file with default settings
-            List<DailyMealExcelDto> excelDtos = new ExcelUtil().processExcel(
-                    file,
-                    DailyMealExcelDto.class,
-                    0, // default sheet index
-                    0  // default header row index
-            );
+            // Process Excel or CSV/TSV file with default settings
+            List<DailyMealExcelDto> excelDtos = csvUtil.processFile(file, DailyMealExcelDto.class);
 
             // Filter valid DTOs
             List<DailyMealExcelDto> validDtos = excelDtos.stream()
@@ -377,6 +390,7 @@ public class DailyMealService {
                     // Save only if there are changes
                     if (hasNewDishes || existingMeals.isEmpty()) {
                         dailyMealRepository.save(dailyMeal);
+                        eventPublisher.publishEvent(new DailyMealChangedEvent(mealDate));
                         successCount++;
                     }
 
@@ -1,39 +1,63 @@
 package com.mapnaom.foodapp.services;
 
+import com.mapnaom.foodapp.reports.ReportTemplate;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
 
-import java.io.FileOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.List;
 
 @Service
-public class DecisionMatrixExcelGenerator {
+public class DecisionMatrixExcelGenerator implements ReportTemplate {
 
-    public void generateExcel(String filePath) throws IOException {
-        Workbook workbook = new XSSFWorkbook();
+    public static final String TEMPLATE_NAME = "decision-matrix";
+    private static final int TEMPLATE_VERSION = 1;
 
-        // Sheet 1: Strategic Weights
-        createWeightsSheet(workbook);
+    @Override
+    public String getName() {
+        return TEMPLATE_NAME;
+    }
+
+    @Override
+    public int getVersion() {
+        return TEMPLATE_VERSION;
+    }
+
+    @Override
+    public String getFilename(List<Object> params) {
+        return "decision-matrix.xlsx";
+    }
+
+    @Override
+    public byte[] render(List<Object> params) throws IOException {
+        return generateExcel();
+    }
+
+    public byte[] generateExcel() throws IOException {
+        try (Workbook workbook = new XSSFWorkbook();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+
+            // Sheet 1: Strategic Weights
+            createWeightsSheet(workbook);
 
-        // Sheet 2: Project Evaluation
-        createEvaluationSheet(workbook);
+            // Sheet 2: Project Evaluation
+            createEvaluationSheet(workbook);
 
-        // Sheet 3: Decision Matrix
-        createDecisionMatrixSheet(workbook);
+            // Sheet 3: Decision Matrix
+            createDecisionMatrixSheet(workbook);
 
-        // Sheet 4: Scoring Guide
-        createScoringGuideSheet(workbook);
+            // Sheet 4: Scoring Guide
+            createScoringGuideSheet(workbook);
 
-        // Sheet 5: Multiple Projects Comparison
-        createMultiProjectSheet(workbook);
+            // Sheet 5: Multiple Projects Comparison
+            createMultiProjectSheet(workbook);
 
-        // Write to file
-        try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
-            workbook.write(fileOut);
+            workbook.write(out);
+            return out.toByteArray();
         }
-        workbook.close();
     }
 
     private void createWeightsSheet(Workbook workbook) {
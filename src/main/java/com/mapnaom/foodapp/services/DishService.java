@@ -1,7 +1,9 @@
 package com.mapnaom.foodapp.services;
 
+import com.mapnaom.foodapp.coalesce.Coalesce;
 import com.mapnaom.foodapp.dtos.DishDto;
 import com.mapnaom.foodapp.dtos.DishExcelImportDto;
+import com.mapnaom.foodapp.events.DishChangedEvent;
 import com.mapnaom.foodapp.exceptions.DishHasAssociatedDailyMealsException;
 import com.mapnaom.foodapp.mappers.DishMapper;
 import com.mapnaom.foodapp.models.Dish;
@@ -10,9 +12,11 @@ import com.mapnaom.foodapp.repositories.DailyMealDishRepository;
 import com.mapnaom.foodapp.repositories.DishRepository;
 import com.mapnaom.foodapp.searchForms.DishSearchForm;
 import com.mapnaom.foodapp.specifications.DishSpecification;
+import com.mapnaom.foodapp.utils.CsvUtil;
 import com.mapnaom.foodapp.utils.ExcelUtil;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -36,7 +40,9 @@ public class DishService {
     private final DishRepository dishRepository;
     private final DishMapper dishMapper;
     private final ExcelUtil excelUtil;
+    private final CsvUtil csvUtil;
     private final DailyMealDishRepository dailyMealDishRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public DishDto createDish(@NotNull DishDto dishDto) {
         // Check if a dish with the same name and price already exists
@@ -48,9 +54,11 @@ public class DishService {
 
         Dish dish = dishMapper.toEntity(dishDto);
         Dish savedDish = dishRepository.save(dish);
+        eventPublisher.publishEvent(new DishChangedEvent(savedDish.getId()));
         return dishMapper.toDto(savedDish);
     }
 
+    @Transactional(readOnly = true)
     public DishDto getDishById(Long id) {
         if (id == null) {
             throw new IllegalArgumentException("Dish ID for lookup cannot be null.");
@@ -60,6 +68,7 @@ public class DishService {
         return dishMapper.toDto(dish);
     }
 
+    @Transactional(readOnly = true)
     public Page<DishDto> searchDishes(DishSearchForm form, int page, int size, String sortBy, String order) {
         // Build Pageable with sort
         Sort sort = order.equalsIgnoreCase("DESC")
@@ -77,6 +86,8 @@ public class DishService {
         // Convert entities -> DTOs
         return dishPage.map(dishMapper::toDto);
     }
+    @Coalesce
+    @Transactional(readOnly = true)
     public List<SelectOption> selectOptionsDishes(DishSearchForm form) {
         List<Dish> dishList = dishRepository.findAll(DishSpecification.getSpecification(form));
         return dishList.stream()
@@ -109,6 +120,7 @@ public class DishService {
         // Apply the partial updates from the DTO to the entity
         dishMapper.partialUpdate(dishDto, dish);
         Dish updatedDish = dishRepository.save(dish);
+        eventPublisher.publishEvent(new DishChangedEvent(updatedDish.getId()));
         return dishMapper.toDto(updatedDish);
     }
 
@@ -124,12 +136,13 @@ public class DishService {
             throw new DishHasAssociatedDailyMealsException(dishName, price);
         }
         dishRepository.deleteById(id);
+        eventPublisher.publishEvent(new DishChangedEvent(id));
     }
 
     /**
-     * Imports dishes from an Excel file
+     * Imports dishes from an Excel or CSV/TSV file
      *
-     * @param file The Excel file containing dish data
+     * @param file The Excel or delimited text file containing dish data
      * @return List of imported dishes
      * @throws IllegalArgumentException if the file format is invalid
      */
@@ -140,13 +153,14 @@ public class DishService {
 
         String contentType = file.getContentType();
         if (!"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet".equals(contentType) &&
-                !"application/vnd.ms-excel".equals(contentType)) {
-            throw new IllegalArgumentException("فقط فایل‌های اکسل (.xls یا .xlsx) پشتیبانی می‌شوند.");
+                !"application/vnd.ms-excel".equals(contentType) &&
+                !csvUtil.isDelimitedText(file)) {
+            throw new IllegalArgumentException("فقط فایل‌های اکسل (.xls یا .xlsx) و CSV/TSV پشتیبانی می‌شوند.");
         }
 
         try {
-            // Process Excel file and map to DishDto objects
-            List<DishExcelImportDto> dishDtos = excelUtil.processExcel(file, DishExcelImportDto.class);
+            // Process Excel or CSV/TSV file and map to DishDto objects
+            List<DishExcelImportDto> dishDtos = csvUtil.processFile(file, DishExcelImportDto.class);
 
             // Validate and save each dish
             return dishDtos.stream()
@@ -181,9 +195,23 @@ public class DishService {
 
         // Save the dish
         Dish dish = dishRepository.save(new Dish(dishDto.getName(), dishDto.getPrice()));
+        eventPublisher.publishEvent(new DishChangedEvent(dish.getId()));
         return new DishDto(dish.getId(), dish.getName(), dish.getPrice());
     }
 
+    @Transactional(readOnly = true)
+    public byte[] exportDishesToCsv(DishSearchForm form, String sortBy, String order, char delimiter) {
+        Sort sort = order.equalsIgnoreCase("DESC")
+                ? Sort.by(sortBy).descending()
+                : Sort.by(sortBy).ascending();
+
+        List<DishDto> dishes = dishRepository.findAll(DishSpecification.getSpecification(form), sort).stream()
+                .map(dishMapper::toDto)
+                .collect(Collectors.toList());
+        return csvUtil.generateCsv(dishes, DishDto.class, delimiter, null);
+    }
+
+    @Transactional(readOnly = true)
     public byte[] exportDishesToExcel(DishSearchForm form, String sortBy, String order) {
         try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
             Sort sort = order.equalsIgnoreCase("DESC")
@@ -0,0 +1,117 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.CostCenterBillingRowDto;
+import com.mapnaom.foodapp.dtos.CostCenterDto;
+import com.mapnaom.foodapp.dtos.GuestBookingRequestDto;
+import com.mapnaom.foodapp.dtos.GuestDto;
+import com.mapnaom.foodapp.events.GuestMealsChangedEvent;
+import com.mapnaom.foodapp.events.ProductionSlot;
+import com.mapnaom.foodapp.exceptions.DuplicateResourceException;
+import com.mapnaom.foodapp.exceptions.ResourceNotFoundException;
+import com.mapnaom.foodapp.mappers.GuestMapper;
+import com.mapnaom.foodapp.models.CostCenter;
+import com.mapnaom.foodapp.models.DailyMealDish;
+import com.mapnaom.foodapp.models.Guest;
+import com.mapnaom.foodapp.repositories.CostCenterRepository;
+import com.mapnaom.foodapp.repositories.GuestRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Books meals for visiting crews and bills them to cost centers.
+ * <p>
+ * A crew is saved with one {@code saveAll}; guest ids come from a pooled sequence, so
+ * Hibernate sends the inserts in JDBC batches. Guests take portions from the dish capacity
+ * like reservations do, and are billed at the dish price of the booking day.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class GuestService {
+
+    private final GuestRepository guestRepository;
+    private final CostCenterRepository costCenterRepository;
+    private final DailyMealDishService dailyMealDishService;
+    private final GuestMapper guestMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public List<GuestDto> bookCrew(GuestBookingRequestDto request) {
+        CostCenter costCenter = costCenterRepository.findById(request.getCostCenterId())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "CostCenter not found with id: %d".formatted(request.getCostCenterId())));
+        DailyMealDish dailyMealDish = dailyMealDishService.reservePortions(
+                request.getDailyMealDishId(), request.getGuests().size());
+        Integer unitPrice = dailyMealDish.getDish() != null ? dailyMealDish.getDish().getPrice() : null;
+
+        List<Guest> guests = new ArrayList<>(request.getGuests().size());
+        for (GuestDto guestDto : request.getGuests()) {
+            guests.add(Guest.builder()
+                    .firstName(guestDto.getFirstName().trim())
+                    .lastName(guestDto.getLastName().trim())
+                    .costCenter(costCenter)
+                    .dailyMealDish(dailyMealDish)
+                    .unitPrice(unitPrice)
+                    .build());
+        }
+
+        List<Guest> saved = guestRepository.saveAll(guests);
+        eventPublisher.publishEvent(new GuestMealsChangedEvent(productionSlot(dailyMealDish), saved.size()));
+        log.info("Booked {} guests on daily meal dish {} for cost center {}",
+                saved.size(), dailyMealDish.getId(), costCenter.getName());
+        return saved.stream().map(guestMapper::toDto).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<GuestDto> getGuestsByDate(LocalDate date) {
+        return guestRepository.findAllByDate(date).stream().map(guestMapper::toDto).toList();
+    }
+
+    public void deleteGuest(Long id) {
+        Guest guest = guestRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Guest not found with id: %d".formatted(id)));
+        guestRepository.delete(guest);
+        eventPublisher.publishEvent(new GuestMealsChangedEvent(productionSlot(guest.getDailyMealDish()), -1));
+    }
+
+    @Transactional(readOnly = true)
+    public List<CostCenterBillingRowDto> getMonthlyBilling(int jYear, int jMonth) {
+        if (jMonth < 1 || jMonth > 12) {
+            throw new IllegalArgumentException("ماه جلالی باید بین ۱ تا ۱۲ باشد، ولی مقدار وارد شده: %d".formatted(jMonth));
+        }
+        return guestRepository.findMonthlyBilling(jYear, jMonth);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CostCenterDto> getCostCenters() {
+        return costCenterRepository.findAll(Sort.by("name")).stream()
+                .map(costCenter -> new CostCenterDto(costCenter.getId(), costCenter.getName()))
+                .toList();
+    }
+
+    public CostCenterDto createCostCenter(CostCenterDto costCenterDto) {
+        String name = costCenterDto.getName().trim();
+        if (costCenterRepository.existsByName(name)) {
+            throw new DuplicateResourceException("مرکز هزینه %s قبلا ثبت شده است".formatted(name));
+        }
+        CostCenter saved = costCenterRepository.save(new CostCenter(name));
+        return new CostCenterDto(saved.getId(), saved.getName());
+    }
+
+    private static ProductionSlot productionSlot(DailyMealDish dailyMealDish) {
+        if (dailyMealDish.getDish() == null) {
+            return null;
+        }
+        return new ProductionSlot(dailyMealDish.getDailyMeal().getDate(), dailyMealDish.getDailyMeal().getId(),
+                dailyMealDish.getDish().getId(), false);
+    }
+}
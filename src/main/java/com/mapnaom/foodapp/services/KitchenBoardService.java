@@ -0,0 +1,278 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.KitchenBoardFrameDto;
+import com.mapnaom.foodapp.dtos.KitchenDeliveryDto;
+import com.mapnaom.foodapp.dtos.ProductionForecastRowDto;
+import com.mapnaom.foodapp.events.DailyMealChangedEvent;
+import com.mapnaom.foodapp.events.GuestMealsChangedEvent;
+import com.mapnaom.foodapp.events.ProductionSlot;
+import com.mapnaom.foodapp.events.ReservationChangedEvent;
+import com.mapnaom.foodapp.repositories.ProductionCountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes the preparation and delivery progress of a day to kitchen screens over SSE.
+ * <p>
+ * Committed reservation, delivery and guest changes only mark their day as changed. A
+ * scheduled tick then reads the production counters of each changed day that has viewers,
+ * one small query per day however many screens are watching, and hands the frame to every
+ * viewer of that day. Each viewer holds at most one pending frame: a newer frame replaces
+ * one that a slow client has not taken yet, so nothing queues up behind it.
+ * </p>
+ */
+@Slf4j
+@Service
+public class KitchenBoardService {
+
+    private static final int MAX_DELIVERIES_PER_FRAME = 50;
+
+    private final ProductionCountRepository productionCountRepository;
+    private final AppSettingService appSettingService;
+    private final Executor boardExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long emitterTimeoutMillis;
+    private final long fullRefreshMillis;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Set<LocalDate> changedDates = ConcurrentHashMap.newKeySet();
+    private final Map<LocalDate, Queue<KitchenDeliveryDto>> deliveries = new ConcurrentHashMap<>();
+    private final Map<LocalDate, KitchenBoardFrameDto> lastFrames = new ConcurrentHashMap<>();
+    private volatile long lastFullRefresh;
+
+    private final Counter framesSent;
+    private final Counter framesDropped;
+
+    public KitchenBoardService(ProductionCountRepository productionCountRepository,
+                               AppSettingService appSettingService,
+                               @Qualifier("boardExecutor") Executor boardExecutor,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.kitchen-board.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                               @Value("${app.kitchen-board.full-refresh-ms:30000}") long fullRefreshMillis,
+                               MeterRegistry meterRegistry) {
+        this.productionCountRepository = productionCountRepository;
+        this.appSettingService = appSettingService;
+        this.boardExecutor = boardExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.fullRefreshMillis = fullRefreshMillis;
+
+        this.framesSent = Counter.builder("kitchen.board.frames").tag("result", "sent").register(meterRegistry);
+        this.framesDropped = Counter.builder("kitchen.board.frames").tag("result", "dropped").register(meterRegistry);
+        Gauge.builder("kitchen.board.subscribers", subscribers, List::size).register(meterRegistry);
+    }
+
+    /**
+     * Opens a board stream for a day, today when {@code date} is {@code null}. The current
+     * counts are sent at once when known, otherwise with the next tick.
+     */
+    public SseEmitter subscribe(LocalDate date) {
+        LocalDate day = date != null ? date : LocalDate.now(appSettingService.getZone());
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(day, emitter);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        KitchenBoardFrameDto last = lastFrames.get(day);
+        if (last != null) {
+            offer(subscriber, new KitchenBoardFrameDto(day, last.getDishes(), List.of(), last.getGeneratedAt()));
+        } else {
+            changedDates.add(day);
+        }
+        log.debug("Kitchen board subscriber for {} added, {} connected", day, subscribers.size());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        if (!event.affectsProduction()) {
+            return;
+        }
+        ProductionSlot before = event.getBefore();
+        ProductionSlot after = event.getAfter();
+        if (before != null) {
+            changedDates.add(before.getMealDate());
+        }
+        if (after != null) {
+            changedDates.add(after.getMealDate());
+            if (after.isDelivered() && (before == null || !before.isDelivered()) && isWatched(after.getMealDate())) {
+                Queue<KitchenDeliveryDto> queue = deliveries.computeIfAbsent(after.getMealDate(),
+                        key -> new ConcurrentLinkedQueue<>());
+                queue.add(new KitchenDeliveryDto(event.getReservationId(), after.getDailyMealId(), after.getDishId(),
+                        Instant.now()));
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGuestMealsChanged(GuestMealsChangedEvent event) {
+        if (event.getSlot() != null) {
+            changedDates.add(event.getSlot().getMealDate());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDailyMealChanged(DailyMealChangedEvent event) {
+        if (event.getDate() != null) {
+            changedDates.add(event.getDate());
+        }
+    }
+
+    /**
+     * Builds one frame per changed day that has viewers, at most once per interval. Every
+     * watched day is also refreshed periodically, which doubles as a keep-alive and picks up
+     * counter rebuilds that publish no events.
+     */
+    @Scheduled(fixedDelayString = "${app.kitchen-board.frame-interval-ms:500}")
+    public void publishFrames() {
+        long now = System.currentTimeMillis();
+        Set<LocalDate> watched = new HashSet<>();
+        for (Subscriber subscriber : subscribers) {
+            watched.add(subscriber.date);
+        }
+
+        Set<LocalDate> due = new HashSet<>();
+        for (LocalDate date : changedDates) {
+            changedDates.remove(date);
+            if (watched.contains(date)) {
+                due.add(date);
+            } else {
+                lastFrames.remove(date);
+                deliveries.remove(date);
+            }
+        }
+        if (now - lastFullRefresh >= fullRefreshMillis) {
+            due.addAll(watched);
+            lastFullRefresh = now;
+            lastFrames.keySet().retainAll(watched);
+        }
+
+        for (LocalDate date : due) {
+            KitchenBoardFrameDto frame;
+            try {
+                frame = buildFrame(date);
+            } catch (RuntimeException e) {
+                log.warn("Kitchen board frame for {} failed: {}", date, e.getMessage());
+                changedDates.add(date);
+                continue;
+            }
+            lastFrames.put(date, frame);
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.date.equals(date)) {
+                    offer(subscriber, frame);
+                }
+            }
+        }
+    }
+
+    private KitchenBoardFrameDto buildFrame(LocalDate date) {
+        List<ProductionForecastRowDto> dishes = readOnlyTransaction.execute(tx ->
+                productionCountRepository.findForecast(date));
+
+        List<KitchenDeliveryDto> delivered = new ArrayList<>();
+        Queue<KitchenDeliveryDto> queue = deliveries.get(date);
+        if (queue != null) {
+            KitchenDeliveryDto delivery;
+            while ((delivery = queue.poll()) != null) {
+                delivered.add(delivery);
+            }
+            if (delivered.size() > MAX_DELIVERIES_PER_FRAME) {
+                delivered = delivered.subList(delivered.size() - MAX_DELIVERIES_PER_FRAME, delivered.size());
+            }
+        }
+        return new KitchenBoardFrameDto(date, dishes, List.copyOf(delivered), Instant.now());
+    }
+
+    /**
+     * Replaces the pending frame of a subscriber and starts a sender unless one is running.
+     */
+    private void offer(Subscriber subscriber, KitchenBoardFrameDto frame) {
+        if (subscriber.pending.getAndSet(frame) != null) {
+            framesDropped.increment();
+        }
+        if (subscriber.sending.compareAndSet(false, true)) {
+            try {
+                boardExecutor.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                // The frame stays pending and goes out with the next offer
+                subscriber.sending.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            KitchenBoardFrameDto frame = subscriber.pending.getAndSet(null);
+            if (frame == null) {
+                subscriber.sending.set(false);
+                // A frame may have arrived after the check; take it unless another sender did
+                if (subscriber.pending.get() == null || !subscriber.sending.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                subscriber.emitter.send(SseEmitter.event().name("board").data(frame));
+                framesSent.increment();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Kitchen board subscriber for {} disconnected: {}", subscriber.date, e.getMessage());
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+                subscriber.sending.set(false);
+                return;
+            }
+        }
+    }
+
+    private boolean isWatched(LocalDate date) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.date.equals(date)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Subscriber {
+        private final LocalDate date;
+        private final SseEmitter emitter;
+        private final AtomicReference<KitchenBoardFrameDto> pending = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(LocalDate date, SseEmitter emitter) {
+            this.date = date;
+            this.emitter = emitter;
+        }
+    }
+}
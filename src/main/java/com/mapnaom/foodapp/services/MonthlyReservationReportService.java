@@ -0,0 +1,321 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.DailyReportRowDto;
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.repositories.DailyMealRepository;
+import com.mapnaom.foodapp.repositories.ReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Builds the monthly reservation workbook: a summary sheet plus one sheet per day of the
+ * Jalali month that has a menu, listing reservations per dish, per-person cost shares and
+ * undelivered meals.
+ * <p>
+ * Each day is fetched and aggregated concurrently on the bounded {@code reportExecutor},
+ * every task in its own read-only transaction. POI workbooks are not thread-safe, so the
+ * prepared day models are then written serially into a single streaming workbook.
+ * </p>
+ */
+@Slf4j
+@Service
+public class MonthlyReservationReportService {
+
+    private static final String[] DISH_HEADERS = {"غذا", "تعداد", "قیمت واحد", "جمع"};
+    private static final String[] COST_HEADERS = {"کد پرسنلی", "نام", "نام خانوادگی", "غذا", "وضعیت",
+            "تعداد", "سهم کارمند", "سهم کارفرما", "هزینه کل"};
+    private static final String[] UNDELIVERED_HEADERS = {"کد پرسنلی", "نام", "نام خانوادگی", "غذا", "وضعیت"};
+    private static final String[] SUMMARY_HEADERS = {"تاریخ", "تعداد رزرو", "تحویل شده", "تحویل نشده",
+            "سهم کارمند", "سهم کارفرما", "هزینه کل"};
+
+    private final DailyMealRepository dailyMealRepository;
+    private final ReservationRepository reservationRepository;
+    private final Executor reportExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long timeoutSeconds;
+
+    public MonthlyReservationReportService(DailyMealRepository dailyMealRepository,
+                                           ReservationRepository reservationRepository,
+                                           @Qualifier("reportExecutor") Executor reportExecutor,
+                                           PlatformTransactionManager transactionManager,
+                                           @Value("${app.reports.monthly.timeout-seconds:120}") long timeoutSeconds) {
+        this.dailyMealRepository = dailyMealRepository;
+        this.reservationRepository = reservationRepository;
+        this.reportExecutor = reportExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public byte[] generateMonthlyReport(int jYear, int jMonth) {
+        if (jMonth < 1 || jMonth > 12) {
+            throw new IllegalArgumentException("ماه جلالی باید بین ۱ تا ۱۲ باشد، ولی مقدار وارد شده: %d".formatted(jMonth));
+        }
+
+        long start = System.currentTimeMillis();
+        List<LocalDate> dates = readOnlyTransaction.execute(status ->
+                dailyMealRepository.findDatesByJalaliYearAndJalaliMonth(jYear, jMonth));
+
+        List<CompletableFuture<DaySheet>> futures = Objects.requireNonNull(dates).stream()
+                .map(date -> CompletableFuture.supplyAsync(() -> prepareDay(date), reportExecutor))
+                .toList();
+
+        List<DaySheet> days = awaitAll(futures);
+        long fetched = System.currentTimeMillis();
+
+        byte[] workbook = writeWorkbook(days);
+        log.info("Monthly report {}/{} built: {} days, fetch {} ms, write {} ms, {} bytes",
+                jYear, jMonth, days.size(), fetched - start, System.currentTimeMillis() - fetched, workbook.length);
+        return workbook;
+    }
+
+    private List<DaySheet> awaitAll(List<CompletableFuture<DaySheet>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("تولید گزارش ماهانه متوقف شد.", e);
+        } catch (TimeoutException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("تولید گزارش ماهانه بیش از %d ثانیه طول کشید.".formatted(timeoutSeconds), e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("خطا در تولید گزارش ماهانه: %s".formatted(e.getCause().getMessage()), e.getCause());
+        }
+
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    // ==================== DATA PREPARATION (parallel) ====================
+
+    private DaySheet prepareDay(LocalDate date) {
+        List<DailyReportRowDto> rows = readOnlyTransaction.execute(status ->
+                reservationRepository.findDailyReportRows(date));
+
+        DaySheet day = new DaySheet(DailyMealService.convertGregorianToJalali(date), Objects.requireNonNull(rows));
+        for (DailyReportRowDto row : day.rows) {
+            if (row.getReservationStatus() == ReservationStatus.CANCELLED) continue;
+
+            int quantity = row.getQuantity() != null ? row.getQuantity() : 1;
+            String dishName = row.getDishName() != null ? row.getDishName() : "-";
+            int unitPrice = row.getDishPrice() != null ? row.getDishPrice() : 0;
+            // Prices are snapshotted per booking, so one dish may appear at more than one price
+            DishSummary summary = day.dishes.computeIfAbsent(dishName + "|" + unitPrice,
+                    key -> new DishSummary(dishName, unitPrice));
+            summary.count += quantity;
+
+            day.reserved += quantity;
+            day.employeeTotal = day.employeeTotal.add(nullToZero(row.getEmployeePortion()));
+            day.employerTotal = day.employerTotal.add(nullToZero(row.getEmployerPortion()));
+            day.costTotal = day.costTotal.add(nullToZero(row.getTotalCost()));
+
+            if (row.getReservationStatus() == ReservationStatus.DELIVERED) {
+                day.delivered += quantity;
+            } else {
+                day.undelivered.add(row);
+            }
+        }
+        return day;
+    }
+
+    private static BigDecimal nullToZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    // ==================== WORKBOOK ASSEMBLY (serial) ====================
+
+    private byte[] writeWorkbook(List<DaySheet> days) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(200);
+        workbook.setCompressTempFiles(true);
+
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Styles styles = new Styles(workbook);
+
+            writeSummarySheet(workbook, styles, days);
+            for (DaySheet day : days) {
+                writeDaySheet(workbook, styles, day);
+            }
+
+            workbook.write(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("خطا در نوشتن فایل گزارش ماهانه: %s".formatted(e.getMessage()), e);
+        } finally {
+            workbook.dispose();
+        }
+    }
+
+    private void writeSummarySheet(SXSSFWorkbook workbook, Styles styles, List<DaySheet> days) {
+        Sheet sheet = workbook.createSheet("خلاصه");
+        sheet.setRightToLeft(true);
+        setColumnWidths(sheet, SUMMARY_HEADERS.length, 16);
+
+        int rowIdx = writeHeader(sheet, 0, SUMMARY_HEADERS, styles);
+        for (DaySheet day : days) {
+            Row row = sheet.createRow(rowIdx++);
+            textCell(row, 0, day.jalaliDate, styles);
+            numberCell(row, 1, day.reserved, styles);
+            numberCell(row, 2, day.delivered, styles);
+            numberCell(row, 3, day.undelivered.size(), styles);
+            amountCell(row, 4, day.employeeTotal, styles);
+            amountCell(row, 5, day.employerTotal, styles);
+            amountCell(row, 6, day.costTotal, styles);
+        }
+    }
+
+    private void writeDaySheet(SXSSFWorkbook workbook, Styles styles, DaySheet day) {
+        Sheet sheet = workbook.createSheet(day.jalaliDate.replace('/', '-'));
+        sheet.setRightToLeft(true);
+        setColumnWidths(sheet, COST_HEADERS.length, 16);
+
+        int rowIdx = writeTitle(sheet, 0, "رزرو به تفکیک غذا", styles);
+        rowIdx = writeHeader(sheet, rowIdx, DISH_HEADERS, styles);
+        for (DishSummary dish : day.dishes.values()) {
+            Row row = sheet.createRow(rowIdx++);
+            textCell(row, 0, dish.name, styles);
+            numberCell(row, 1, dish.count, styles);
+            numberCell(row, 2, dish.price, styles);
+            numberCell(row, 3, (long) dish.price * dish.count, styles);
+        }
+
+        rowIdx = writeTitle(sheet, rowIdx + 1, "سهم هزینه پرسنل", styles);
+        rowIdx = writeHeader(sheet, rowIdx, COST_HEADERS, styles);
+        for (DailyReportRowDto item : day.rows) {
+            Row row = sheet.createRow(rowIdx++);
+            writePersonCells(row, item, styles);
+            numberCell(row, 5, item.getQuantity() != null ? item.getQuantity() : 0, styles);
+            amountCell(row, 6, item.getEmployeePortion(), styles);
+            amountCell(row, 7, item.getEmployerPortion(), styles);
+            amountCell(row, 8, item.getTotalCost(), styles);
+        }
+
+        rowIdx = writeTitle(sheet, rowIdx + 1, "غذاهای تحویل نشده", styles);
+        rowIdx = writeHeader(sheet, rowIdx, UNDELIVERED_HEADERS, styles);
+        for (DailyReportRowDto item : day.undelivered) {
+            writePersonCells(sheet.createRow(rowIdx++), item, styles);
+        }
+    }
+
+    private void writePersonCells(Row row, DailyReportRowDto item, Styles styles) {
+        textCell(row, 0, item.getPersCode(), styles);
+        textCell(row, 1, item.getFirstName(), styles);
+        textCell(row, 2, item.getLastName(), styles);
+        textCell(row, 3, item.getDishName(), styles);
+        textCell(row, 4, item.getReservationStatus().getPersianCaption(), styles);
+    }
+
+    private int writeTitle(Sheet sheet, int rowIdx, String title, Styles styles) {
+        Cell cell = sheet.createRow(rowIdx).createCell(0);
+        cell.setCellValue(title);
+        cell.setCellStyle(styles.title);
+        return rowIdx + 1;
+    }
+
+    private int writeHeader(Sheet sheet, int rowIdx, String[] headers, Styles styles) {
+        Row row = sheet.createRow(rowIdx);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(styles.header);
+        }
+        return rowIdx + 1;
+    }
+
+    private void textCell(Row row, int column, String value, Styles styles) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value != null ? value : "");
+        cell.setCellStyle(styles.data);
+    }
+
+    private void numberCell(Row row, int column, long value, Styles styles) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(styles.amount);
+    }
+
+    private void amountCell(Row row, int column, BigDecimal value, Styles styles) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(nullToZero(value).doubleValue());
+        cell.setCellStyle(styles.amount);
+    }
+
+    // Fixed widths: autoSizeColumn is unavailable for flushed rows of a streaming sheet
+    private void setColumnWidths(Sheet sheet, int columns, int width) {
+        for (int i = 0; i < columns; i++) {
+            sheet.setColumnWidth(i, width * 256);
+        }
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    private static class DaySheet {
+        private final String jalaliDate;
+        private final List<DailyReportRowDto> rows;
+        private final Map<String, DishSummary> dishes = new LinkedHashMap<>();
+        private final List<DailyReportRowDto> undelivered = new ArrayList<>();
+        private int reserved;
+        private int delivered;
+        private BigDecimal employeeTotal = BigDecimal.ZERO;
+        private BigDecimal employerTotal = BigDecimal.ZERO;
+        private BigDecimal costTotal = BigDecimal.ZERO;
+
+        private DaySheet(String jalaliDate, List<DailyReportRowDto> rows) {
+            this.jalaliDate = jalaliDate;
+            this.rows = rows;
+        }
+    }
+
+    private static class DishSummary {
+        private final String name;
+        private final int price;
+        private int count;
+
+        private DishSummary(String name, int price) {
+            this.name = name;
+            this.price = price;
+        }
+    }
+
+    private static class Styles {
+        private final CellStyle title;
+        private final CellStyle header;
+        private final CellStyle data;
+        private final CellStyle amount;
+
+        private Styles(Workbook workbook) {
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+
+            title = workbook.createCellStyle();
+            title.setFont(bold);
+
+            header = workbook.createCellStyle();
+            header.setFont(bold);
+            header.setAlignment(HorizontalAlignment.CENTER);
+            header.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            header.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            data = workbook.createCellStyle();
+            data.setAlignment(HorizontalAlignment.CENTER);
+
+            amount = workbook.createCellStyle();
+            amount.setDataFormat(workbook.createDataFormat().getFormat("#,##0"));
+            amount.setAlignment(HorizontalAlignment.RIGHT);
+        }
+    }
+}
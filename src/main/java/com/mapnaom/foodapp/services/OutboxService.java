@@ -0,0 +1,138 @@
+package com.mapnaom.foodapp.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mapnaom.foodapp.dtos.ChangeDto;
+import com.mapnaom.foodapp.dtos.ChangePageDto;
+import com.mapnaom.foodapp.events.CostSharesRepricedEvent;
+import com.mapnaom.foodapp.events.DailyMealChangedEvent;
+import com.mapnaom.foodapp.events.DishChangedEvent;
+import com.mapnaom.foodapp.events.ReservationChangedEvent;
+import com.mapnaom.foodapp.events.ReservationStatusesTransitionedEvent;
+import com.mapnaom.foodapp.mappers.OutboxEventMapper;
+import com.mapnaom.foodapp.models.OutboxEvent;
+import com.mapnaom.foodapp.repositories.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records reservation, cost share, menu and dish changes in the outbox and serves the change
+ * feed.
+ * <p>
+ * The listeners run synchronously inside the transaction that publishes the domain event, so
+ * an outbox row exists exactly when the change it describes has committed. Cost shares change
+ * with their reservation, and daily meal dishes with their daily meal, so those events cover
+ * them too; bulk cost share updates and lifecycle status sweeps are recorded once per chunk
+ * as an id range.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    public static final String RESERVATION = "RESERVATION";
+    public static final String DAILY_MEAL = "DAILY_MEAL";
+    public static final String COST_SHARE = "COST_SHARE";
+    public static final String DISH = "DISH";
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventMapper outboxEventMapper;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    @Transactional
+    public void onReservationChanged(ReservationChangedEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("reservationId", event.getReservationId());
+        payload.put("before", event.getBefore());
+        payload.put("after", event.getAfter());
+        record(RESERVATION, String.valueOf(event.getReservationId()), event.getChange().name(), payload);
+    }
+
+    @EventListener
+    @Transactional
+    public void onDailyMealChanged(DailyMealChangedEvent event) {
+        record(DAILY_MEAL, String.valueOf(event.getDate()), "MENU_CHANGED", Map.of("date", event.getDate()));
+    }
+
+    @EventListener
+    @Transactional
+    public void onDishChanged(DishChangedEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("dishId", event.getDishId());
+        record(DISH, String.valueOf(event.getDishId()), "CHANGED", payload);
+    }
+
+    @EventListener
+    @Transactional
+    public void onCostSharesRepriced(CostSharesRepricedEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("fromId", event.getFromId());
+        payload.put("toId", event.getToId());
+        payload.put("updated", event.getUpdated());
+        payload.put("reason", event.getReason());
+        record(COST_SHARE, "%d-%d".formatted(event.getFromId(), event.getToId()), "REPRICED", payload);
+    }
+
+    @EventListener
+    @Transactional
+    public void onReservationStatusesTransitioned(ReservationStatusesTransitionedEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("fromId", event.getFromId());
+        payload.put("toId", event.getToId());
+        payload.put("from", event.getFrom());
+        payload.put("to", event.getTo());
+        payload.put("lastDate", event.getLastDate());
+        payload.put("updated", event.getUpdated());
+        record(RESERVATION, "%d-%d".formatted(event.getFromId(), event.getToId()), "STATUSES_SWEPT", payload);
+    }
+
+    /**
+     * Returns relayed changes after the cursor {@code since}, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public ChangePageDto getChangesSince(long since, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<ChangeDto> changes = outboxEventRepository.findChangesSince(since, PageRequest.of(0, size + 1))
+                .stream()
+                .map(outboxEventMapper::toChange)
+                .toList();
+
+        boolean hasMore = changes.size() > size;
+        if (hasMore) {
+            changes = changes.subList(0, size);
+        }
+        long nextCursor = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        return new ChangePageDto(changes, nextCursor, hasMore);
+    }
+
+    /**
+     * Returns the cursor of the newest relayed change, for readers that only want what
+     * happens from now on.
+     */
+    @Transactional(readOnly = true)
+    public long getLatestCursor() {
+        return outboxEventRepository.findMaxSeq();
+    }
+
+    private void record(String aggregateType, String aggregateId, String eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload for %s %s".formatted(aggregateType, aggregateId), e);
+        }
+        outboxEventRepository.save(new OutboxEvent(aggregateType, aggregateId, eventType, json));
+    }
+}
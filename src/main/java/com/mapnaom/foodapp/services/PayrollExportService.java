@@ -0,0 +1,143 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.PayrollDeductionRowDto;
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.repositories.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes the monthly payroll deduction file: one line per employee with the number of meals
+ * and the sum of the employee portions in rials, followed by a trailer line.
+ * <p>
+ * Rows come from a single aggregate query and are written as they are read, so memory use
+ * does not depend on the number of employees. The trailer holds the record count, the total
+ * amount and the CRC32 of every byte before it, so the payroll system can detect truncated
+ * or edited files.
+ * </p>
+ * <p>
+ * Every reservation that was not cancelled is deducted, including expired ones: a meal that
+ * was reserved but not collected has still been cooked for the employee.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PayrollExportService {
+
+    public enum Format {
+        /** {@code persCode,mealCount,amount} */
+        CSV,
+        /** persCode (10, left aligned), meal count (4, zero padded), amount (15, zero padded) */
+        FIXED
+    }
+
+    /** Statuses of the reservations charged to the employee. */
+    public static final Set<ReservationStatus> DEDUCTED_STATUSES = EnumSet.of(
+            ReservationStatus.PENDING, ReservationStatus.ACTIVE, ReservationStatus.DELIVERED, ReservationStatus.EXPIRED);
+
+    private static final int FIXED_PERS_CODE_LENGTH = 10;
+
+    private final ReservationRepository reservationRepository;
+
+    /**
+     * Rejects a request that could not produce a complete file. Must be called before the
+     * response is committed: a failure while streaming would reach the client as a truncated
+     * file with a 200 status and no trailer.
+     *
+     * @throws IllegalArgumentException if the month is out of range
+     * @throws IllegalStateException if a personnel code does not fit the fixed-width layout
+     */
+    @Transactional(readOnly = true)
+    public void validate(int jYear, int jMonth, Format format) {
+        if (jMonth < 1 || jMonth > 12) {
+            throw new IllegalArgumentException("ماه جلالی باید بین ۱ تا ۱۲ باشد، ولی مقدار وارد شده: %d".formatted(jMonth));
+        }
+        if (format == Format.FIXED) {
+            List<String> tooLong = reservationRepository.findPayrollPersCodesLongerThan(
+                    jYear, jMonth, DEDUCTED_STATUSES, FIXED_PERS_CODE_LENGTH);
+            if (!tooLong.isEmpty()) {
+                throw new IllegalStateException("کد پرسنلی %s برای فایل حقوق بیش از ۱۰ کاراکتر است"
+                        .formatted(String.join("، ", tooLong)));
+            }
+        }
+    }
+
+    /**
+     * Writes the file for a month already checked by {@link #validate}.
+     */
+    @Transactional(readOnly = true)
+    public void writeDeductions(int jYear, int jMonth, Format format, OutputStream outputStream) throws IOException {
+
+        long start = System.currentTimeMillis();
+        CRC32 crc = new CRC32();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new CheckedOutputStream(outputStream, crc), StandardCharsets.US_ASCII));
+
+        long records = 0;
+        long totalAmount = 0;
+        try (Stream<PayrollDeductionRowDto> rows =
+                     reservationRepository.streamPayrollDeductions(jYear, jMonth, DEDUCTED_STATUSES)) {
+            Iterator<PayrollDeductionRowDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                PayrollDeductionRowDto row = iterator.next();
+                long amount = toRials(row.getEmployeeTotal());
+                writeRecord(writer, format, row.getPersCode(), row.getMealCount(), amount);
+                records++;
+                totalAmount += amount;
+            }
+        }
+
+        // Flush the records through the checksum before computing the trailer
+        writer.flush();
+        String trailer = format == Format.CSV
+                ? "TRAILER,%d,%d,%08X\r\n".formatted(records, totalAmount, crc.getValue())
+                : "T%010d%015d%08X\r\n".formatted(records, totalAmount, crc.getValue());
+        outputStream.write(trailer.getBytes(StandardCharsets.US_ASCII));
+        outputStream.flush();
+
+        log.info("Payroll export {}/{}: {} employees, {} rials, {} ms",
+                jYear, jMonth, records, totalAmount, System.currentTimeMillis() - start);
+    }
+
+    private void writeRecord(Writer writer, Format format, String persCode, long mealCount, long amount)
+            throws IOException {
+        String code = persCode != null ? persCode.trim() : "";
+        if (format == Format.CSV) {
+            writer.write(code);
+            writer.write(',');
+            writer.write(Long.toString(mealCount));
+            writer.write(',');
+            writer.write(Long.toString(amount));
+        } else {
+            if (code.length() > FIXED_PERS_CODE_LENGTH) {
+                // Checked by validate(); a code changed since then must not shift the columns
+                throw new IllegalStateException("کد پرسنلی %s برای فایل حقوق بیش از ۱۰ کاراکتر است".formatted(code));
+            }
+            writer.write("%-10s%04d%015d".formatted(code, mealCount, amount));
+        }
+        writer.write("\r\n");
+    }
+
+    private long toRials(BigDecimal amount) {
+        return amount != null ? amount.setScale(0, RoundingMode.HALF_UP).longValueExact() : 0;
+    }
+}
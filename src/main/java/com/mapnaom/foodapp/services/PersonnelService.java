@@ -10,6 +10,7 @@ import com.mapnaom.foodapp.models.Personnel;
 import com.mapnaom.foodapp.repositories.PersonnelRepository;
 import com.mapnaom.foodapp.repositories.ReservationRepository;
 import com.mapnaom.foodapp.specifications.PersonnelSpecification;
+import com.mapnaom.foodapp.utils.CsvUtil;
 import com.mapnaom.foodapp.utils.ExcelUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +37,7 @@ public class PersonnelService {
     private final PersonnelRepository personnelRepository;
     private final PersonnelMapper personnelMapper;
     private final ExcelUtil excelUtil;
+    private final CsvUtil csvUtil;
     private final ReservationRepository reservationRepository;
 
 
@@ -49,6 +51,7 @@ public class PersonnelService {
      * @param order  sort direction, "ASC" for ascending and "DESC" for descending.
      * @return a Page of PersonnelDto objects matching the given criteria.
      */
+    @Transactional(readOnly = true)
     public Page<PersonnelDto> searchPersonnel(String string, int page, int size, String sortBy, String order) {
         Sort sort = order.equalsIgnoreCase("DESC")
                 ? Sort.by(sortBy).descending()
@@ -59,6 +62,7 @@ public class PersonnelService {
         return personnelPage.map(personnelMapper::toDto);
     }
 
+    @Transactional(readOnly = true)
     public List<SelectOption> selectPersonnel(String searchKeyword) {
         return personnelRepository.findAll(PersonnelSpecification.withFilterByFullName(searchKeyword))
                 .stream()
@@ -69,6 +73,7 @@ public class PersonnelService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public PersonnelDto getPersonnelById(Long id) {
         final var optional = personnelRepository.findById(id);
         if (optional.isEmpty()) {
@@ -129,8 +134,8 @@ public class PersonnelService {
         List<PersonnelDto> failedImports = new ArrayList<>();
 
         try {
-            // Process Excel file and map to DTOs
-            List<PersonnelDto> personnelDtos = excelUtil.processExcel(file, PersonnelDto.class);
+            // Process Excel or CSV/TSV file and map to DTOs
+            List<PersonnelDto> personnelDtos = csvUtil.processFile(file, PersonnelDto.class);
 
             // Process each DTO
             for (PersonnelDto dto : personnelDtos) {
@@ -170,6 +175,7 @@ public class PersonnelService {
             throw new RuntimeException(errorMessage, e);
         }
     }
+    @Transactional(readOnly = true)
     public byte[] exportToExcel() {
         List<Personnel> personnelList = personnelRepository.findAll(Sort.by("id").ascending());
         List<PersonnelDto> personnelDtos = personnelList.stream()
@@ -178,5 +184,13 @@ public class PersonnelService {
         return excelUtil.generateExcel(personnelDtos, PersonnelDto.class);
     }
 
+    @Transactional(readOnly = true)
+    public byte[] exportToCsv(char delimiter) {
+        List<PersonnelDto> personnelDtos = personnelRepository.findAll(Sort.by("id").ascending()).stream()
+                .map(personnelMapper::toDto)
+                .collect(Collectors.toList());
+        return csvUtil.generateCsv(personnelDtos, PersonnelDto.class, delimiter, null);
+    }
+
 
 }
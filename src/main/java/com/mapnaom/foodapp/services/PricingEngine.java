@@ -0,0 +1,49 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.models.CostShare;
+import com.mapnaom.foodapp.models.Dish;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Derives the employee and employer portions of a reservation from the dish price and the
+ * active {@code PriceShares}. The employee portion is rounded to two decimals and the employer
+ * pays the remainder, so the portions always add up to the total cost.
+ * <p>
+ * {@link CostShareRecomputeService} applies the same rule in bulk when prices or shares change.
+ * Each instance prices from its own settings snapshot, which may lag a save made elsewhere by
+ * up to the refresh interval; every instance re-runs that recompute once it has refreshed.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class PricingEngine {
+
+    private final AppSettingService appSettingService;
+
+    public CostShare price(Dish dish, int quantity) {
+        return apply(new CostShare(), dish, quantity);
+    }
+
+    /**
+     * Snapshots the dish name and price onto {@code costShare} and recalculates every amount
+     * for the given quantity.
+     */
+    public CostShare apply(CostShare costShare, Dish dish, int quantity) {
+        AppSettingSnapshot settings = appSettingService.getSnapshot();
+        int unitPrice = dish.getPrice() != null ? dish.getPrice() : 0;
+        BigDecimal totalCost = BigDecimal.valueOf((long) unitPrice * quantity);
+        BigDecimal employeePortion = settings.employeePortionOf(totalCost);
+
+        return costShare
+                .setDishName(dish.getName())
+                .setUnitPrice(unitPrice)
+                .setQuantity(quantity)
+                .setTotalCost(totalCost)
+                .setEmployeePortion(employeePortion)
+                .setEmployerPortion(totalCost.subtract(employeePortion))
+                .setEmployeeSharePercentage(settings.getEmployeeSharePercentage());
+    }
+}
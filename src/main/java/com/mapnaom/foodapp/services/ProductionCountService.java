@@ -0,0 +1,257 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.ProductionForecastRowDto;
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.events.DailyMealChangedEvent;
+import com.mapnaom.foodapp.events.GuestMealsChangedEvent;
+import com.mapnaom.foodapp.events.ProductionSlot;
+import com.mapnaom.foodapp.events.ReservationChangedEvent;
+import com.mapnaom.foodapp.models.ProductionCount;
+import com.mapnaom.foodapp.repositories.DailyMealRepository;
+import com.mapnaom.foodapp.repositories.ProductionCountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the number of portions to cook per dish and daily meal in {@link ProductionCount} rows.
+ * <p>
+ * Counters are adjusted in the same transaction as the reservation or guest change that
+ * publishes the event, so they commit or roll back together. The forecast of a day then reads
+ * one row per dish. A day is recounted from scratch when its menu changes, for upcoming days
+ * at startup, and on demand; the recount locks the day's counters, so it never races with the
+ * bookings that keep adjusting them.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ProductionCountService {
+
+    private static final String[] SHEET_HEADERS = {"وعده", "غذا", "رزرو پرسنل", "مهمان", "جمع", "تحویل شده"};
+
+    private final ProductionCountRepository productionCountRepository;
+    private final DailyMealRepository dailyMealRepository;
+    private final AppSettingService appSettingService;
+    private final Executor maintenanceExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductionCountService(ProductionCountRepository productionCountRepository,
+                                  DailyMealRepository dailyMealRepository,
+                                  AppSettingService appSettingService,
+                                  @Qualifier("maintenanceExecutor") Executor maintenanceExecutor,
+                                  PlatformTransactionManager transactionManager) {
+        this.productionCountRepository = productionCountRepository;
+        this.dailyMealRepository = dailyMealRepository;
+        this.appSettingService = appSettingService;
+        this.maintenanceExecutor = maintenanceExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener
+    public void onReservationChanged(ReservationChangedEvent event) {
+        if (!event.affectsProduction()) {
+            return;
+        }
+        ProductionSlot before = event.getBefore();
+        ProductionSlot after = event.getAfter();
+        if (before != null && after != null && before.getDailyMealId().equals(after.getDailyMealId())
+                && before.getDishId().equals(after.getDishId())) {
+            // Same dish, only delivery changed
+            add(after, 0, (after.isDelivered() ? 1 : 0) - (before.isDelivered() ? 1 : 0), 0);
+            return;
+        }
+        if (before != null) {
+            add(before, -1, before.isDelivered() ? -1 : 0, 0);
+        }
+        if (after != null) {
+            add(after, 1, after.isDelivered() ? 1 : 0, 0);
+        }
+    }
+
+    @EventListener
+    public void onGuestMealsChanged(GuestMealsChangedEvent event) {
+        add(event.getSlot(), 0, 0, event.getDelta());
+    }
+
+    /**
+     * Dishes may have been added to or removed from the menu of the day; recount it.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDailyMealChanged(DailyMealChangedEvent event) {
+        if (event.getDate() != null) {
+            maintenanceExecutor.execute(() -> rebuild(event.getDate()));
+        }
+    }
+
+    /**
+     * Recounts the upcoming days, so counters are correct for reservations made before this
+     * table existed or changed by bulk statements that publish no events.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleRebuild() {
+        maintenanceExecutor.execute(() -> {
+            LocalDate today = LocalDate.now(appSettingService.getZone());
+            List<LocalDate> dates = transactionTemplate.execute(tx -> dailyMealRepository.findDatesFrom(today));
+            if (dates != null) {
+                dates.forEach(this::rebuild);
+                log.info("Production counts rebuilt for {} upcoming days", dates.size());
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductionForecastRowDto> getForecast(LocalDate date) {
+        return productionCountRepository.findForecast(date);
+    }
+
+    /**
+     * Sets the counters of a day to counts taken from its reservations and guests.
+     * <p>
+     * Every dish on the menu first gets a counter and the day's counters are locked. Bookings
+     * that adjusted a counter before that have committed by the time the lock is granted and
+     * are included in the counts; bookings after it wait for this transaction and then apply
+     * their change on top of the recounted values.
+     * </p>
+     *
+     * @return the number of dishes counted
+     */
+    public int rebuild(LocalDate date) {
+        Integer dishes = transactionTemplate.execute(tx -> {
+            productionCountRepository.insertMissingForDate(date);
+            List<ProductionCount> locked = productionCountRepository.lockByMealDate(date);
+
+            Map<String, ProductionCount> counts = new LinkedHashMap<>();
+            for (ProductionCountRepository.SlotCount row :
+                    productionCountRepository.countReservations(date, ReservationStatus.CANCELLED, ReservationStatus.DELIVERED)) {
+                ProductionCount count = countFor(counts, row);
+                count.setReservedCount(row.getTotal().intValue());
+                count.setDeliveredCount(row.getDelivered().intValue());
+            }
+            for (ProductionCountRepository.SlotCount row : productionCountRepository.countGuests(date)) {
+                countFor(counts, row).setGuestCount(row.getTotal().intValue());
+            }
+
+            for (ProductionCount counter : locked) {
+                ProductionCount count = counts.remove(key(counter.getDailyMealId(), counter.getDishId()));
+                counter.setReservedCount(count != null ? count.getReservedCount() : 0);
+                counter.setDeliveredCount(count != null ? count.getDeliveredCount() : 0);
+                counter.setGuestCount(count != null ? count.getGuestCount() : 0);
+            }
+            // Portions of dishes that are no longer on the menu
+            for (ProductionCount count : counts.values()) {
+                productionCountRepository.upsertAbsoluteCounts(count.getMealDate(), count.getDailyMealId(),
+                        count.getDishId(), count.getReservedCount(), count.getDeliveredCount(), count.getGuestCount());
+            }
+            return locked.size() + counts.size();
+        });
+        log.debug("Production counts for {} rebuilt: {} dishes", date, dishes);
+        return dishes != null ? dishes : 0;
+    }
+
+    /**
+     * Writes the forecast of a day as a one-sheet workbook for the kitchen.
+     */
+    @Transactional(readOnly = true)
+    public byte[] generateProductionSheet(LocalDate date) {
+        List<ProductionForecastRowDto> rows = productionCountRepository.findForecast(date);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet("تولید");
+            sheet.setRightToLeft(true);
+            for (int i = 0; i < SHEET_HEADERS.length; i++) {
+                sheet.setColumnWidth(i, 20 * 256);
+            }
+
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            CellStyle headerStyle = workbook.createCellStyle();
+            headerStyle.setFont(bold);
+            headerStyle.setAlignment(HorizontalAlignment.CENTER);
+
+            Row title = sheet.createRow(0);
+            title.createCell(0).setCellValue("برنامه تولید %s".formatted(DailyMealService.convertGregorianToJalali(date)));
+            title.getCell(0).setCellStyle(headerStyle);
+
+            Row header = sheet.createRow(1);
+            for (int i = 0; i < SHEET_HEADERS.length; i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellValue(SHEET_HEADERS[i]);
+                cell.setCellStyle(headerStyle);
+            }
+
+            int rowIdx = 2;
+            int reserved = 0;
+            int guests = 0;
+            int delivered = 0;
+            for (ProductionForecastRowDto item : rows) {
+                Row row = sheet.createRow(rowIdx++);
+                row.createCell(0).setCellValue(item.getDailyMealId());
+                row.createCell(1).setCellValue(item.getDishName());
+                row.createCell(2).setCellValue(item.getReservedCount());
+                row.createCell(3).setCellValue(item.getGuestCount());
+                row.createCell(4).setCellValue(item.getTotal());
+                row.createCell(5).setCellValue(item.getDeliveredCount());
+                reserved += item.getReservedCount();
+                guests += item.getGuestCount();
+                delivered += item.getDeliveredCount();
+            }
+
+            Row total = sheet.createRow(rowIdx);
+            total.createCell(1).setCellValue("جمع کل");
+            total.createCell(2).setCellValue(reserved);
+            total.createCell(3).setCellValue(guests);
+            total.createCell(4).setCellValue(reserved + guests);
+            total.createCell(5).setCellValue(delivered);
+            for (int i = 1; i < SHEET_HEADERS.length; i++) {
+                total.getCell(i).setCellStyle(headerStyle);
+            }
+
+            workbook.write(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("خطا در نوشتن فایل برنامه تولید: %s".formatted(e.getMessage()), e);
+        }
+    }
+
+    private void add(ProductionSlot slot, int reserved, int delivered, int guests) {
+        if (slot == null || slot.getDailyMealId() == null || slot.getDishId() == null) {
+            return;
+        }
+        if (reserved >= 0 && delivered >= 0 && guests >= 0) {
+            productionCountRepository.upsertCounts(slot.getMealDate(), slot.getDailyMealId(), slot.getDishId(),
+                    reserved, delivered, guests);
+            return;
+        }
+        int updated = productionCountRepository.addCounts(slot.getDailyMealId(), slot.getDishId(),
+                reserved, delivered, guests);
+        if (updated == 0) {
+            // The counter predates this table; the next rebuild of the day fixes it
+            log.warn("No production count to decrement for daily meal {} dish {}", slot.getDailyMealId(), slot.getDishId());
+        }
+    }
+
+    private static ProductionCount countFor(Map<String, ProductionCount> counts, ProductionCountRepository.SlotCount row) {
+        return counts.computeIfAbsent(key(row.getDailyMealId(), row.getDishId()),
+                key -> new ProductionCount(row.getMealDate(), row.getDailyMealId(), row.getDishId(), 0, 0, 0));
+    }
+
+    private static String key(Long dailyMealId, Long dishId) {
+        return dailyMealId + ":" + dishId;
+    }
+}
@@ -0,0 +1,412 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.ReservationImportResultDto;
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.exceptions.ResourceNotFoundException;
+import com.mapnaom.foodapp.models.DailyMealDish;
+import com.mapnaom.foodapp.models.Reservation;
+import com.mapnaom.foodapp.repositories.DailyMealDishRepository;
+import com.mapnaom.foodapp.repositories.PersonnelRepository;
+import com.mapnaom.foodapp.repositories.ReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Imports reservations entered by administrators for personnel without access to the app.
+ * The first sheet holds a header row followed by {@code persCode, Jalali date, dishId} rows.
+ * <p>
+ * The workbook is read with the SAX event API and applied in chunks, each in its own
+ * transaction: the personnel codes and existing reservations of a chunk are resolved with one
+ * query each, and the menu of every month is loaded once per import. Rejected rows are
+ * streamed to an error report that can be downloaded with the returned import id.
+ * Administrators may book past the daily cutoff, so only delivered reservations, unknown
+ * personnel, dishes missing from the menu and full dishes are rejected.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ReservationImportService {
+
+    private static final Pattern JALALI_DATE = Pattern.compile("(\\d{4})[/-](\\d{1,2})[/-](\\d{1,2})");
+    private static final Pattern IMPORT_ID = Pattern.compile("[0-9a-f-]{36}");
+    private static final String[] REPORT_HEADERS = {"ردیف", "کد پرسنلی", "تاریخ", "شناسه غذا", "خطا"};
+
+    private final PersonnelRepository personnelRepository;
+    private final DailyMealDishRepository dailyMealDishRepository;
+    private final ReservationRepository reservationRepository;
+    private final ReservationService reservationService;
+    private final DailyMealDishService dailyMealDishService;
+    private final TransactionTemplate transactionTemplate;
+    private final Path reportDir;
+    private final int chunkSize;
+    private final Duration reportRetention;
+
+    public ReservationImportService(PersonnelRepository personnelRepository,
+                                    DailyMealDishRepository dailyMealDishRepository,
+                                    ReservationRepository reservationRepository,
+                                    ReservationService reservationService,
+                                    DailyMealDishService dailyMealDishService,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.reservations.import.report-dir:${java.io.tmpdir}/food-app-imports}") String reportDir,
+                                    @Value("${app.reservations.import.chunk-size:1000}") int chunkSize,
+                                    @Value("${app.reservations.import.report-retention-hours:24}") long reportRetentionHours) {
+        this.personnelRepository = personnelRepository;
+        this.dailyMealDishRepository = dailyMealDishRepository;
+        this.reservationRepository = reservationRepository;
+        this.reservationService = reservationService;
+        this.dailyMealDishService = dailyMealDishService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reportDir = Path.of(reportDir).toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+        this.reportRetention = Duration.ofHours(reportRetentionHours);
+    }
+
+    public ReservationImportResultDto importReservations(MultipartFile file) throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(reportDir);
+        Path upload = Files.createTempFile(reportDir, "upload-", ".xlsx");
+        SXSSFWorkbook report = new SXSSFWorkbook(100);
+        report.setCompressTempFiles(true);
+        try {
+            file.transferTo(upload);
+            ImportRun run = new ImportRun(report.createSheet("ردیف‌های رد شده"));
+            readFirstSheet(upload, run);
+            run.flush();
+
+            String importId = null;
+            if (run.rejected > 0) {
+                importId = UUID.randomUUID().toString();
+                writeReport(report, importId);
+            }
+            long duration = System.currentTimeMillis() - start;
+            log.info("Reservation import {}: {} rows, {} reserved, {} unchanged, {} rejected in {} ms",
+                    file.getOriginalFilename(), run.total, run.reserved, run.unchanged, run.rejected, duration);
+            return new ReservationImportResultDto(importId, run.total, run.reserved, run.unchanged, run.rejected, duration);
+        } finally {
+            report.dispose();
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    /**
+     * The error report of an earlier import.
+     */
+    public Path getReport(String importId) {
+        Path report = IMPORT_ID.matcher(importId).matches() ? reportPath(importId) : null;
+        if (report == null || !Files.isRegularFile(report)) {
+            throw new ResourceNotFoundException("گزارش خطای ورود رزرو %s یافت نشد".formatted(importId));
+        }
+        return report;
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservations.import.report-sweep-interval-ms:3600000}")
+    public void deleteExpiredReports() {
+        if (!Files.isDirectory(reportDir)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(reportRetention);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(reportDir)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean up reservation import reports in {}", reportDir, e);
+        }
+    }
+
+    private void readFirstSheet(Path upload, ImportRun run) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(upload.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IllegalArgumentException("فایل اکسل هیچ برگه‌ای ندارد");
+            }
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(),
+                    new ReadOnlySharedStringsTable(pkg), run, new DataFormatter(), false));
+            try (InputStream sheet = sheets.next()) {
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IllegalArgumentException("فایل اکسل قابل خواندن نیست: %s".formatted(e.getMessage()), e);
+        }
+    }
+
+    private void writeReport(SXSSFWorkbook report, String importId) throws IOException {
+        Path tempFile = Files.createTempFile(reportDir, "report-", ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempFile)) {
+            report.write(out);
+        }
+        Files.move(tempFile, reportPath(importId), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path reportPath(String importId) {
+        return reportDir.resolve("reservation-import-%s.xlsx".formatted(importId));
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private record ImportRow(int rowNumber, String persCode, String date, String dishId) {
+    }
+
+    /**
+     * Collects rows from the SAX parser into chunks and applies them. Personnel ids and month
+     * menus are kept for the whole import; both are bounded by the size of the organization,
+     * not by the number of rows. Only the first row for a person and day is applied.
+     */
+    private final class ImportRun implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final Sheet reportSheet;
+        private final List<ImportRow> chunk = new ArrayList<>();
+        private final Map<String, Long> personnelIds = new HashMap<>();
+        private final Set<Integer> loadedMonths = new HashSet<>();
+        private final Map<String, Map<Long, DailyMealDish>> menuByDate = new HashMap<>();
+        private final Map<String, Integer> firstRowOfBooking = new HashMap<>();
+        private final String[] cells = new String[3];
+        private int column;
+        private long total;
+        private long reserved;
+        private long unchanged;
+        private long rejected;
+
+        private ImportRun(Sheet reportSheet) {
+            this.reportSheet = reportSheet;
+            reportSheet.setRightToLeft(true);
+            Row header = reportSheet.createRow(0);
+            for (int i = 0; i < REPORT_HEADERS.length; i++) {
+                header.createCell(i).setCellValue(REPORT_HEADERS[i]);
+            }
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells[0] = cells[1] = cells[2] = null;
+            column = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference != null ? new CellReference(cellReference).getCol() : column;
+            column = col + 1;
+            if (col < cells.length) {
+                cells[col] = trimToNull(formattedValue);
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0 || (cells[0] == null && cells[1] == null && cells[2] == null)) {
+                return;
+            }
+            total++;
+            chunk.add(new ImportRow(rowNum + 1, cells[0], cells[1], cells[2]));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(tx -> applyChunk());
+            chunk.clear();
+        }
+
+        private void applyChunk() {
+            resolvePersonnel();
+
+            List<ImportRow> rows = new ArrayList<>();
+            List<Long> rowPersonnel = new ArrayList<>();
+            List<DailyMealDish> rowDishes = new ArrayList<>();
+            for (ImportRow row : chunk) {
+                Long personnelId = row.persCode() != null ? personnelIds.get(row.persCode()) : null;
+                if (personnelId == null) {
+                    reject(row, "کد پرسنلی %s یافت نشد".formatted(row.persCode()));
+                    continue;
+                }
+                String date = normalizeDate(row.date());
+                if (date == null) {
+                    reject(row, "تاریخ %s معتبر نیست؛ قالب صحیح yyyy/mm/dd است".formatted(row.date()));
+                    continue;
+                }
+                Long dishId = parseDishId(row.dishId());
+                DailyMealDish dailyMealDish = dishId != null
+                        ? menuByDate.getOrDefault(date, Map.of()).get(dishId) : null;
+                if (dailyMealDish == null) {
+                    reject(row, "غذای %s در منوی تاریخ %s نیست".formatted(row.dishId(), date));
+                    continue;
+                }
+                String bookingKey = personnelId + ":" + dailyMealDish.getDailyMeal().getId();
+                Integer firstRow = firstRowOfBooking.putIfAbsent(bookingKey, row.rowNumber());
+                if (firstRow != null) {
+                    reject(row, "تکرار رزرو ردیف %d".formatted(firstRow));
+                    continue;
+                }
+                rows.add(row);
+                rowPersonnel.add(personnelId);
+                rowDishes.add(dailyMealDish);
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            Set<Long> dailyMealIds = new HashSet<>();
+            rowDishes.forEach(dailyMealDish -> dailyMealIds.add(dailyMealDish.getDailyMeal().getId()));
+            Map<String, Reservation> existing = new HashMap<>();
+            for (Reservation reservation : reservationRepository.findByPersonnelAndMeals(
+                    new HashSet<>(rowPersonnel), dailyMealIds)) {
+                existing.putIfAbsent(reservation.getPersonnel().getId() + ":" + reservation.getDailyMeal().getId(),
+                        reservation);
+            }
+
+            Map<Long, Long> freePortions = new HashMap<>();
+            List<ReservationService.PendingChange> changes = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                ImportRow row = rows.get(i);
+                DailyMealDish dailyMealDish = rowDishes.get(i);
+                Reservation reservation = existing.get(rowPersonnel.get(i) + ":" + dailyMealDish.getDailyMeal().getId());
+
+                if (reservation != null && reservation.getReservationStatus() == ReservationStatus.DELIVERED) {
+                    reject(row, "غذای این روز تحویل داده شده است");
+                    continue;
+                }
+                if (ReservationService.isBookedOn(reservation, dailyMealDish)) {
+                    unchanged++;
+                    continue;
+                }
+                long free = freePortions.computeIfAbsent(dailyMealDish.getId(),
+                        id -> dailyMealDishService.lockFreePortions(dailyMealDish));
+                if (free < 1) {
+                    reject(row, "ظرفیت غذای %s تکمیل است".formatted(dailyMealDish.getDish().getName()));
+                    continue;
+                }
+                freePortions.put(dailyMealDish.getId(), free - 1);
+                changes.add(reservationService.prepareBooking(
+                        personnelRepository.getReferenceById(rowPersonnel.get(i)), reservation, dailyMealDish));
+                reserved++;
+            }
+            reservationService.saveBatch(changes);
+        }
+
+        /**
+         * Looks up the personnel codes of the chunk that were not seen before, in one query.
+         */
+        private void resolvePersonnel() {
+            Set<String> unknown = new HashSet<>();
+            for (ImportRow row : chunk) {
+                if (row.persCode() != null && !personnelIds.containsKey(row.persCode())) {
+                    unknown.add(row.persCode());
+                }
+            }
+            if (unknown.isEmpty()) {
+                return;
+            }
+            for (PersonnelRepository.PersCodeId personnel : personnelRepository.findIdsByPersCodeIn(unknown)) {
+                personnelIds.put(personnel.getPersCode(), personnel.getId());
+            }
+            unknown.forEach(persCode -> personnelIds.putIfAbsent(persCode, null));
+        }
+
+        /**
+         * Returns the date as {@code yyyy/m/d}, loading the menu of its month on first use, or
+         * {@code null} if it cannot be parsed.
+         */
+        private String normalizeDate(String value) {
+            Matcher matcher = value != null ? JALALI_DATE.matcher(value) : null;
+            if (matcher == null || !matcher.matches()) {
+                return null;
+            }
+            int year = Integer.parseInt(matcher.group(1));
+            int month = Integer.parseInt(matcher.group(2));
+            int day = Integer.parseInt(matcher.group(3));
+            if (month < 1 || month > 12 || day < 1 || day > 31) {
+                return null;
+            }
+            if (loadedMonths.add(year * 100 + month)) {
+                for (DailyMealDish dailyMealDish : dailyMealDishRepository.findMonthMenu(year, month)) {
+                    menuByDate.computeIfAbsent(dateKey(year, month, dailyMealDish.getDailyMeal().getJalaliDay()),
+                                    key -> new HashMap<>())
+                            .put(dailyMealDish.getDish().getId(), dailyMealDish);
+                }
+            }
+            return dateKey(year, month, day);
+        }
+
+        private String dateKey(int year, int month, int day) {
+            return "%d/%d/%d".formatted(year, month, day);
+        }
+
+        private Long parseDishId(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                // Numeric cells may be formatted with a decimal part
+                return (long) Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private void reject(ImportRow row, String message) {
+            rejected++;
+            Row reportRow = reportSheet.createRow(reportSheet.getLastRowNum() + 1);
+            reportRow.createCell(0).setCellValue(row.rowNumber());
+            reportRow.createCell(1).setCellValue(row.persCode() != null ? row.persCode() : "");
+            reportRow.createCell(2).setCellValue(row.date() != null ? row.date() : "");
+            reportRow.createCell(3).setCellValue(row.dishId() != null ? row.dishId() : "");
+            reportRow.createCell(4).setCellValue(message);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.ReservationLifecycleRunDto;
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.events.ReservationStatusesSweptEvent;
+import com.mapnaom.foodapp.events.ReservationStatusesTransitionedEvent;
+import com.mapnaom.foodapp.repositories.CostShareRepository;
+import com.mapnaom.foodapp.repositories.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Moves reservations through their lifecycle so reports can trust the stored status:
+ * pending reservations become active on their meal day, and active reservations that were
+ * not delivered expire once the service is over.
+ * <p>
+ * A sweep runs after the booking cutoff of each day and again at the end of the day. The
+ * cutoff sweep activates today's reservations and expires those of earlier days, catching up
+ * on missed runs; the end of day sweep also expires today's. Statuses are changed with
+ * set-based UPDATE statements over consecutive reservation id ranges, each in its own
+ * transaction, so no entity is loaded; each chunk records its id range in the outbox in the same
+ * transaction. A PostgreSQL advisory lock keeps the sweep to one
+ * instance at a time.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ReservationLifecycleService {
+
+    /**
+     * Key of the session-level advisory lock held while a sweep runs.
+     */
+    private static final long LOCK_KEY = "food-app:reservation-lifecycle".hashCode();
+
+    public enum Phase {
+        /** After the booking cutoff: today's bookings are final but not yet served. */
+        CUTOFF,
+        /** After service: today's undelivered reservations expire too. */
+        END_OF_DAY
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final AppSettingService appSettingService;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter activatedCounter;
+    private final Counter expiredCounter;
+    private final AtomicReference<LocalDate> lastCutoffSweep = new AtomicReference<>();
+    private final AtomicReference<ReservationLifecycleRunDto> lastRun =
+            new AtomicReference<>(new ReservationLifecycleRunDto("IDLE", null, null, 0, 0, null, null, null));
+
+    public ReservationLifecycleService(ReservationRepository reservationRepository,
+                                       AppSettingService appSettingService,
+                                       DataSource dataSource,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       ApplicationEventPublisher eventPublisher,
+                                       @Value("${app.reservations.lifecycle.chunk-size:5000}") int chunkSize) {
+        this.reservationRepository = reservationRepository;
+        this.appSettingService = appSettingService;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        this.activatedCounter = Counter.builder("reservations.lifecycle.transitions")
+                .tag("transition", "activated").register(meterRegistry);
+        this.expiredCounter = Counter.builder("reservations.lifecycle.transitions")
+                .tag("transition", "expired").register(meterRegistry);
+    }
+
+    /**
+     * Runs the cutoff sweep once a day, on the first check after today's booking cutoff.
+     */
+    @Scheduled(fixedDelayString = "${app.reservations.lifecycle.check-interval-ms:60000}",
+            initialDelayString = "${app.reservations.lifecycle.check-interval-ms:60000}")
+    public void sweepAfterCutoff() {
+        AppSettingSnapshot settings = appSettingService.getSnapshot();
+        LocalDate today = settings.getToday();
+        if (today.equals(lastCutoffSweep.get()) || settings.isBookingOpen(today, System.currentTimeMillis())) {
+            return;
+        }
+        if (!"FAILED".equals(sweep(Phase.CUTOFF).getState())) {
+            lastCutoffSweep.set(today);
+        }
+    }
+
+    @Scheduled(cron = "${app.reservations.lifecycle.end-of-day-cron:0 30 23 * * *}", zone = "${app.time-zone:Asia/Tehran}")
+    public void sweepEndOfDay() {
+        sweep(Phase.END_OF_DAY);
+    }
+
+    public ReservationLifecycleRunDto getLastRun() {
+        return lastRun.get();
+    }
+
+    /**
+     * Runs a sweep now, unless another instance is already running one.
+     */
+    public ReservationLifecycleRunDto sweep(Phase phase) {
+        LocalDate today = appSettingService.getSnapshot().getToday();
+        Instant startedAt = Instant.now();
+        ReservationLifecycleRunDto run;
+
+        try (Connection lockConnection = dataSource.getConnection()) {
+            if (!advisoryLock(lockConnection, "pg_try_advisory_lock")) {
+                log.debug("Reservation lifecycle sweep ({}) is running on another instance", phase);
+                return record(phase, new ReservationLifecycleRunDto("SKIPPED", phase.name(), today, 0, 0,
+                        startedAt, Instant.now(), null));
+            }
+            try {
+                long activated = transition(ReservationStatus.PENDING, ReservationStatus.ACTIVE, today);
+                long expired = transition(ReservationStatus.ACTIVE, ReservationStatus.EXPIRED,
+                        phase == Phase.END_OF_DAY ? today : today.minusDays(1));
+                activatedCounter.increment(activated);
+                expiredCounter.increment(expired);
+                if (activated + expired > 0) {
+                    eventPublisher.publishEvent(new ReservationStatusesSweptEvent(activated, expired));
+                }
+                run = new ReservationLifecycleRunDto("DONE", phase.name(), today, activated, expired,
+                        startedAt, Instant.now(), null);
+                log.info("Reservation lifecycle sweep ({}) for {}: {} activated, {} expired in {} ms",
+                        phase, today, activated, expired,
+                        run.getFinishedAt().toEpochMilli() - startedAt.toEpochMilli());
+            } finally {
+                advisoryLock(lockConnection, "pg_advisory_unlock");
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.error("Reservation lifecycle sweep ({}) for {} failed", phase, today, e);
+            run = new ReservationLifecycleRunDto("FAILED", phase.name(), today, 0, 0,
+                    startedAt, Instant.now(), e.getMessage());
+        }
+        return record(phase, run);
+    }
+
+    /**
+     * Moves every reservation in {@code from} with a meal up to {@code lastDate} to {@code to},
+     * one id window per transaction.
+     */
+    private long transition(ReservationStatus from, ReservationStatus to, LocalDate lastDate) {
+        CostShareRepository.IdRange range = transactionTemplate.execute(tx ->
+                reservationRepository.findStatusRange(from, lastDate));
+        if (range == null || range.getMinId() == null) {
+            return 0;
+        }
+
+        long updated = 0;
+        for (long fromId = range.getMinId(); fromId <= range.getMaxId(); fromId += chunkSize) {
+            long chunkStart = fromId;
+            long chunkEnd = fromId + chunkSize;
+            Integer count = transactionTemplate.execute(tx -> {
+                int transitioned = reservationRepository.transitionStatus(chunkStart, chunkEnd, from, to, lastDate);
+                if (transitioned > 0) {
+                    eventPublisher.publishEvent(new ReservationStatusesTransitionedEvent(chunkStart, chunkEnd,
+                            from, to, lastDate, transitioned));
+                }
+                return transitioned;
+            });
+            updated += count != null ? count : 0;
+        }
+        return updated;
+    }
+
+    private boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select %s(?)".formatted(function))) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private ReservationLifecycleRunDto record(Phase phase, ReservationLifecycleRunDto run) {
+        meterRegistry.counter("reservations.lifecycle.runs", "phase", phase.name(), "result", run.getState())
+                .increment();
+        lastRun.set(run);
+        return run;
+    }
+}
@@ -2,24 +2,42 @@ package com.mapnaom.foodapp.services;
 
 import com.mapnaom.foodapp.dtos.*;
 import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.events.ProductionSlot;
+import com.mapnaom.foodapp.events.ReservationChangedEvent;
+import com.mapnaom.foodapp.events.ReservationChangedEvent.Change;
+import com.mapnaom.foodapp.exceptions.BusinessException;
+import com.mapnaom.foodapp.exceptions.ReservationClosedException;
 import com.mapnaom.foodapp.exceptions.ResourceNotFoundException;
+import com.mapnaom.foodapp.exceptions.StaleVersionException;
 import com.mapnaom.foodapp.mappers.*;
 import com.mapnaom.foodapp.models.*;
 import com.mapnaom.foodapp.repositories.*;
+import com.mapnaom.foodapp.retry.RetryOnConflict;
 import com.mapnaom.foodapp.searchForms.ReservationSearchForm;
+import com.mapnaom.foodapp.security.jwt.WebSecurityConfig;
 import com.mapnaom.foodapp.specifications.ReservationSpecification;
+import com.mapnaom.foodapp.utils.JalaliUtils;
+import com.mapnaom.foodapp.utils.PrivilegeChecker;
+import com.mapnaom.foodapp.utils.SecurityUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -36,8 +54,13 @@ public class ReservationService {
     private final DailyPersonnelReservationListMapper dailyPersonnelReservationListMapper;
     private final DailyMealRepository dailyMealRepository;
     private final ReservationMapper reservationMapper;
-    private final AppSettingRepository appSettingRepository;
+    private final AppSettingService appSettingService;
+    private final PricingEngine pricingEngine;
+    private final PrivilegeChecker privilegeChecker;
+    private final DailyMealDishService dailyMealDishService;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional(readOnly = true)
     public Page<ReservationDto> searchReservations(ReservationSearchForm form, int page, int size, String sortBy, String order) {
         Sort sort = order.equalsIgnoreCase("DESC")
                 ? Sort.by(sortBy).descending()
@@ -52,15 +75,18 @@ public class ReservationService {
         return reservationPage.map(reservationMapper::toDto);
     }
 
+    @Transactional(readOnly = true)
     public List<ReservationListDto> reservationList() {
         List<Reservation> reservationList = reservationRepository.findAll();
         return reservationList.stream().map(reservationListMapper::toDto).toList();
     }
+    @RetryOnConflict
     public ReservationDto upsertReservation(ReservationDto reservationDto) {
         log.info("Upserting reservation: {}", reservationDto);
 
         try {
             Reservation reservation;
+            ProductionSlot before = null;
 
             // Check if this is an update (id exists) or create operation
             if (reservationDto.getId() != null && reservationDto.getId() != 0) {
@@ -69,6 +95,9 @@ public class ReservationService {
                         .orElseThrow(() -> new ResourceNotFoundException(
                                 "Reservation not found with id: %d".formatted(reservationDto.getId())));
 
+                before = productionSlot(reservation);
+                ensureCurrentVersion(reservation, reservationDto.getVersion());
+
                 // Update only the fields that should be modifiable
                 updateReservationFields(reservation, reservationDto);
 
@@ -80,9 +109,13 @@ public class ReservationService {
             // Save and return the updated/created reservation
             Reservation savedReservation = reservationRepository.save(reservation);
             log.info("Successfully upserted reservation with id: {}", savedReservation.getId());
+            publishChange(savedReservation.getId(), reservationDto.getId() != null && reservationDto.getId() != 0
+                    ? Change.UPDATED : Change.CREATED, before, productionSlot(savedReservation));
 
             return reservationMapper.toDto(savedReservation);
 
+        } catch (BusinessException | OptimisticLockingFailureException | PessimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error upserting reservation: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to upsert reservation: %s".formatted(e.getMessage()), e);
@@ -99,9 +132,7 @@ public class ReservationService {
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "DailyMeal not found with id: %d".formatted(reservationDto.getDailyMealId())));
 
-        DailyMealDish dailyMealDish = dailyMealDishRepository.findById(reservationDto.getDailyMealDishId())
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "DailyMealDish not found with id: %d".formatted(reservationDto.getDailyMealDishId())));
+        DailyMealDish dailyMealDish = dailyMealDishService.reservePortions(reservationDto.getDailyMealDishId(), 1);
 
         // Validate that the dish belongs to the meal
         if (!dailyMealDish.getDailyMeal().getId().equals(dailyMeal.getId())) {
@@ -109,6 +140,8 @@ public class ReservationService {
                     "DailyMealDish does not belong to the specified DailyMeal");
         }
 
+        ensureBookingOpen(dailyMeal.getDate());
+
         // Create the reservation first
         Reservation reservation = Reservation.builder()
                 .personnel(personnel)
@@ -119,15 +152,16 @@ public class ReservationService {
                         : ReservationStatus.ACTIVE)
                 .build();
 
-        // Create and associate the CostShare
-        CostShare costShare = createCostShareForReservation(reservation, reservationDto.getCostShares());
-        reservation.setCostShare(costShare);
+        // Price the reservation from the dish and the configured shares
+        reservation.setCostShare(pricingEngine.price(dailyMealDish.getDish(), 1));
 
         // Build new reservation
         return reservation;
     }
 
     private void updateReservationFields(Reservation reservation, ReservationDto reservationDto) {
+        ensureBookingOpen(reservation.getDailyMeal().getDate());
+
         // Update personnel if username changed
         if (reservationDto.getUsername() != null &&
                 !reservation.getPersonnel().getUsername().equals(reservationDto.getUsername())) {
@@ -143,15 +177,14 @@ public class ReservationService {
             DailyMeal newDailyMeal = dailyMealRepository.findById(reservationDto.getDailyMealId())
                     .orElseThrow(() -> new ResourceNotFoundException(
                             "DailyMeal not found with id: %d".formatted(reservationDto.getDailyMealId())));
+            ensureBookingOpen(newDailyMeal.getDate());
             reservation.setDailyMeal(newDailyMeal);
         }
 
         // Update daily meal dish if changed
         if (reservationDto.getDailyMealDishId() != null &&
                 !reservation.getDailyMealDish().getId().equals(reservationDto.getDailyMealDishId())) {
-            DailyMealDish newDailyMealDish = dailyMealDishRepository.findById(reservationDto.getDailyMealDishId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "DailyMealDish not found with id: %d".formatted(reservationDto.getDailyMealDishId())));
+            DailyMealDish newDailyMealDish = dailyMealDishService.reservePortions(reservationDto.getDailyMealDishId(), 1);
 
             // Validate that the dish belongs to the meal
             if (!newDailyMealDish.getDailyMeal().getId().equals(reservation.getDailyMeal().getId())) {
@@ -162,14 +195,14 @@ public class ReservationService {
             reservation.setDailyMealDish(newDailyMealDish);
         }
 
-        // Update cost shares if provided
-        if (reservationDto.getCostShares() != null) {
+        // Re-price against the current dish unless already served; portions are never taken from the request
+        if (reservation.getReservationStatus() != ReservationStatus.DELIVERED) {
             CostShare costShare = reservation.getCostShare();
             if (costShare == null) {
-                costShare = createCostShareForReservation(reservation, reservationDto.getCostShares());
-                reservation.setCostShare(costShare);
+                reservation.setCostShare(pricingEngine.price(reservation.getDailyMealDish().getDish(), 1));
             } else {
-                // You can add logic here to update portions if needed
+                pricingEngine.apply(costShare, reservation.getDailyMealDish().getDish(),
+                        costShare.getQuantity() != null ? costShare.getQuantity() : 1);
             }
         }
 
@@ -178,29 +211,54 @@ public class ReservationService {
             reservation.setReservationStatus(reservationDto.getReservationStatus());
         }
     }
-    private CostShare createCostShareForReservation(Reservation reservation, BigDecimal employeePortion) {
-        // You can implement more detailed logic here based on AppSetting if needed
-        // For now, we'll use the provided DTO value.
-
-        BigDecimal dishPrice = BigDecimal.valueOf(reservation.getDailyMealDish().getDish().getPrice());
-
-        BigDecimal employeeShare = employeePortion != null ? employeePortion : BigDecimal.ZERO;
-        BigDecimal employerShare = dishPrice.subtract(employeeShare);
-
-        return CostShare.builder()
-                .reservation(reservation)
-                .quantity(1)
-                .totalCost(dishPrice)
-                .employeePortion(employeeShare)
-                .employerPortion(employerShare)
-                // You can calculate this percentage if you have the rules
-                // .employeeSharePercentage(...)
-                .build();
+    /**
+     * Rejects an update made from an older copy of the reservation. Requests without a version
+     * keep the last-writer-wins behaviour of older clients.
+     */
+    private static void ensureCurrentVersion(Reservation reservation, Long version) {
+        if (version != null && version != reservation.getVersion()) {
+            throw new StaleVersionException(
+                    "رزرو %d توسط کاربر دیگری تغییر کرده است؛ لطفا اطلاعات را دوباره بارگذاری کنید".formatted(reservation.getId()));
+        }
+    }
+
+    /**
+     * Rejects changes to reservations of a day whose booking cutoff has passed, unless the
+     * current user is an administrator. Uses the settings snapshot, so no query is made.
+     */
+    private void ensureBookingOpen(LocalDate mealDate) {
+        if (mealDate == null || appSettingService.getSnapshot().isBookingOpen(mealDate, System.currentTimeMillis())) {
+            return;
+        }
+        if (privilegeChecker.hasPrivilege(WebSecurityConfig.ADMIN)) {
+            log.info("Booking for {} is closed, allowed for administrator", mealDate);
+            return;
+        }
+        throw new ReservationClosedException("مهلت رزرو غذای تاریخ %s به پایان رسیده است".formatted(mealDate));
+    }
+
+    /**
+     * The dish a reservation takes a portion from, or {@code null} when it does not count
+     * towards production.
+     */
+    private static ProductionSlot productionSlot(Reservation reservation) {
+        DailyMealDish dailyMealDish = reservation.getDailyMealDish();
+        if (reservation.getReservationStatus() == ReservationStatus.CANCELLED
+                || dailyMealDish == null || dailyMealDish.getDish() == null) {
+            return null;
+        }
+        DailyMeal dailyMeal = reservation.getDailyMeal();
+        return new ProductionSlot(dailyMeal.getDate(), dailyMeal.getId(), dailyMealDish.getDish().getId(),
+                reservation.getReservationStatus() == ReservationStatus.DELIVERED);
     }
 
+    private void publishChange(Long reservationId, Change change, ProductionSlot before, ProductionSlot after) {
+        eventPublisher.publishEvent(new ReservationChangedEvent(reservationId, change, before, after));
+    }
 
     // Alternative batch upsert method for multiple reservations
     @Transactional
+    @RetryOnConflict
     public List<ReservationDto> upsertReservations(List<ReservationDto> reservationDtos) {
         log.info("Batch upserting {} reservations", reservationDtos.size());
 
@@ -209,13 +267,192 @@ public class ReservationService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Applies the current employee's choices for a whole Jalali month in one transaction. The
+     * month menu and the employee's reservations of the month are each read with one query,
+     * and a day that cannot be booked (closed, delivered, not on the menu or full) is reported
+     * as rejected while the other days are still saved.
+     */
+    @RetryOnConflict
+    public MonthPlanResultDto planMonth(MonthPlanRequestDto request) {
+        int jYear = request.getJYear();
+        int jMonth = request.getJMonth();
+        ensureDaysOfMonth(request.getDays().keySet(), jYear, jMonth);
+
+        String username = SecurityUtil.getCurrentUsername()
+                .orElseThrow(() -> new UsernameNotFoundException("کاربر وارد سیستم نشده است"));
+        Personnel personnel = personnelRepository.findPersonnelByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Personnel not found with username: %s".formatted(username)));
+
+        Map<Integer, Map<Long, DailyMealDish>> menu = new HashMap<>();
+        for (DailyMealDish dailyMealDish : dailyMealDishRepository.findMonthMenu(jYear, jMonth)) {
+            menu.computeIfAbsent(dailyMealDish.getDailyMeal().getJalaliDay(), day -> new HashMap<>())
+                    .put(dailyMealDish.getDish().getId(), dailyMealDish);
+        }
+        Map<Integer, Reservation> existing = new HashMap<>();
+        for (Reservation reservation : reservationRepository.findMonthOfPersonnel(personnel.getId(), jYear, jMonth)) {
+            existing.putIfAbsent(reservation.getDailyMeal().getJalaliDay(), reservation);
+        }
+
+        List<MonthPlanDayResultDto> results = new ArrayList<>();
+        List<MonthPlanDayResultDto> changedDays = new ArrayList<>();
+        List<PendingChange> changes = new ArrayList<>();
+        for (Map.Entry<Integer, Long> entry : new TreeMap<>(request.getDays()).entrySet()) {
+            int day = entry.getKey();
+            Long dishId = entry.getValue();
+            Reservation reservation = existing.get(day);
+            MonthPlanDayResultDto result = new MonthPlanDayResultDto(day, dishId,
+                    reservation != null ? reservation.getId() : null, null, null);
+            results.add(result);
+
+            if (dishId == null) {
+                if (reservation == null || reservation.getReservationStatus() == ReservationStatus.CANCELLED) {
+                    result.setStatus(MonthPlanDayResultDto.Status.UNCHANGED);
+                } else if (canChangeDay(result, reservation, reservation.getDailyMeal())) {
+                    changes.add(prepareCancel(reservation));
+                    changedDays.add(result);
+                    result.setStatus(MonthPlanDayResultDto.Status.CANCELLED);
+                }
+                continue;
+            }
+
+            DailyMealDish dailyMealDish = menu.getOrDefault(day, Map.of()).get(dishId);
+            if (dailyMealDish == null) {
+                reject(result, "غذای %d در منوی روز %d/%d/%d نیست".formatted(dishId, jYear, jMonth, day));
+                continue;
+            }
+            if (isBookedOn(reservation, dailyMealDish)) {
+                result.setStatus(MonthPlanDayResultDto.Status.UNCHANGED);
+                continue;
+            }
+            if (!canChangeDay(result, reservation, dailyMealDish.getDailyMeal())) {
+                continue;
+            }
+            if (!dailyMealDishService.tryReservePortions(dailyMealDish, 1)) {
+                reject(result, "ظرفیت غذای %s تکمیل است".formatted(dailyMealDish.getDish().getName()));
+                continue;
+            }
+            changes.add(prepareBooking(personnel, reservation, dailyMealDish));
+            changedDays.add(result);
+            result.setStatus(MonthPlanDayResultDto.Status.RESERVED);
+        }
+
+        saveBatch(changes);
+        for (int i = 0; i < changes.size(); i++) {
+            changedDays.get(i).setReservationId(changes.get(i).reservation().getId());
+        }
+        log.info("Month plan {}/{} for {}: {} days, {} changed", jYear, jMonth, username,
+                results.size(), changes.size());
+        return new MonthPlanResultDto(jYear, jMonth, results);
+    }
+
+    /**
+     * Rejects the whole plan when a day key is not a day of the month, before anything is read.
+     */
+    private static void ensureDaysOfMonth(Collection<Integer> days, int jYear, int jMonth) {
+        int length = JalaliUtils.lengthOfMonth(jYear, jMonth);
+        List<Integer> invalid = days.stream()
+                .filter(day -> day == null || day < 1 || day > length)
+                .toList();
+        if (!invalid.isEmpty()) {
+            throw new IllegalArgumentException("روزهای %s در ماه %d/%d وجود ندارند (1 تا %d)"
+                    .formatted(invalid, jYear, jMonth, length));
+        }
+    }
+
+    /**
+     * Marks the day rejected when its booking is closed or its reservation was already served.
+     *
+     * @return {@code true} if the day may be changed
+     */
+    private boolean canChangeDay(MonthPlanDayResultDto result, Reservation reservation, DailyMeal dailyMeal) {
+        if (reservation != null && reservation.getReservationStatus() == ReservationStatus.DELIVERED) {
+            reject(result, "غذای این روز تحویل داده شده است");
+            return false;
+        }
+        try {
+            ensureBookingOpen(dailyMeal.getDate());
+            return true;
+        } catch (ReservationClosedException e) {
+            reject(result, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void reject(MonthPlanDayResultDto result, String message) {
+        result.setStatus(MonthPlanDayResultDto.Status.REJECTED);
+        result.setMessage(message);
+    }
+
+    /**
+     * Whether the reservation is active on exactly this dish of the day.
+     */
+    static boolean isBookedOn(Reservation reservation, DailyMealDish dailyMealDish) {
+        return reservation != null && reservation.getReservationStatus() != ReservationStatus.CANCELLED
+                && reservation.getDailyMealDish().getId().equals(dailyMealDish.getId());
+    }
+
+    /**
+     * Points the personnel's reservation of the day at {@code dailyMealDish}, creating it when
+     * {@code reservation} is null, and prices it. Capacity and the booking cutoff are the
+     * caller's to check. Nothing is saved until the change is passed to {@link #saveBatch}.
+     */
+    public PendingChange prepareBooking(Personnel personnel, Reservation reservation, DailyMealDish dailyMealDish) {
+        if (reservation == null) {
+            reservation = Reservation.builder()
+                    .personnel(personnel)
+                    .dailyMeal(dailyMealDish.getDailyMeal())
+                    .dailyMealDish(dailyMealDish)
+                    .reservationStatus(ReservationStatus.ACTIVE)
+                    .build();
+            reservation.setCostShare(pricingEngine.price(dailyMealDish.getDish(), 1));
+            return new PendingChange(reservation, Change.CREATED, null);
+        }
+
+        PendingChange change = new PendingChange(reservation, Change.UPDATED, productionSlot(reservation));
+        reservation.setDailyMealDish(dailyMealDish);
+        reservation.active();
+        if (reservation.getCostShare() == null) {
+            reservation.setCostShare(pricingEngine.price(dailyMealDish.getDish(), 1));
+        } else {
+            pricingEngine.apply(reservation.getCostShare(), dailyMealDish.getDish(), 1);
+        }
+        return change;
+    }
+
+    public PendingChange prepareCancel(Reservation reservation) {
+        PendingChange change = new PendingChange(reservation, Change.UPDATED, productionSlot(reservation));
+        reservation.cancel();
+        return change;
+    }
+
+    /**
+     * Saves the prepared reservations with one saveAll and publishes their changes.
+     */
+    public void saveBatch(List<PendingChange> changes) {
+        reservationRepository.saveAll(changes.stream().map(PendingChange::reservation).toList());
+        for (PendingChange change : changes) {
+            Reservation reservation = change.reservation();
+            publishChange(reservation.getId(), change.change(), change.before(), productionSlot(reservation));
+        }
+    }
+
+    /**
+     * A reservation changed in memory, with its production slot before the change.
+     */
+    public record PendingChange(Reservation reservation, Change change, ProductionSlot before) {
+    }
+
     // Additional helper method to check if a reservation already exists
+    @Transactional(readOnly = true)
     public boolean reservationExists(String username, Long dailyMealId, Long dailyMealDishId) {
         return reservationRepository.existsByPersonnelUsernameAndDailyMealIdAndDailyMealDishId(
                 username, dailyMealId, dailyMealDishId);
     }
 
     // Method to prevent duplicate reservations for the same meal
+    @RetryOnConflict
     public ReservationDto upsertReservationWithDuplicateCheck(ReservationDto reservationDto) {
         log.info("Upserting reservation with duplicate check: {}", reservationDto);
 
@@ -234,6 +471,7 @@ public class ReservationService {
 
         return upsertReservation(reservationDto);
     }
+    @Transactional(readOnly = true)
     public List<DailyPersonnelReservationListDto> reservationsByJYearJMonthAndUsername(
             Integer jYear,
             Integer jMonth,
@@ -259,17 +497,26 @@ public class ReservationService {
     }
 
 
+    @Transactional(readOnly = true)
     public ReservationDto getReservationById(Long id) {
         return reservationRepository.findById(id).map(reservationMapper::toDto).orElseThrow(() -> new ResourceNotFoundException("Reservation not found"));
     }
 
+    @RetryOnConflict
     public ReservationDto clearDish(Long personnelId, Long dailyMealId) {
         Reservation reservation = reservationRepository.findByPersonnelIdAndDailyMeal_Id(personnelId, dailyMealId)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found"));
-        reservation.setDailyMealDish(null);
-        return reservationMapper.toDto(reservationRepository.save(reservation));
+        ProductionSlot before = productionSlot(reservation);
+        // The dish column is required, so clearing cancels the reservation and keeps the dish for history.
+        // Nothing is served or billed any more; orphan removal deletes the cost share row
+        reservation.cancel();
+        reservation.setCostShare(null);
+        Reservation saved = reservationRepository.save(reservation);
+        publishChange(saved.getId(), Change.CLEARED, before, productionSlot(saved));
+        return reservationMapper.toDto(saved);
     }
 
+    @Transactional(readOnly = true)
     public List<DailyPersonnelReservationListDto> getReservationsByDate(LocalDate date) {
         return reservationRepository.findByDailyMeal_Date(date)
                 .stream()
@@ -277,32 +524,43 @@ public class ReservationService {
                 .toList();
     }
 
+    @RetryOnConflict
     public ResponseEntity<Void> delete(Long id) {
         Reservation reservation = reservationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with id: " + id));
+        ProductionSlot before = productionSlot(reservation);
         reservationRepository.delete(reservation);
+        publishChange(id, Change.DELETED, before, null);
         return ResponseEntity.noContent().build();
 
     }
 
     @Transactional
+    @RetryOnConflict
     public ReservationDto deliverReservation(Long id) {
         Reservation reservation = reservationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with id: %d".formatted(id)));
 
+        ProductionSlot before = productionSlot(reservation);
         // Use the deliver() method from the entity
         reservation.deliver();
 
-        return reservationMapper.toDto(reservationRepository.save(reservation));
+        Reservation saved = reservationRepository.save(reservation);
+        publishChange(saved.getId(), Change.DELIVERED, before, productionSlot(saved));
+        return reservationMapper.toDto(saved);
     }
     @Transactional
+    @RetryOnConflict
     public ReservationDto cancelReservation(Long id){
         Reservation reservation = reservationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with id: %d".formatted(id)));
 
+        ProductionSlot before = productionSlot(reservation);
         reservation.active();
 
-        return reservationMapper.toDto(reservationRepository.save(reservation));
+        Reservation saved = reservationRepository.save(reservation);
+        publishChange(saved.getId(), Change.RETURNED, before, productionSlot(saved));
+        return reservationMapper.toDto(saved);
 
     }
 }
\ No newline at end of file
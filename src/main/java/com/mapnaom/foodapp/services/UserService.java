@@ -1,14 +1,18 @@
 package com.mapnaom.foodapp.services;
 
 import com.mapnaom.foodapp.dtos.UserDto;
+import com.mapnaom.foodapp.events.UserSecurityChangedEvent;
+import com.mapnaom.foodapp.exceptions.ResourceNotFoundException;
 import com.mapnaom.foodapp.mappers.UserMapper;
 import com.mapnaom.foodapp.searchForms.UserSearchForm;
 import com.mapnaom.foodapp.models.Role;
 import com.mapnaom.foodapp.security.RoleRepository;
+import com.mapnaom.foodapp.security.SecurityEpochRegistry;
 import com.mapnaom.foodapp.models.User;
 import com.mapnaom.foodapp.security.UserRepository;
 import com.mapnaom.foodapp.dtos.RoleDto;
 import com.mapnaom.foodapp.specifications.UserSpecification;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -16,8 +20,11 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,13 +35,19 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final RoleRepository roleRepository; // Assuming a RoleRepository for managing roles
     private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SecurityEpochRegistry securityEpochRegistry;
 
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, RoleRepository roleRepository, UserMapper userMapper) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, RoleRepository roleRepository,
+                       UserMapper userMapper, ApplicationEventPublisher eventPublisher,
+                       SecurityEpochRegistry securityEpochRegistry) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.roleRepository = roleRepository;
         this.userMapper = userMapper;
+        this.eventPublisher = eventPublisher;
+        this.securityEpochRegistry = securityEpochRegistry;
     }
 
 
@@ -82,15 +95,116 @@ public class UserService {
     public UserDto updateUser(Long id, UserDto userDto) {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with id: %d".formatted(id)));
+        String previousUsername = existingUser.getUsername();
+        String previousPassword = existingUser.getPassword();
+        Set<String> previousRoles = roleNames(existingUser);
 
         final var partialUpdate = userMapper.partialUpdate(userDto,existingUser);
+
+        // Revoke issued tokens when the change affects what the user may do
+        boolean revoke = !previousUsername.equals(partialUpdate.getUsername())
+                || !Objects.equals(previousPassword, partialUpdate.getPassword())
+                || !previousRoles.equals(roleNames(partialUpdate))
+                || partialUpdate.isAccountLocked()
+                || !partialUpdate.isEnabled();
+        if (revoke) {
+            securityEpochRegistry.bump(partialUpdate);
+        }
+        if (!previousUsername.equals(partialUpdate.getUsername())) {
+            securityEpochRegistry.forget(previousUsername);
+        }
+
         final var saved = userRepository.save(partialUpdate);
+
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(previousUsername));
+        if (!previousUsername.equals(saved.getUsername())) {
+            eventPublisher.publishEvent(new UserSecurityChangedEvent(saved.getUsername()));
+        }
         return userMapper.toDto(saved);
     }
 
 
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        userRepository.findById(id).ifPresent(user -> {
+            userRepository.delete(user);
+            securityEpochRegistry.forget(user.getUsername());
+            eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername()));
+        });
+    }
+
+    /**
+     * Adds a role to a user. Takes effect on the user's next request.
+     *
+     * @param id       The ID of the user.
+     * @param roleName The name of the role to assign.
+     * @return The updated UserDto.
+     */
+    public UserDto assignRole(Long id, String roleName) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
+        Role role = roleRepository.findByName(roleName)
+                .orElseThrow(() -> new ResourceNotFoundException("Role", "name", roleName));
+
+        if (user.getRoles() == null) {
+            user.setRoles(new ArrayList<>());
+        }
+        if (!user.getRoles().contains(role)) {
+            user.getRoles().add(role);
+            securityEpochRegistry.bump(user);
+            userRepository.save(user);
+            eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername()));
+        }
+        return convertToDto(user);
+    }
+
+    /**
+     * Replaces a user's password and revokes every token issued to the user so far.
+     *
+     * @param id          The ID of the user.
+     * @param newPassword The new raw password.
+     */
+    public void resetPassword(Long id, String newPassword) {
+        if (newPassword == null || newPassword.isBlank()) {
+            throw new IllegalArgumentException("Password cannot be blank.");
+        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
+
+        user.setPassword(passwordEncoder.encode(newPassword));
+        securityEpochRegistry.bump(user);
+        userRepository.save(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername()));
+    }
+
+    /**
+     * Lets a user replace their own password after proving they know the current one, and
+     * revokes every token issued to the user so far.
+     *
+     * @param username        The authenticated user.
+     * @param currentPassword The current raw password.
+     * @param newPassword     The new raw password.
+     */
+    public void changePassword(String username, String currentPassword, String newPassword) {
+        if (newPassword == null || newPassword.isBlank()) {
+            throw new IllegalArgumentException("Password cannot be blank.");
+        }
+        User user = userRepository.findUserByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
+        if (currentPassword == null || !passwordEncoder.matches(currentPassword, user.getPassword())) {
+            throw new IllegalArgumentException("Current password is incorrect.");
+        }
+
+        user.setPassword(passwordEncoder.encode(newPassword));
+        securityEpochRegistry.bump(user);
+        userRepository.save(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername()));
+    }
+
+    private Set<String> roleNames(User user) {
+        if (user.getRoles() == null) {
+            return Set.of();
+        }
+        return user.getRoles().stream().map(Role::getName).collect(Collectors.toSet());
     }
 
     /**
@@ -0,0 +1,263 @@
+package com.mapnaom.foodapp.snapshots;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.eloyzone.jalalicalendar.JalaliDate;
+import com.mapnaom.foodapp.dtos.DailyMealListDto;
+import com.mapnaom.foodapp.events.DailyMealChangedEvent;
+import com.mapnaom.foodapp.events.DishChangedEvent;
+import com.mapnaom.foodapp.services.AppSettingService;
+import com.mapnaom.foodapp.services.DailyMealService;
+import com.mapnaom.foodapp.utils.JalaliUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the menu of each Jalali month as static JSON that nginx serves without calling the
+ * backend. For month {@code 1403/05} the directory holds:
+ * <ul>
+ *     <li>{@code 1403-05/menu.<version>.json} and its {@code .gz} twin for {@code gzip_static};
+ *     the version is a hash of the content, so these files never change and can be cached
+ *     for a year</li>
+ *     <li>{@code 1403-05/manifest.json}, which names the current version and must be
+ *     revalidated by clients</li>
+ * </ul>
+ * Every file is written to a temporary name and moved into place, and the manifest is only
+ * replaced after the data files exist, so readers never see a partial file or a manifest that
+ * points to a missing version. A month is republished on the maintenance executor after its
+ * daily meals change. A dish change republishes every month that has a manifest, plus the
+ * current and next month, since any of them may show the dish's old name or price.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.menu-snapshots.enabled", havingValue = "true")
+public class MenuSnapshotPublisher {
+
+    private final DailyMealService dailyMealService;
+    private final AppSettingService appSettingService;
+    private final ObjectMapper objectMapper;
+    private final Executor maintenanceExecutor;
+    private final Path directory;
+    private final int keepVersions;
+    private final Set<String> pendingMonths = ConcurrentHashMap.newKeySet();
+
+    public MenuSnapshotPublisher(DailyMealService dailyMealService,
+                                 AppSettingService appSettingService,
+                                 ObjectMapper objectMapper,
+                                 @Qualifier("maintenanceExecutor") Executor maintenanceExecutor,
+                                 @Value("${app.menu-snapshots.dir:${java.io.tmpdir}/food-app-menus}") String directory,
+                                 @Value("${app.menu-snapshots.keep-versions:3}") int keepVersions) {
+        this.dailyMealService = dailyMealService;
+        this.appSettingService = appSettingService;
+        this.objectMapper = objectMapper;
+        this.maintenanceExecutor = maintenanceExecutor;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.keepVersions = Math.max(1, keepVersions);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void publishUpcomingMonths() {
+        scheduleCurrentAndNextMonth();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDailyMealChanged(DailyMealChangedEvent event) {
+        if (event.getDate() != null) {
+            JalaliDate date = JalaliUtils.toJalali(event.getDate());
+            schedule(date.getYear(), date.getMonthPersian().getValue());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDishChanged(DishChangedEvent event) {
+        scheduleCurrentAndNextMonth();
+        for (int[] month : publishedMonths()) {
+            schedule(month[0], month[1]);
+        }
+    }
+
+    /**
+     * Queues a publish of the month; requests for a month that is already queued are merged.
+     */
+    public void schedule(int jYear, int jMonth) {
+        String month = monthKey(jYear, jMonth);
+        if (pendingMonths.add(month)) {
+            maintenanceExecutor.execute(() -> {
+                pendingMonths.remove(month);
+                try {
+                    publish(jYear, jMonth);
+                } catch (RuntimeException e) {
+                    log.error("Publishing the menu snapshot of {} failed", month, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Renders and publishes the month now.
+     *
+     * @return the published version
+     */
+    public String publish(int jYear, int jMonth) {
+        List<DailyMealListDto> menu = dailyMealService.getAllDailyMealListByJalaliYearAndJalaliMonth(jYear, jMonth);
+        String month = monthKey(jYear, jMonth);
+        Path monthDir = directory.resolve(month);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(menu);
+            String version = version(json);
+            String fileName = "menu.%s.json".formatted(version);
+
+            Files.createDirectories(monthDir);
+            Path jsonFile = monthDir.resolve(fileName);
+            if (!Files.exists(jsonFile)) {
+                writeAtomically(monthDir.resolve(fileName + ".gz"), gzip(json));
+                writeAtomically(jsonFile, json);
+            } else {
+                // Republished unchanged: mark it newest so it is not removed as an old version
+                Files.setLastModifiedTime(jsonFile, FileTime.from(Instant.now()));
+            }
+
+            Map<String, Object> manifest = new LinkedHashMap<>();
+            manifest.put("jYear", jYear);
+            manifest.put("jMonth", jMonth);
+            manifest.put("version", version);
+            manifest.put("file", "%s/%s".formatted(month, fileName));
+            manifest.put("days", menu.size());
+            manifest.put("publishedAt", Instant.now().toString());
+            writeAtomically(monthDir.resolve("manifest.json"), objectMapper.writeValueAsBytes(manifest));
+
+            removeOldVersions(monthDir);
+            log.info("Published menu snapshot {} version {} ({} days, {} bytes)", month, version, menu.size(), json.length);
+            return version;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not publish the menu snapshot of %s".formatted(month), e);
+        }
+    }
+
+    private void scheduleCurrentAndNextMonth() {
+        LocalDate today = appSettingService.getSnapshot().getToday();
+        JalaliDate current = JalaliUtils.toJalali(today);
+        int jYear = current.getYear();
+        int jMonth = current.getMonthPersian().getValue();
+        schedule(jYear, jMonth);
+        schedule(jMonth == 12 ? jYear + 1 : jYear, jMonth == 12 ? 1 : jMonth + 1);
+    }
+
+    /**
+     * Months with a manifest in the snapshot directory, as {@code [jYear, jMonth]} pairs.
+     */
+    List<int[]> publishedMonths() {
+        List<int[]> months = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return months;
+        }
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(directory, "[0-9][0-9][0-9][0-9]-[0-9][0-9]")) {
+            for (Path monthDir : dirs) {
+                if (Files.exists(monthDir.resolve("manifest.json"))) {
+                    String name = monthDir.getFileName().toString();
+                    months.add(new int[]{Integer.parseInt(name.substring(0, 4)), Integer.parseInt(name.substring(5))});
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not list the published menu snapshots in {}", directory, e);
+        }
+        return months;
+    }
+
+    /**
+     * Keeps the newest versions, so clients holding a slightly older manifest can still load
+     * the file it names.
+     */
+    private void removeOldVersions(Path monthDir) throws IOException {
+        List<Path> versions = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(monthDir, "menu.*.json")) {
+            files.forEach(versions::add);
+        }
+        if (versions.size() <= keepVersions) {
+            return;
+        }
+        versions.sort(Comparator.comparing(this::lastModified).reversed());
+        for (Path old : versions.subList(keepVersions, versions.size())) {
+            Files.deleteIfExists(old);
+            Files.deleteIfExists(old.resolveSibling(old.getFileName() + ".gz"));
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".publish-", ".tmp");
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+        // Compressed once per change and served many times, so use the best ratio
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static String version(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String monthKey(int jYear, int jMonth) {
+        return "%d-%02d".formatted(jYear, jMonth);
+    }
+}
@@ -0,0 +1,371 @@
+package com.mapnaom.foodapp.utils;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Delimited text (CSV / TSV) counterpart of {@link ExcelUtil}.
+ * <p>
+ * Uses the same DTO field mapping and error reporting as the Excel import, but parses the
+ * input incrementally through a fixed-size character buffer instead of loading a workbook.
+ * Input is read as UTF-8 and a leading byte order mark is ignored, so files saved by Excel
+ * with Persian text are read correctly.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CsvUtil {
+
+    public static final String CSV_CONTENT_TYPE = "text/csv";
+    public static final String TSV_CONTENT_TYPE = "text/tab-separated-values";
+
+    private static final char BOM = '\uFEFF';
+    private static final int BUFFER_SIZE = 8192;
+    private static final String DATE_FORMAT = "yyyy-MM-dd";
+
+    private final ExcelUtil excelUtil;
+
+    // ==================== FORMAT DETECTION ====================
+
+    /**
+     * Resolves the field delimiter of an uploaded file from its content type, falling back to
+     * the file extension because browsers commonly report CSV as {@code application/vnd.ms-excel}.
+     *
+     * @return the delimiter, or {@code null} if the file is not delimited text
+     */
+    public Character resolveDelimiter(MultipartFile file) {
+        String contentType = file.getContentType() != null ? file.getContentType().toLowerCase() : "";
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+
+        if (contentType.startsWith(TSV_CONTENT_TYPE) || filename.endsWith(".tsv")) return '\t';
+        if (contentType.startsWith(CSV_CONTENT_TYPE) || contentType.startsWith("application/csv")
+                || filename.endsWith(".csv")) return ',';
+        return null;
+    }
+
+    public boolean isDelimitedText(MultipartFile file) {
+        return resolveDelimiter(file) != null;
+    }
+
+    // ==================== IMPORT METHODS ====================
+
+    /**
+     * Maps an uploaded file to DTOs, using the delimited text parser for CSV / TSV uploads and
+     * {@link ExcelUtil} for everything else.
+     */
+    public <T> List<T> processFile(MultipartFile file, Class<T> clazz)
+            throws IOException, ExcelUtil.ExcelProcessingException {
+        Character delimiter = resolveDelimiter(file);
+        if (delimiter == null) {
+            return excelUtil.processExcel(file, clazz);
+        }
+        return processCsv(file, clazz, delimiter);
+    }
+
+    public <T> List<T> processCsv(MultipartFile file, Class<T> clazz, char delimiter)
+            throws IOException, ExcelUtil.ExcelProcessingException {
+        if (file == null || file.isEmpty()) {
+            throw new ExcelUtil.ExcelProcessingException("CSV file is empty or null");
+        }
+
+        try (InputStream inputStream = file.getInputStream()) {
+            return processCsv(inputStream, clazz, delimiter);
+        }
+    }
+
+    public <T> List<T> processCsv(InputStream inputStream, Class<T> clazz, char delimiter)
+            throws IOException, ExcelUtil.ExcelProcessingException {
+
+        DtoRowMapper<T> mapper = new DtoRowMapper<>(clazz);
+        readRows(inputStream, delimiter, mapper);
+
+        if (mapper.headerError != null) {
+            throw mapper.headerError;
+        }
+        if (mapper.fields == null) {
+            throw new ExcelUtil.ExcelProcessingException("Header row not found");
+        }
+        if (!mapper.errors.isEmpty()) {
+            throw new ExcelUtil.ExcelProcessingException("Errors processing rows", mapper.errors);
+        }
+        return mapper.result;
+    }
+
+    /**
+     * Streams the records of a delimited text file to {@code handler}, one record at a time.
+     * Quoted fields (RFC 4180) may contain delimiters, doubled quotes and line breaks.
+     * <p>
+     * The list passed to the handler is reused between records and must not be retained.
+     * Record numbers are 1-based and include the header record, matching the row numbers
+     * reported by the Excel import.
+     * </p>
+     */
+    public void readRows(InputStream inputStream, char delimiter, RowHandler handler) throws IOException {
+        Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+        char[] buffer = new char[BUFFER_SIZE];
+        StringBuilder field = new StringBuilder(64);
+        List<String> row = new ArrayList<>();
+
+        boolean firstChunk = true;
+        boolean inQuotes = false;
+        boolean afterQuote = false;
+        boolean afterCarriageReturn = false;
+        int recordNumber = 0;
+        int read;
+
+        while ((read = reader.read(buffer)) != -1) {
+            int i = 0;
+            if (firstChunk && read > 0) {
+                firstChunk = false;
+                if (buffer[0] == BOM) i = 1;
+            }
+
+            for (; i < read; i++) {
+                char c = buffer[i];
+
+                if (afterCarriageReturn) {
+                    afterCarriageReturn = false;
+                    if (c == '\n') continue;
+                }
+
+                if (inQuotes) {
+                    if (c == '"') {
+                        inQuotes = false;
+                        afterQuote = true;
+                    } else {
+                        field.append(c);
+                    }
+                    continue;
+                }
+
+                if (afterQuote) {
+                    afterQuote = false;
+                    if (c == '"') {
+                        // Escaped quote inside a quoted field
+                        field.append('"');
+                        inQuotes = true;
+                        continue;
+                    }
+                }
+
+                if (c == delimiter) {
+                    row.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r') {
+                    afterCarriageReturn = c == '\r';
+                    endRecord(++recordNumber, row, field, handler);
+                } else if (c == '"' && field.length() == 0) {
+                    inQuotes = true;
+                } else {
+                    field.append(c);
+                }
+            }
+        }
+
+        if (field.length() > 0 || !row.isEmpty()) {
+            endRecord(++recordNumber, row, field, handler);
+        }
+    }
+
+    private void endRecord(int recordNumber, List<String> row, StringBuilder field, RowHandler handler) {
+        row.add(field.toString());
+        field.setLength(0);
+
+        boolean blankLine = row.size() == 1 && row.get(0).isEmpty();
+        if (!blankLine) {
+            handler.handle(recordNumber, row);
+        }
+        row.clear();
+    }
+
+    // ==================== EXPORT METHODS ====================
+
+    public <T> byte[] generateCsv(List<T> data, Class<T> clazz) {
+        return generateCsv(data, clazz, ',', null);
+    }
+
+    /**
+     * Generates a UTF-8 delimited text file (with BOM, so Excel detects the encoding) using the
+     * same column order and header names as {@link ExcelUtil#generateExcel}.
+     */
+    public <T> byte[] generateCsv(List<T> data, Class<T> clazz, char delimiter,
+                                  Map<String, String> customHeaders) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            List<Field> fields = excelUtil.getAllFields(clazz);
+            if (fields.isEmpty()) {
+                throw new IllegalArgumentException("No fields found in class: " + clazz.getName());
+            }
+
+            writer.write(BOM);
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) writer.write(delimiter);
+                writeField(writer, excelUtil.getHeaderName(fields.get(i).getName(), customHeaders), delimiter);
+            }
+            writer.write("\r\n");
+
+            SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+            for (T dto : data) {
+                for (int i = 0; i < fields.size(); i++) {
+                    if (i > 0) writer.write(delimiter);
+                    Object value = excelUtil.getFieldValue(dto, fields.get(i));
+                    if (value instanceof Date date) {
+                        writeField(writer, dateFormat.format(date), delimiter);
+                    } else if (value != null) {
+                        writeField(writer, value.toString(), delimiter);
+                    }
+                }
+                writer.write("\r\n");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error generating CSV file: " + e.getMessage(), e);
+        }
+
+        return out.toByteArray();
+    }
+
+    private void writeField(Writer writer, String value, char delimiter) throws IOException {
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+                break;
+            }
+        }
+
+        if (!needsQuotes) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') writer.write('"');
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    @FunctionalInterface
+    public interface RowHandler {
+        void handle(int recordNumber, List<String> fields);
+    }
+
+    /**
+     * Maps the header record to DTO fields once, then converts every following record with the
+     * resolved column positions.
+     */
+    private class DtoRowMapper<T> implements RowHandler {
+        private final Class<T> clazz;
+        private final List<T> result = new ArrayList<>();
+        private final List<ExcelUtil.ExcelError> errors = new ArrayList<>();
+        private Field[] fields;
+        private int[] columns;
+        private ExcelUtil.ExcelProcessingException headerError;
+
+        private DtoRowMapper(Class<T> clazz) {
+            this.clazz = clazz;
+        }
+
+        @Override
+        public void handle(int recordNumber, List<String> values) {
+            if (headerError != null) return;
+
+            if (fields == null) {
+                mapHeader(values);
+                return;
+            }
+            if (isBlank(values)) return;
+
+            try {
+                result.add(mapRecord(values));
+            } catch (Exception e) {
+                errors.add(new ExcelUtil.ExcelError(recordNumber, e.getMessage()));
+            }
+        }
+
+        private void mapHeader(List<String> headers) {
+            Set<String> dtoFieldNames = excelUtil.getAllFieldNames(clazz);
+            Map<String, Integer> headerMap = new HashMap<>();
+            List<String> missingFields = new ArrayList<>();
+            List<String> unmappedHeaders = new ArrayList<>();
+
+            for (int i = 0; i < headers.size(); i++) {
+                String headerValue = headers.get(i).trim();
+                if (headerValue.isEmpty()) continue;
+
+                String normalizedHeader = excelUtil.normalizeFieldName(headerValue);
+                if (!excelUtil.mapHeaderToField(headerMap, dtoFieldNames, normalizedHeader, i)) {
+                    unmappedHeaders.add(headerValue);
+                }
+            }
+
+            excelUtil.checkRequiredFields(clazz, headerMap, missingFields);
+            if (!missingFields.isEmpty()) {
+                headerError = new ExcelUtil.ExcelProcessingException(
+                        "Required fields missing in CSV: " + String.join(", ", missingFields)
+                );
+                return;
+            }
+            if (!unmappedHeaders.isEmpty()) {
+                log.warn("Unmapped CSV headers for {}: {}", clazz.getSimpleName(), String.join(", ", unmappedHeaders));
+            }
+
+            fields = new Field[headerMap.size()];
+            columns = new int[headerMap.size()];
+            int index = 0;
+            for (Map.Entry<String, Integer> entry : headerMap.entrySet()) {
+                Field field = excelUtil.getFieldByName(clazz, entry.getKey());
+                field.setAccessible(true);
+                fields[index] = field;
+                columns[index] = entry.getValue();
+                index++;
+            }
+        }
+
+        private T mapRecord(List<String> values) throws ReflectiveOperationException {
+            T instance = clazz.getDeclaredConstructor().newInstance();
+
+            for (int i = 0; i < fields.length; i++) {
+                if (columns[i] >= values.size()) continue;
+
+                Field field = fields[i];
+                Object value = excelUtil.getStringValue(values.get(columns[i]), field.getType());
+                try {
+                    field.set(instance, value);
+                } catch (IllegalArgumentException e) {
+                    excelUtil.invokeSetter(instance, field.getName(), value, field.getType());
+                }
+            }
+
+            return instance;
+        }
+
+        private boolean isBlank(List<String> values) {
+            for (String value : values) {
+                if (!value.trim().isEmpty()) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -151,7 +151,7 @@ public class ExcelUtil {
         return headerMap;
     }
 
-    private boolean mapHeaderToField(Map<String, Integer> headerMap, Set<String> dtoFieldNames,
+    boolean mapHeaderToField(Map<String, Integer> headerMap, Set<String> dtoFieldNames,
                                      String normalizedHeader, int columnIndex) {
         for (String fieldName : dtoFieldNames) {
             if (normalizeFieldName(fieldName).equalsIgnoreCase(normalizedHeader)) {
@@ -162,7 +162,7 @@ public class ExcelUtil {
         return false;
     }
 
-    private <T> void checkRequiredFields(Class<T> clazz, Map<String, Integer> headerMap,
+    <T> void checkRequiredFields(Class<T> clazz, Map<String, Integer> headerMap,
                                          List<String> missingFields) {
         for (Field field : getAllFields(clazz)) {
             if (isRequiredField(field) && !headerMap.containsKey(field.getName())) {
@@ -238,7 +238,7 @@ public class ExcelUtil {
         }
     }
 
-    private <T> void invokeSetter(T instance, String fieldName, Object value, Class<?> fieldType)
+    <T> void invokeSetter(T instance, String fieldName, Object value, Class<?> fieldType)
             throws ReflectiveOperationException {
         String setterName = "set" + capitalize(fieldName);
         Method setter = instance.getClass().getMethod(setterName, fieldType);
@@ -264,6 +264,31 @@ public class ExcelUtil {
         return getCellValueAsString(cell);
     }
 
+    /**
+     * Converts a raw text value (e.g. a CSV field) to the given field type using the
+     * same parsing rules as spreadsheet string cells.
+     */
+    Object getStringValue(String value, Class<?> targetType) {
+        if (value == null) return null;
+        if (targetType == String.class) return value;
+        if (value.trim().isEmpty()) return null;
+
+        if (targetType == Integer.class || targetType == int.class) return parseInteger(value);
+        if (targetType == Long.class || targetType == long.class) return parseLong(value);
+        if (targetType == Double.class || targetType == double.class) return parseDouble(value);
+        if (targetType == Float.class || targetType == float.class) {
+            Double parsed = parseDouble(value);
+            return parsed != null ? parsed.floatValue() : null;
+        }
+        if (targetType == Boolean.class || targetType == boolean.class) return parseBooleanString(value);
+        if (targetType == Date.class) return parseDate(value);
+        if (targetType == LocalDate.class) return parseLocalDate(value);
+        if (targetType == LocalDateTime.class) return parseLocalDateTime(value);
+        if (targetType.isEnum()) return parseEnum(value, targetType);
+
+        return value;
+    }
+
     private String getCellValueAsString(Cell cell) {
         if (cell == null) return "";
 
@@ -428,11 +453,15 @@ public class ExcelUtil {
         }
     }
 
-    @SuppressWarnings("unchecked")
     private Object getCellValueAsEnum(Cell cell, Class<?> enumType) {
         String value = getCellValueAsString(cell);
         if (value == null || value.trim().isEmpty()) return null;
 
+        return parseEnum(value, enumType);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object parseEnum(String value, Class<?> enumType) {
         try {
             return Enum.valueOf((Class<Enum>) enumType, value.trim().toUpperCase());
         } catch (IllegalArgumentException e) {
@@ -463,7 +492,7 @@ public class ExcelUtil {
         }
     }
 
-    private String getHeaderName(String fieldName, Map<String, String> customHeaders) {
+    String getHeaderName(String fieldName, Map<String, String> customHeaders) {
         if (customHeaders != null && customHeaders.containsKey(fieldName)) {
             return customHeaders.get(fieldName);
         }
@@ -485,7 +514,7 @@ public class ExcelUtil {
         }
     }
 
-    private <T> Object getFieldValue(T instance, Field field) {
+    <T> Object getFieldValue(T instance, Field field) {
         try {
             field.setAccessible(true);
             return field.get(instance);
@@ -579,13 +608,13 @@ public class ExcelUtil {
         return sheet;
     }
 
-    private Set<String> getAllFieldNames(Class<?> clazz) {
+    Set<String> getAllFieldNames(Class<?> clazz) {
         return getAllFields(clazz).stream()
                 .map(Field::getName)
                 .collect(Collectors.toSet());
     }
 
-    private List<Field> getAllFields(Class<?> clazz) {
+    List<Field> getAllFields(Class<?> clazz) {
         List<Field> fields = new ArrayList<>();
         Class<?> currentClass = clazz;
 
@@ -597,7 +626,7 @@ public class ExcelUtil {
         return fields;
     }
 
-    private Field getFieldByName(Class<?> clazz, String fieldName) {
+    Field getFieldByName(Class<?> clazz, String fieldName) {
         Class<?> currentClass = clazz;
 
         while (currentClass != null && currentClass != Object.class) {
@@ -611,12 +640,12 @@ public class ExcelUtil {
         return null;
     }
 
-    private boolean isRequiredField(Field field) {
+    boolean isRequiredField(Field field) {
         return field.getAnnotation(Required.class) != null ||
                 field.getAnnotation(NotNull.class) != null;
     }
 
-    private String normalizeFieldName(String name) {
+    String normalizeFieldName(String name) {
         return name.replaceAll("[^a-zA-Z0-9]", "").toLowerCase();
     }
 
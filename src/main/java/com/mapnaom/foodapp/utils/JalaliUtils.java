@@ -4,6 +4,7 @@ import com.github.eloyzone.jalalicalendar.DateConverter;
 import com.github.eloyzone.jalalicalendar.JalaliDate;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
 public final class JalaliUtils {
 
@@ -18,4 +19,26 @@ public final class JalaliUtils {
                 gregorian.getDayOfMonth()
         );
     }
+
+    /**
+     * Days in a Jalali month: 31 for the first six months, 30 for the next five, and 29 or 30
+     * for Esfand depending on the leap year.
+     */
+    public static int lengthOfMonth(int jYear, int jMonth) {
+        if (jMonth < 1 || jMonth > 12) {
+            throw new IllegalArgumentException("Jalali month must be between 1 and 12: " + jMonth);
+        }
+        if (jMonth <= 6) {
+            return 31;
+        }
+        if (jMonth <= 11) {
+            return 30;
+        }
+        // A converter of its own: jalaliToGregorian leaves state behind that breaks later
+        // gregorianToJalali calls on the same instance
+        DateConverter converter = new DateConverter();
+        return (int) ChronoUnit.DAYS.between(
+                converter.jalaliToGregorian(jYear, 12, 1),
+                converter.jalaliToGregorian(jYear + 1, 1, 1));
+    }
 }
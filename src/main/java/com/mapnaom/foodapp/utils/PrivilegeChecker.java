@@ -1,20 +1,52 @@
 package com.mapnaom.foodapp.utils;
 
+import com.mapnaom.foodapp.enums.Privilege;
+import com.mapnaom.foodapp.security.PrivilegeMask;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
-import java.util.Collection;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * Utility class for privilege-based security checks.
+ * <p>
+ * Checks test bits of the current authentication's {@link PrivilegeMask}, which includes the
+ * privileges implied by its roles; names that are not a {@link Privilege} (such as roles) fall
+ * back to comparing authority strings.
+ * </p>
  */
 @Component
+@RequiredArgsConstructor
 public class PrivilegeChecker {
 
+    private final RoleHierarchy roleHierarchy;
+
+    /**
+     * Check if the current user has a specific privilege.
+     */
+    public boolean hasPrivilege(Privilege privilege) {
+        return PrivilegeMask.has(currentMask(), privilege);
+    }
+
+    /**
+     * Check if the current user has every privilege in the mask.
+     */
+    public boolean hasAllPrivileges(long requiredMask) {
+        return PrivilegeMask.hasAll(currentMask(), requiredMask);
+    }
+
+    /**
+     * Check if the current user has at least one privilege in the mask.
+     */
+    public boolean hasAnyPrivilege(long wantedMask) {
+        return PrivilegeMask.hasAny(currentMask(), wantedMask);
+    }
+
     /**
      * Check if the current user has a specific privilege.
      */
@@ -23,45 +55,43 @@ public class PrivilegeChecker {
         if (authentication == null) {
             return false;
         }
-
-        return authentication.getAuthorities()
-                .stream()
-                .map(GrantedAuthority::getAuthority)
-                .anyMatch(authority -> authority.equals(privilege));
+        return hasPrivilege(authentication, PrivilegeMask.of(authentication, roleHierarchy), privilege);
     }
 
     /**
      * Check if the current user has any of the specified privileges.
      */
     public boolean hasAnyPrivilege(String... privileges) {
-        Set<String> privilegeSet = Set.of(privileges);
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null) {
             return false;
         }
 
-        return authentication.getAuthorities()
-                .stream()
-                .map(GrantedAuthority::getAuthority)
-                .anyMatch(privilegeSet::contains);
+        long mask = PrivilegeMask.of(authentication, roleHierarchy);
+        for (String privilege : privileges) {
+            if (hasPrivilege(authentication, mask, privilege)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * Check if the current user has all of the specified privileges.
      */
     public boolean hasAllPrivileges(String... privileges) {
-        Set<String> privilegeSet = Set.of(privileges);
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null) {
             return false;
         }
 
-        Set<String> userAuthorities = authentication.getAuthorities()
-                .stream()
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.toSet());
-
-        return userAuthorities.containsAll(privilegeSet);
+        long mask = PrivilegeMask.of(authentication, roleHierarchy);
+        for (String privilege : privileges) {
+            if (!hasPrivilege(authentication, mask, privilege)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -78,4 +108,21 @@ public class PrivilegeChecker {
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toSet());
     }
+
+    private long currentMask() {
+        return PrivilegeMask.of(SecurityContextHolder.getContext().getAuthentication(), roleHierarchy);
+    }
+
+    private boolean hasPrivilege(Authentication authentication, long mask, String privilege) {
+        long bit = PrivilegeMask.bitOf(privilege);
+        if (bit != 0) {
+            return (mask & bit) != 0;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (authority.getAuthority().equals(privilege)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,158 @@
+package com.mapnaom.foodapp.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mapnaom.foodapp.dtos.ChangeDto;
+import com.mapnaom.foodapp.dtos.ChangePageDto;
+import com.mapnaom.foodapp.events.ProductionSlot;
+import com.mapnaom.foodapp.events.ReservationChangedEvent;
+import com.mapnaom.foodapp.events.ReservationChangedEvent.Change;
+import com.mapnaom.foodapp.services.OutboxService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResponseBodyCacheTest {
+
+    private static final String MEHR = ResponseBodyCache.monthOf(1404, 7);
+    private static final String ABAN = ResponseBodyCache.monthOf(1404, 8);
+
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final ResponseBodyCache cache = new ResponseBodyCache(new ObjectMapper().findAndRegisterModules(),
+            new SimpleMeterRegistry(), outboxService, 16, 64, 300);
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private volatile String menu = "rice";
+
+    @Test
+    void hitReturnsTheStoredBodyAndMatchingEtagGets304() {
+        ResponseEntity<byte[]> first = respond(MEHR, null, null);
+        ResponseEntity<byte[]> second = respond(MEHR, null, null);
+
+        assertThat(loads).hasValue(1);
+        assertThat(second.getBody()).isEqualTo(first.getBody());
+        assertThat(second.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag());
+
+        ResponseEntity<byte[]> revalidated = respond(MEHR, first.getHeaders().getETag(), null);
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(revalidated.getBody()).isNull();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void partitionBumpChangesTheEtagOfThatPartitionOnly() {
+        String mehrEtag = respond(MEHR, null, null).getHeaders().getETag();
+        String abanEtag = respond(ABAN, null, null).getHeaders().getETag();
+        menu = "kebab";
+
+        // Not bumped yet: the cached body is still served
+        assertThat(respond(MEHR, null, null).getHeaders().getETag()).isEqualTo(mehrEtag);
+
+        cache.invalidate(ResponseBodyCache.MONTH_MENU, MEHR);
+
+        ResponseEntity<byte[]> refreshed = respond(MEHR, mehrEtag, null);
+        assertThat(refreshed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(refreshed.getHeaders().getETag()).isNotEqualTo(mehrEtag);
+        assertThat(new String(refreshed.getBody())).contains("kebab");
+        assertThat(respond(ABAN, null, null).getHeaders().getETag()).isEqualTo(abanEtag);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void namespaceBumpChangesEveryPartition() {
+        String mehrEtag = respond(MEHR, null, null).getHeaders().getETag();
+        String abanEtag = respond(ABAN, null, null).getHeaders().getETag();
+        menu = "kebab";
+
+        cache.invalidate(ResponseBodyCache.MONTH_MENU);
+
+        assertThat(respond(MEHR, null, null).getHeaders().getETag()).isNotEqualTo(mehrEtag);
+        assertThat(respond(ABAN, null, null).getHeaders().getETag()).isNotEqualTo(abanEtag);
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void reservationChangeBumpsTheServeListOfItsDay() {
+        LocalDate day = LocalDate.of(2025, 9, 27);
+        LocalDate otherDay = day.plusDays(1);
+        String etag = serveList(day).getHeaders().getETag();
+        String otherEtag = serveList(otherDay).getHeaders().getETag();
+        menu = "kebab";
+
+        cache.onReservationChanged(new ReservationChangedEvent(1L, Change.CREATED, null,
+                new ProductionSlot(day, 11L, 31L, false)));
+
+        assertThat(serveList(day).getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat(serveList(otherDay).getHeaders().getETag()).isEqualTo(otherEtag);
+    }
+
+    @Test
+    void changeFeedBumpsTheMonthOfAMenuChangedElsewhere() {
+        when(outboxService.getLatestCursor()).thenReturn(7L);
+        cache.followChangeFeed();
+        String etag = respond(MEHR, null, null).getHeaders().getETag();
+        menu = "kebab";
+
+        ChangeDto change = new ChangeDto(8L, 8L, OutboxService.DAILY_MEAL, "2025-09-27", "MENU_CHANGED",
+                "{\"date\":\"2025-09-27\"}", null);
+        when(outboxService.getChangesSince(7L, 1000)).thenReturn(new ChangePageDto(List.of(change), 8L, false));
+        cache.followChangeFeed();
+
+        assertThat(respond(MEHR, null, null).getHeaders().getETag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void gzipVariantHasItsOwnEtag() {
+        menu = "rice ".repeat(100);
+
+        ResponseEntity<byte[]> plain = respond(MEHR, null, null);
+        ResponseEntity<byte[]> gzip = respond(MEHR, null, "br, gzip");
+        ResponseEntity<byte[]> refused = respond(MEHR, null, "gzip;q=0");
+
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzip.getHeaders().getETag()).isEqualTo(plain.getHeaders().getETag().replaceFirst("\"$", "-gz\""));
+        assertThat(gzip.getBody().length).isLessThan(plain.getBody().length);
+        assertThat(refused.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(loads).hasValue(1);
+    }
+
+    private ResponseEntity<byte[]> respond(String month, String ifNoneMatch, String acceptEncoding) {
+        return cache.respond(request(ifNoneMatch, acceptEncoding), ResponseBodyCache.MONTH_MENU, month,
+                loader(month), month);
+    }
+
+    private ResponseEntity<byte[]> serveList(LocalDate day) {
+        return cache.respond(request(null, null), ResponseBodyCache.SERVE_LIST, day, loader(day), day);
+    }
+
+    private Supplier<Object> loader(Object partition) {
+        return () -> {
+            loads.incrementAndGet();
+            return Map.of("partition", String.valueOf(partition), "menu", menu);
+        };
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/daily-meals");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return new ServletWebRequest(request);
+    }
+}
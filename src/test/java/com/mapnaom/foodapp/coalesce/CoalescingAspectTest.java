@@ -0,0 +1,200 @@
+package com.mapnaom.foodapp.coalesce;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoalescingAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CoalescingAspect aspect = new CoalescingAspect(meterRegistry, 5000);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final CountDownLatch leaderStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseLeader = new CountDownLatch(1);
+    private final AtomicInteger executions = new AtomicInteger();
+    private final Coalesce noTimeout = coalesce(0);
+
+    private ProceedingJoinPoint joinPoint;
+    private volatile Object followerResult;
+    private volatile Throwable followerError;
+
+    @BeforeEach
+    void setUp() throws Throwable {
+        Signature signature = mock(Signature.class);
+        when(signature.getDeclaringType()).thenReturn(MenuQueries.class);
+        when(signature.getName()).thenReturn("findMonth");
+
+        joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{1404, 7});
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseLeader.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void waitingCallersShareTheResult() throws Throwable {
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            executions.incrementAndGet();
+            leaderStarted.countDown();
+            releaseLeader.await();
+            return "menu";
+        });
+
+        Future<Object> leader = executor.submit(() -> callAspect(noTimeout));
+        leaderStarted.await();
+        Thread follower = startWaiting(noTimeout);
+
+        releaseLeader.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("menu");
+        follower.join(5000);
+        assertThat(followerResult).isEqualTo("menu");
+        assertThat(executions).hasValue(1);
+        assertThat(count("coalesced")).isEqualTo(1);
+    }
+
+    @Test
+    void waitingCallersGetTheFailureAndTheNextCallRunsAgain() throws Throwable {
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            if (executions.incrementAndGet() == 1) {
+                leaderStarted.countDown();
+                releaseLeader.await();
+                throw failure;
+            }
+            return "menu";
+        });
+
+        Future<Object> leader = executor.submit(() -> callAspect(noTimeout));
+        leaderStarted.await();
+        Thread follower = startWaiting(noTimeout);
+
+        releaseLeader.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        follower.join(5000);
+        assertThat(followerError).isSameAs(failure);
+        assertThat(executions).hasValue(1);
+        assertThat(count("failed")).isEqualTo(1);
+
+        // The failure is not remembered
+        assertThat(aspect.coalesce(joinPoint, noTimeout)).isEqualTo("menu");
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void waitingCallerThatTimesOutRunsTheCallItself() throws Throwable {
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            if (executions.incrementAndGet() == 1) {
+                leaderStarted.countDown();
+                releaseLeader.await();
+                return "slow menu";
+            }
+            return "own menu";
+        });
+
+        Future<Object> leader = executor.submit(() -> callAspect(noTimeout));
+        leaderStarted.await();
+
+        long start = System.nanoTime();
+        Object result = aspect.coalesce(joinPoint, coalesce(50));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(result).isEqualTo("own menu");
+        assertThat(waitedMillis).isGreaterThanOrEqualTo(50).isLessThan(4000);
+        assertThat(executions).hasValue(2);
+        assertThat(count("timeout")).isEqualTo(1);
+
+        releaseLeader.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("slow menu");
+    }
+
+    @Test
+    void callsWithDifferentArgumentsAreNotShared() throws Throwable {
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            executions.incrementAndGet();
+            leaderStarted.countDown();
+            releaseLeader.await();
+            return "menu";
+        });
+
+        Future<Object> leader = executor.submit(() -> callAspect(noTimeout));
+        leaderStarted.await();
+
+        ProceedingJoinPoint otherMonth = mock(ProceedingJoinPoint.class);
+        Signature signature = joinPoint.getSignature();
+        when(otherMonth.getSignature()).thenReturn(signature);
+        when(otherMonth.getArgs()).thenReturn(new Object[]{1404, 8});
+        when(otherMonth.proceed()).thenReturn("other menu");
+
+        assertThat(aspect.coalesce(otherMonth, noTimeout)).isEqualTo("other menu");
+
+        releaseLeader.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("menu");
+        assertThat(executions).hasValue(1);
+    }
+
+    /**
+     * Starts a caller on its own thread and returns once it is parked on the shared call.
+     */
+    private Thread startWaiting(Coalesce coalesce) throws InterruptedException {
+        Thread follower = new Thread(() -> {
+            try {
+                followerResult = aspect.coalesce(joinPoint, coalesce);
+            } catch (Throwable e) {
+                followerError = e;
+            }
+        });
+        follower.start();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (follower.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(follower.getState()).isEqualTo(Thread.State.TIMED_WAITING);
+        return follower;
+    }
+
+    private Object callAspect(Coalesce coalesce) throws Exception {
+        try {
+            return aspect.coalesce(joinPoint, coalesce);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("coalesce.calls").tag("result", result).counter().count();
+    }
+
+    private static Coalesce coalesce(long timeoutMillis) {
+        Coalesce coalesce = mock(Coalesce.class);
+        when(coalesce.timeoutMillis()).thenReturn(timeoutMillis);
+        return coalesce;
+    }
+
+    private static class MenuQueries {
+    }
+}
@@ -0,0 +1,44 @@
+package com.mapnaom.foodapp.controllers;
+
+import com.mapnaom.foodapp.cache.ResponseBodyCache;
+import com.mapnaom.foodapp.mappers.PersonnelReservationMapper;
+import com.mapnaom.foodapp.mappers.ReservationMapper;
+import com.mapnaom.foodapp.repositories.ReservationRepository;
+import com.mapnaom.foodapp.services.CostShareRecomputeService;
+import com.mapnaom.foodapp.services.MonthlyReservationReportService;
+import com.mapnaom.foodapp.services.PayrollExportService;
+import com.mapnaom.foodapp.services.ReservationImportService;
+import com.mapnaom.foodapp.services.ReservationLifecycleService;
+import com.mapnaom.foodapp.services.ReservationService;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ReservationControllerTest {
+
+    private final PayrollExportService payrollExportService = mock(PayrollExportService.class);
+    private final ReservationController controller = new ReservationController(
+            mock(PersonnelReservationMapper.class), mock(ReservationService.class),
+            mock(CostShareRecomputeService.class), payrollExportService, mock(ReservationImportService.class),
+            mock(ReservationLifecycleService.class), mock(ReservationRepository.class),
+            mock(ReservationMapper.class), mock(MonthlyReservationReportService.class),
+            mock(ResponseBodyCache.class));
+
+    @Test
+    void payrollExportFailsBeforeStreamingStarts() throws IOException {
+        doThrow(new IllegalStateException("code too long"))
+                .when(payrollExportService).validate(1404, 7, PayrollExportService.Format.FIXED);
+
+        assertThatThrownBy(() -> controller.downloadPayrollExport(1404, 7, PayrollExportService.Format.FIXED))
+                .isInstanceOf(IllegalStateException.class);
+        verify(payrollExportService, never()).writeDeductions(anyInt(), anyInt(), any(), any());
+    }
+}
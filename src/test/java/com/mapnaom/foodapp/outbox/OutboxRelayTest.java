@@ -0,0 +1,138 @@
+package com.mapnaom.foodapp.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mapnaom.foodapp.controllers.ChangeFeedController;
+import com.mapnaom.foodapp.dtos.ChangeDto;
+import com.mapnaom.foodapp.dtos.ChangePageDto;
+import com.mapnaom.foodapp.mappers.OutboxEventMapperImpl;
+import com.mapnaom.foodapp.models.OutboxEvent;
+import com.mapnaom.foodapp.repositories.OutboxEventRepository;
+import com.mapnaom.foodapp.services.OutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Relays events through {@link OutboxRelay} into an in-memory outbox table and reads them back
+ * through the change feed, the way a client replays from its last cursor.
+ */
+class OutboxRelayTest {
+
+    private final List<OutboxEvent> table = new ArrayList<>();
+    private final List<ChangeDto> published = new ArrayList<>();
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final TransactionStatus status = mock(TransactionStatus.class);
+    private final OutboxSink sink = mock(OutboxSink.class);
+
+    private final OutboxRelay relay = new OutboxRelay(repository, new OutboxEventMapperImpl(), sink,
+            transactionManager, 2, 30);
+    private final ChangeFeedController feed = new ChangeFeedController(
+            new OutboxService(repository, new OutboxEventMapperImpl(), new ObjectMapper()));
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        when(repository.findUnpublishedForUpdate(any())).thenAnswer(invocation -> table.stream()
+                .filter(event -> event.getSeq() == null)
+                .sorted(Comparator.comparing(OutboxEvent::getId))
+                .limit(invocation.<Pageable>getArgument(0).getPageSize())
+                .toList());
+        when(repository.findMaxSeq()).thenAnswer(invocation -> table.stream()
+                .map(OutboxEvent::getSeq).filter(Objects::nonNull).mapToLong(Long::longValue).max().orElse(0));
+        when(repository.findChangesSince(anyLong(), any())).thenAnswer(invocation -> table.stream()
+                .filter(event -> event.getSeq() != null && event.getSeq() > invocation.<Long>getArgument(0))
+                .sorted(Comparator.comparing(OutboxEvent::getSeq))
+                .limit(invocation.<Pageable>getArgument(1).getPageSize())
+                .toList());
+        doAnswer(invocation -> published.addAll(invocation.getArgument(0)))
+                .when(sink).publish(any());
+    }
+
+    @Test
+    void relayNumbersEveryEventInOrderAcrossBatches() {
+        record(5);
+
+        relay.relay();
+
+        assertThat(table).extracting(OutboxEvent::getSeq).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(table).allMatch(event -> event.getPublishedAt() != null);
+        assertThat(published).extracting(ChangeDto::getSeq).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void clientReplaysPageByPageFromItsCursor() {
+        record(5);
+        relay.relay();
+
+        ChangePageDto first = changes(0, 2);
+        assertThat(first.getChanges()).extracting(ChangeDto::getSeq).containsExactly(1L, 2L);
+        assertThat(first.isHasMore()).isTrue();
+
+        ChangePageDto second = changes(first.getNextCursor(), 2);
+        assertThat(second.getChanges()).extracting(ChangeDto::getSeq).containsExactly(3L, 4L);
+
+        ChangePageDto last = changes(second.getNextCursor(), 2);
+        assertThat(last.getChanges()).extracting(ChangeDto::getSeq).containsExactly(5L);
+        assertThat(last.isHasMore()).isFalse();
+
+        ChangePageDto caughtUp = changes(last.getNextCursor(), 2);
+        assertThat(caughtUp.getChanges()).isEmpty();
+        assertThat(caughtUp.getNextCursor()).isEqualTo(5L);
+    }
+
+    @Test
+    void replayFromAnOldCursorReturnsOnlyLaterRelays() {
+        record(3);
+        relay.relay();
+        long cursor = changes(0, 500).getNextCursor();
+
+        // Changes committed after the client read up to its cursor
+        record(2);
+        relay.relay();
+
+        ChangePageDto page = changes(cursor, 500);
+        assertThat(page.getChanges()).extracting(ChangeDto::getSeq).containsExactly(4L, 5L);
+        assertThat(page.getChanges()).extracting(ChangeDto::getId).containsExactly(4L, 5L);
+        assertThat(changes(0, 500).getChanges()).hasSize(5);
+    }
+
+    @Test
+    void failedSinkRollsTheBatchBack() throws Exception {
+        record(1);
+        doThrow(new IllegalStateException("broker down")).when(sink).publish(any());
+
+        relay.relay();
+
+        verify(transactionManager).rollback(status);
+    }
+
+    private ChangePageDto changes(long since, int limit) {
+        return feed.getChanges(since, limit).getBody();
+    }
+
+    private void record(int count) {
+        for (int i = 0; i < count; i++) {
+            OutboxEvent event = new OutboxEvent(OutboxService.RESERVATION, String.valueOf(table.size() + 1),
+                    "CREATED", "{}");
+            event.setId((long) table.size() + 1);
+            table.add(event);
+        }
+    }
+}
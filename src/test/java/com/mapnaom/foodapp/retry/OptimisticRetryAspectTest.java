@@ -0,0 +1,85 @@
+package com.mapnaom.foodapp.retry;
+
+import com.mapnaom.foodapp.exceptions.StaleVersionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OptimisticRetryAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OptimisticRetryAspect aspect = new OptimisticRetryAspect(meterRegistry, 3, 1, 2);
+    private final RetryOnConflict retryOnConflict = mock(RetryOnConflict.class);
+
+    private ProceedingJoinPoint joinPoint;
+
+    @BeforeEach
+    void setUp() {
+        Signature signature = mock(Signature.class);
+        when(signature.getDeclaringType()).thenReturn(BookingService.class);
+        when(signature.getName()).thenReturn("book");
+
+        joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+    }
+
+    @Test
+    void retriesOptimisticLockingConflicts() throws Throwable {
+        when(joinPoint.proceed())
+                .thenThrow(new ObjectOptimisticLockingFailureException(Object.class, 1L))
+                .thenReturn("booked");
+
+        assertThat(aspect.retry(joinPoint, retryOnConflict)).isEqualTo("booked");
+        assertThat(count("optimistic.lock.conflicts", "optimistic")).isEqualTo(1);
+    }
+
+    @Test
+    void retriesLockTimeoutsAndDeadlocks() throws Throwable {
+        when(joinPoint.proceed())
+                .thenThrow(new CannotAcquireLockException("lock wait timeout"))
+                .thenThrow(new PessimisticLockingFailureException("deadlock detected"))
+                .thenReturn("booked");
+
+        assertThat(aspect.retry(joinPoint, retryOnConflict)).isEqualTo("booked");
+        verify(joinPoint, times(3)).proceed();
+        assertThat(count("optimistic.lock.conflicts", "pessimistic")).isEqualTo(2);
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() throws Throwable {
+        CannotAcquireLockException timeout = new CannotAcquireLockException("lock wait timeout");
+        when(joinPoint.proceed()).thenThrow(timeout);
+
+        assertThatThrownBy(() -> aspect.retry(joinPoint, retryOnConflict)).isSameAs(timeout);
+        verify(joinPoint, times(3)).proceed();
+        assertThat(count("optimistic.lock.retries.exhausted", "pessimistic")).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotRetryAStaleClientVersion() throws Throwable {
+        StaleVersionException stale = new StaleVersionException("stale");
+        when(joinPoint.proceed()).thenThrow(stale);
+
+        assertThatThrownBy(() -> aspect.retry(joinPoint, retryOnConflict)).isSameAs(stale);
+        verify(joinPoint, times(1)).proceed();
+    }
+
+    private double count(String name, String lock) {
+        return meterRegistry.get(name).tag("method", "BookingService.book").tag("lock", lock).counter().count();
+    }
+
+    private static class BookingService {
+    }
+}
@@ -0,0 +1,56 @@
+package com.mapnaom.foodapp.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void containsEveryInsertedValue() {
+        TokenRevocationService.BloomFilter filter = new TokenRevocationService.BloomFilter(1000, 0.01);
+        List<String> tokenIds = randomIds(1000);
+        tokenIds.forEach(filter::put);
+
+        assertThat(tokenIds).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        TokenRevocationService.BloomFilter filter = new TokenRevocationService.BloomFilter(1000, 0.01);
+
+        assertThat(randomIds(1000)).noneMatch(filter::mightContain);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredRate() {
+        TokenRevocationService.BloomFilter filter = new TokenRevocationService.BloomFilter(10_000, 0.01);
+        randomIds(10_000).forEach(filter::put);
+
+        long falsePositives = randomIds(100_000).stream().filter(filter::mightContain).count();
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void toleratesTinySizing() {
+        TokenRevocationService.BloomFilter filter = new TokenRevocationService.BloomFilter(1, 0.5);
+        filter.put("jti-1");
+        filter.put("jti-2");
+
+        assertThat(filter.mightContain("jti-1")).isTrue();
+        assertThat(filter.mightContain("jti-2")).isTrue();
+    }
+
+    private static List<String> randomIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
+    }
+}
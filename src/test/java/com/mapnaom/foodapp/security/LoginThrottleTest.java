@@ -0,0 +1,187 @@
+package com.mapnaom.foodapp.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginThrottleTest {
+
+    private static final String ADDRESS = "10.0.0.7";
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    @Test
+    void emptyUsernameBucketRejectsUntilATokenRefills() {
+        // 600 per minute is one token every 100 ms
+        LoginThrottle throttle = throttle(2, 600, 100, 1000, 100, "");
+
+        throttle.checkAttempt("ali", ADDRESS);
+        throttle.checkAttempt("ali", ADDRESS);
+        assertThatThrownBy(() -> throttle.checkAttempt("ali", ADDRESS))
+                .isInstanceOf(LoginThrottledException.class)
+                .extracting("retryAfterSeconds").isEqualTo(1L);
+
+        now.addAndGet(99);
+        assertThatThrownBy(() -> throttle.checkAttempt("ali", ADDRESS)).isInstanceOf(LoginThrottledException.class);
+
+        now.addAndGet(1);
+        assertThatCode(() -> throttle.checkAttempt("ali", ADDRESS)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> throttle.checkAttempt("ali", ADDRESS)).isInstanceOf(LoginThrottledException.class);
+    }
+
+    @Test
+    void backoffEndsAfterItsDelay() {
+        LoginThrottle throttle = throttle(100, 100, 1, 1000, 100, "");
+
+        throttle.recordFailure("ali", ADDRESS);
+        now.addAndGet(999);
+        assertThatThrownBy(() -> throttle.checkAttempt("ali", ADDRESS)).isInstanceOf(LoginThrottledException.class);
+
+        now.addAndGet(1);
+        assertThatCode(() -> throttle.checkAttempt("ali", ADDRESS)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void failuresAreForgottenAfterAQuietPeriod() {
+        LoginThrottle throttle = throttle(100, 100, 2, 1000, 100, "");
+
+        throttle.recordFailure("ali", ADDRESS);
+        throttle.recordFailure("ali", ADDRESS);
+        throttle.recordFailure("ali", ADDRESS);
+
+        // Longer than the 8 s maximum backoff: the next failure counts as the first
+        now.addAndGet(8_001);
+        throttle.recordFailure("ali", ADDRESS);
+        assertThatCode(() -> throttle.checkAttempt("ali", ADDRESS)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void usernamesHaveSeparateBuckets() {
+        LoginThrottle throttle = throttle(1, 1, 100, 1000, 100, "");
+
+        throttle.checkAttempt("ali", ADDRESS);
+        assertThatThrownBy(() -> throttle.checkAttempt("ALI ", ADDRESS)).isInstanceOf(LoginThrottledException.class);
+        assertThatCode(() -> throttle.checkAttempt("reza", ADDRESS)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void addressBucketLimitsAllUsernamesBehindIt() {
+        LoginThrottle throttle = throttle(100, 100, 100, 2, 100, "");
+
+        throttle.checkAttempt("ali", ADDRESS);
+        throttle.checkAttempt("reza", ADDRESS);
+        assertThatThrownBy(() -> throttle.checkAttempt("sara", ADDRESS)).isInstanceOf(LoginThrottledException.class);
+        assertThatCode(() -> throttle.checkAttempt("sara", "10.0.0.8")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void exemptRangesSkipTheAddressBucket() {
+        LoginThrottle throttle = throttle(100, 100, 100, 1, 100, "10.0.0.0/24, 192.168.1.1");
+
+        for (int i = 0; i < 10; i++) {
+            throttle.checkAttempt("user" + i, ADDRESS);
+            throttle.checkAttempt("user" + i, "192.168.1.1");
+        }
+        throttle.checkAttempt("ali", "10.0.1.1");
+        assertThatThrownBy(() -> throttle.checkAttempt("reza", "10.0.1.1")).isInstanceOf(LoginThrottledException.class);
+    }
+
+    @Test
+    void backoffStartsAfterTheFreeFailuresAndDoubles() {
+        LoginThrottle throttle = throttle(100, 100, 2, 1000, 100, "");
+
+        throttle.recordFailure("ali", ADDRESS);
+        assertThatCode(() -> throttle.checkAttempt("ali", ADDRESS)).doesNotThrowAnyException();
+
+        throttle.recordFailure("ali", ADDRESS);
+        assertThatThrownBy(() -> throttle.checkAttempt("ali", ADDRESS))
+                .isInstanceOf(LoginThrottledException.class)
+                .extracting("retryAfterSeconds").isEqualTo(1L);
+
+        throttle.recordFailure("ali", ADDRESS);
+        assertThatThrownBy(() -> throttle.checkAttempt("ali", ADDRESS))
+                .isInstanceOf(LoginThrottledException.class)
+                .extracting("retryAfterSeconds").isEqualTo(2L);
+
+        throttle.recordFailure("ali", ADDRESS);
+        assertThatThrownBy(() -> throttle.checkAttempt("ali", ADDRESS))
+                .isInstanceOf(LoginThrottledException.class)
+                .extracting("retryAfterSeconds").isEqualTo(4L);
+    }
+
+    @Test
+    void backoffIsCappedAtTheMaximum() {
+        LoginThrottle throttle = throttle(100, 100, 0, 1000, 100, "");
+
+        for (int i = 0; i < 30; i++) {
+            throttle.recordFailure("ali", ADDRESS);
+        }
+
+        assertThatThrownBy(() -> throttle.checkAttempt("ali", ADDRESS))
+                .isInstanceOf(LoginThrottledException.class)
+                .extracting("retryAfterSeconds").isEqualTo(8L);
+    }
+
+    @Test
+    void successClearsTheUsernameBackoffButOnlyOneAddressFailure() {
+        LoginThrottle throttle = throttle(100, 100, 2, 1000, 2, "");
+
+        throttle.recordFailure("ali", ADDRESS);
+        throttle.recordFailure("ali", ADDRESS);
+        throttle.recordFailure("reza", ADDRESS);
+        assertThatThrownBy(() -> throttle.checkAttempt("sara", ADDRESS)).isInstanceOf(LoginThrottledException.class);
+
+        // Three address failures, one taken off: still at the free limit, so still blocked
+        throttle.recordSuccess("ali", ADDRESS);
+        assertThatThrownBy(() -> throttle.checkAttempt("sara", ADDRESS)).isInstanceOf(LoginThrottledException.class);
+
+        // Below the free limit the address block is lifted, and ali's own backoff is gone
+        throttle.recordSuccess("ali", ADDRESS);
+        assertThatCode(() -> throttle.checkAttempt("ali", ADDRESS)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void rejectsPasswordChecksBeyondTheHashBudget() throws InterruptedException {
+        LoginThrottle throttle = new LoginThrottle(1000, 5, 5, 5, 600, 600, 200, "", 1, 8, 1, 10,
+                new SimpleMeterRegistry(), now::get);
+        CountDownLatch checking = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> throttle.withHashPermit(() -> {
+            checking.countDown();
+            await(finish);
+            return true;
+        }));
+        holder.start();
+        checking.await();
+
+        try {
+            assertThatThrownBy(() -> throttle.withHashPermit(() -> true)).isInstanceOf(LoginThrottledException.class);
+        } finally {
+            finish.countDown();
+            holder.join();
+        }
+        assertThat(throttle.withHashPermit(() -> true)).isTrue();
+    }
+
+    private LoginThrottle throttle(int userCapacity, double userRefillPerMinute, int userFreeFailures,
+                                   int ipCapacity, int ipFreeFailures, String exemptRanges) {
+        return new LoginThrottle(1000, userCapacity, userRefillPerMinute, userFreeFailures,
+                ipCapacity, ipCapacity, ipFreeFailures, exemptRanges, 1, 8, 0, 100, new SimpleMeterRegistry(),
+                now::get);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
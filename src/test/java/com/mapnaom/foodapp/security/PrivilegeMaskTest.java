@@ -0,0 +1,122 @@
+package com.mapnaom.foodapp.security;
+
+import com.mapnaom.foodapp.enums.Privilege;
+import com.mapnaom.foodapp.security.jwt.WebSecurityConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrivilegeMaskTest {
+
+    @Test
+    void everyPrivilegeHasItsOwnBit() {
+        long all = 0L;
+        for (Privilege privilege : Privilege.values()) {
+            long bit = PrivilegeMask.bit(privilege);
+            assertThat(Long.bitCount(bit)).isEqualTo(1);
+            assertThat(all & bit).isZero();
+            all |= bit;
+        }
+    }
+
+    @Test
+    void privilegesRoundTripThroughTheMask() {
+        for (Privilege privilege : Privilege.values()) {
+            assertThat(PrivilegeMask.toPrivileges(PrivilegeMask.of(privilege))).containsExactly(privilege);
+        }
+
+        Set<Privilege> all = EnumSet.allOf(Privilege.class);
+        assertThat(PrivilegeMask.toPrivileges(PrivilegeMask.of(Privilege.values()))).isEqualTo(all);
+        assertThat(PrivilegeMask.toPrivileges(0L)).isEmpty();
+    }
+
+    @Test
+    void authoritiesRoundTripThroughTheMask() {
+        List<GrantedAuthority> authorities = List.of(
+                new SimpleGrantedAuthority(Privilege.VIEW_DISH.name()),
+                new SimpleGrantedAuthority(Privilege.CREATE_RESERVATION.name()),
+                new SimpleGrantedAuthority(Privilege.UPDATE_APP_SETTING.name()));
+
+        long mask = PrivilegeMask.of(authorities);
+
+        assertThat(PrivilegeMask.toPrivileges(mask)).containsExactlyInAnyOrder(
+                Privilege.VIEW_DISH, Privilege.CREATE_RESERVATION, Privilege.UPDATE_APP_SETTING);
+        assertThat(mask).isEqualTo(PrivilegeMask.of(
+                Privilege.VIEW_DISH, Privilege.CREATE_RESERVATION, Privilege.UPDATE_APP_SETTING));
+    }
+
+    @Test
+    void ignoresAuthoritiesThatAreNotPrivileges() {
+        List<GrantedAuthority> authorities = List.of(
+                new SimpleGrantedAuthority("ROLE_ADMIN"),
+                new SimpleGrantedAuthority("view_dish"),
+                new SimpleGrantedAuthority(Privilege.STAFF.name()));
+
+        assertThat(PrivilegeMask.of(authorities)).isEqualTo(PrivilegeMask.bit(Privilege.STAFF));
+        assertThat(PrivilegeMask.of((List<GrantedAuthority>) null)).isZero();
+        assertThat(PrivilegeMask.bitOf(null)).isZero();
+    }
+
+    @Test
+    void includesPrivilegesImpliedByRoles() {
+        RoleHierarchy roleHierarchy = WebSecurityConfig.roleHierarchy();
+        List<GrantedAuthority> staff = List.of(new SimpleGrantedAuthority(WebSecurityConfig.STAFF));
+
+        long mask = PrivilegeMask.of(staff, roleHierarchy);
+
+        assertThat(PrivilegeMask.of(staff)).isZero();
+        assertThat(PrivilegeMask.has(mask, Privilege.VIEW_ORDERS_TO_PREPARE)).isTrue();
+        assertThat(PrivilegeMask.has(mask, Privilege.UPDATE_DISH_AVAILABILITY)).isTrue();
+        assertThat(PrivilegeMask.has(mask, Privilege.MANAGE_SETTINGS)).isFalse();
+        assertThat(PrivilegeMask.of(new UsernamePasswordAuthenticationToken("ali", null, staff), roleHierarchy))
+                .isEqualTo(mask);
+    }
+
+    @Test
+    void hasPrivilegeExpressionFollowsTheRoleHierarchy() {
+        List<GrantedAuthority> staff = List.of(new SimpleGrantedAuthority(WebSecurityConfig.STAFF));
+        PrivilegeSecurityExpressionRoot root = new PrivilegeSecurityExpressionRoot(
+                () -> new UsernamePasswordAuthenticationToken("ali", null, staff));
+        root.setRoleHierarchy(WebSecurityConfig.roleHierarchy());
+
+        assertThat(root.hasAuthority(Privilege.VIEW_ORDERS_TO_PREPARE.name())).isTrue();
+        assertThat(root.hasPrivilege(Privilege.VIEW_ORDERS_TO_PREPARE.name())).isTrue();
+        assertThat(root.hasPrivilege(Privilege.VIEW_REPORTS.name())).isFalse();
+    }
+
+    @Test
+    void checksSingleAllAndAnyPrivileges() {
+        long mask = PrivilegeMask.of(Privilege.VIEW_DISH, Privilege.EDIT_DISH);
+
+        assertThat(PrivilegeMask.has(mask, Privilege.VIEW_DISH)).isTrue();
+        assertThat(PrivilegeMask.has(mask, Privilege.DELETE_DISH)).isFalse();
+        assertThat(PrivilegeMask.hasAll(mask, PrivilegeMask.of(Privilege.VIEW_DISH, Privilege.EDIT_DISH))).isTrue();
+        assertThat(PrivilegeMask.hasAll(mask, PrivilegeMask.of(Privilege.VIEW_DISH, Privilege.DELETE_DISH))).isFalse();
+        assertThat(PrivilegeMask.hasAny(mask, PrivilegeMask.of(Privilege.DELETE_DISH, Privilege.EDIT_DISH))).isTrue();
+        assertThat(PrivilegeMask.hasAny(mask, PrivilegeMask.of(Privilege.ADMIN))).isFalse();
+    }
+
+    @Test
+    void readsThePrecomputedMaskOfAPrivilegeToken() {
+        List<GrantedAuthority> authorities = Arrays.stream(Privilege.values())
+                .map(privilege -> (GrantedAuthority) new SimpleGrantedAuthority(privilege.name()))
+                .toList();
+        long precomputed = PrivilegeMask.of(Privilege.STAFF);
+
+        PrivilegeAuthenticationToken token = new PrivilegeAuthenticationToken("ali", authorities, precomputed);
+        UsernamePasswordAuthenticationToken plain = new UsernamePasswordAuthenticationToken("ali", null, authorities);
+
+        assertThat(PrivilegeMask.of(token)).isEqualTo(precomputed);
+        assertThat(PrivilegeMask.of(plain)).isEqualTo(PrivilegeMask.of(Privilege.values()));
+        assertThat(PrivilegeMask.of((UsernamePasswordAuthenticationToken) null)).isZero();
+    }
+}
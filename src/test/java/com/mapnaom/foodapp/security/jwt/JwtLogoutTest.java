@@ -0,0 +1,152 @@
+package com.mapnaom.foodapp.security.jwt;
+
+import com.mapnaom.foodapp.security.LoginThrottle;
+import com.mapnaom.foodapp.security.RevokedTokenRepository;
+import com.mapnaom.foodapp.security.SecurityEpochRegistry;
+import com.mapnaom.foodapp.security.TokenRevocationService;
+import com.mapnaom.foodapp.security.UserDetailsCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs logout through the real security filter chain, so the endpoint has to be reachable
+ * and the revoked tokens have to be rejected by the JWT filter and the refresh endpoint.
+ */
+class JwtLogoutTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private AnnotationConfigWebApplicationContext context;
+    private MockMvc mockMvc;
+    private JwtService jwtService;
+    private UserDetails user;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "jwt.secret", SECRET,
+                "jwt.expiration", "900000")));
+        context.register(TestConfig.class);
+        context.refresh();
+
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        jwtService = context.getBean(JwtService.class);
+        user = new User("ali", "", List.of(new SimpleGrantedAuthority(WebSecurityConfig.USER)));
+        when(context.getBean(JwtUserDetailsService.class).loadUserByUsername("ali")).thenReturn(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Test
+    void tokensRevokedByLogoutAreRejected() throws Exception {
+        String accessToken = jwtService.generateAccessToken(user);
+        String refreshToken = jwtService.generateRefreshToken(user);
+
+        mockMvc.perform(get("/api/v1/auth/validate").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/auth/logout")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/auth/validate").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void logoutWithoutTokenSucceeds() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/logout")).andExpect(status().isOk());
+    }
+
+    @Test
+    void otherUserKeepsAccessAfterLogout() throws Exception {
+        UserDetails other = new User("reza", "", List.of(new SimpleGrantedAuthority(WebSecurityConfig.USER)));
+        when(context.getBean(JwtUserDetailsService.class).loadUserByUsername("reza")).thenReturn(other);
+        String otherToken = jwtService.generateAccessToken(other);
+
+        mockMvc.perform(post("/api/v1/auth/logout")
+                        .header("Authorization", "Bearer " + jwtService.generateAccessToken(user)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/auth/validate").header("Authorization", "Bearer " + otherToken))
+                .andExpect(status().isOk());
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @Import({WebSecurityConfig.class, JwtAuthenticationController.class, JwtRequestFilter.class,
+            JwtService.class, JwtTokenUtil.class, TokenRevocationService.class, UserDetailsCache.class})
+    static class TestConfig {
+
+        @Bean
+        JwtUserDetailsService jwtUserDetailsService() {
+            return mock(JwtUserDetailsService.class);
+        }
+
+        @Bean
+        SecurityEpochRegistry securityEpochRegistry() {
+            SecurityEpochRegistry registry = mock(SecurityEpochRegistry.class);
+            when(registry.isCurrent(anyString(), anyLong())).thenReturn(true);
+            return registry;
+        }
+
+        @Bean
+        RevokedTokenRepository revokedTokenRepository() {
+            RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+            when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+            return repository;
+        }
+
+        @Bean
+        LoginThrottle loginThrottle() {
+            return mock(LoginThrottle.class);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.PayrollDeductionRowDto;
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.repositories.ReservationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PayrollExportServiceTest {
+
+    private final ReservationRepository reservationRepository = mock(ReservationRepository.class);
+    private final PayrollExportService service = new PayrollExportService(reservationRepository);
+
+    @Test
+    void rejectsMonthOutOfRange() {
+        assertThatThrownBy(() -> service.validate(1404, 0, PayrollExportService.Format.CSV))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.validate(1404, 13, PayrollExportService.Format.FIXED))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsPersonnelCodesTooLongForTheFixedLayout() {
+        when(reservationRepository.findPayrollPersCodesLongerThan(1404, 7, PayrollExportService.DEDUCTED_STATUSES, 10))
+                .thenReturn(List.of("12345678901"));
+
+        assertThatThrownBy(() -> service.validate(1404, 7, PayrollExportService.Format.FIXED))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("12345678901");
+    }
+
+    @Test
+    void csvDoesNotCheckCodeLengths() {
+        assertThatCode(() -> service.validate(1404, 7, PayrollExportService.Format.CSV)).doesNotThrowAnyException();
+        verify(reservationRepository, never()).findPayrollPersCodesLongerThan(anyInt(), anyInt(), eq(PayrollExportService.DEDUCTED_STATUSES), anyInt());
+    }
+
+    @Test
+    void deductsEveryStatusButCancelled() {
+        assertThat(PayrollExportService.DEDUCTED_STATUSES)
+                .contains(ReservationStatus.EXPIRED, ReservationStatus.DELIVERED)
+                .doesNotContain(ReservationStatus.CANCELLED);
+    }
+
+    @Test
+    void writesRecordsAndChecksummedTrailer() throws IOException {
+        when(reservationRepository.streamPayrollDeductions(1404, 7, PayrollExportService.DEDUCTED_STATUSES))
+                .thenReturn(Stream.of(
+                        new PayrollDeductionRowDto(" 1001 ", 3L, new BigDecimal("450000.40")),
+                        new PayrollDeductionRowDto("1002", 1L, new BigDecimal("150000.50"))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeDeductions(1404, 7, PayrollExportService.Format.FIXED, out);
+
+        String file = out.toString(StandardCharsets.US_ASCII);
+        String records = "1001      0003000000000450000\r\n"
+                + "1002      0001000000000150001\r\n";
+        CRC32 crc = new CRC32();
+        crc.update(records.getBytes(StandardCharsets.US_ASCII));
+        assertThat(file).isEqualTo(records + "T%010d%015d%08X\r\n".formatted(2, 600001, crc.getValue()));
+    }
+}
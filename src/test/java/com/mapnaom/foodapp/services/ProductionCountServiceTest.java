@@ -0,0 +1,127 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.events.GuestMealsChangedEvent;
+import com.mapnaom.foodapp.events.ProductionSlot;
+import com.mapnaom.foodapp.events.ReservationChangedEvent;
+import com.mapnaom.foodapp.events.ReservationChangedEvent.Change;
+import com.mapnaom.foodapp.models.ProductionCount;
+import com.mapnaom.foodapp.repositories.DailyMealRepository;
+import com.mapnaom.foodapp.repositories.ProductionCountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductionCountServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 10, 1);
+    private static final ProductionSlot RICE = new ProductionSlot(DAY, 11L, 31L, false);
+    private static final ProductionSlot RICE_SERVED = new ProductionSlot(DAY, 11L, 31L, true);
+    private static final ProductionSlot KEBAB = new ProductionSlot(DAY, 11L, 32L, false);
+
+    private final ProductionCountRepository repository = mock(ProductionCountRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ProductionCountService service = new ProductionCountService(repository,
+            mock(DailyMealRepository.class), mock(AppSettingService.class), Runnable::run, transactionManager);
+
+    @Test
+    void bookingIncrementsWithAnUpsert() {
+        service.onReservationChanged(new ReservationChangedEvent(1L, Change.CREATED, null, RICE));
+
+        verify(repository).upsertCounts(DAY, 11L, 31L, 1, 0, 0);
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void cancellingDecrementsTheExistingCounterOnly() {
+        when(repository.addCounts(11L, 31L, -1, -1, 0)).thenReturn(1);
+
+        service.onReservationChanged(new ReservationChangedEvent(1L, Change.UPDATED, RICE_SERVED, null));
+
+        verify(repository).addCounts(11L, 31L, -1, -1, 0);
+        // A negative delta must never insert a counter
+        verify(repository, never()).upsertCounts(any(), anyLong(), anyLong(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void decrementOfAMissingCounterCreatesNothing() {
+        when(repository.addCounts(11L, 31L, -1, 0, 0)).thenReturn(0);
+
+        service.onReservationChanged(new ReservationChangedEvent(1L, Change.DELETED, RICE, null));
+        service.onGuestMealsChanged(new GuestMealsChangedEvent(RICE, -2));
+
+        verify(repository).addCounts(11L, 31L, -1, 0, 0);
+        verify(repository).addCounts(11L, 31L, 0, 0, -2);
+        verify(repository, never()).upsertCounts(any(), anyLong(), anyLong(), anyInt(), anyInt(), anyInt());
+        verify(repository, never()).upsertAbsoluteCounts(any(), anyLong(), anyLong(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void changingTheDishMovesThePortion() {
+        when(repository.addCounts(11L, 31L, -1, 0, 0)).thenReturn(1);
+
+        service.onReservationChanged(new ReservationChangedEvent(1L, Change.UPDATED, RICE, KEBAB));
+
+        verify(repository).addCounts(11L, 31L, -1, 0, 0);
+        verify(repository).upsertCounts(DAY, 11L, 32L, 1, 0, 0);
+    }
+
+    @Test
+    void deliveryAndReturnOnlyMoveTheDeliveredCount() {
+        when(repository.addCounts(11L, 31L, 0, -1, 0)).thenReturn(1);
+
+        service.onReservationChanged(new ReservationChangedEvent(1L, Change.DELIVERED, RICE, RICE_SERVED));
+        service.onReservationChanged(new ReservationChangedEvent(1L, Change.RETURNED, RICE_SERVED, RICE));
+        service.onReservationChanged(new ReservationChangedEvent(1L, Change.UPDATED, RICE, RICE));
+
+        verify(repository).upsertCounts(DAY, 11L, 31L, 0, 1, 0);
+        verify(repository).addCounts(11L, 31L, 0, -1, 0);
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void rebuildOverwritesTheLockedCountersWithTheRecount() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        ProductionCount rice = new ProductionCount(DAY, 11L, 31L, 7, 7, 7);
+        ProductionCount kebab = new ProductionCount(DAY, 11L, 32L, 3, 0, 1);
+        when(repository.lockByMealDate(DAY)).thenReturn(List.of(rice, kebab));
+        List<ProductionCountRepository.SlotCount> reservations = List.of(slotCount(31L, 4, 1), slotCount(40L, 2, 0));
+        List<ProductionCountRepository.SlotCount> guests = List.of(slotCount(31L, 2, 0));
+        when(repository.countReservations(DAY, ReservationStatus.CANCELLED, ReservationStatus.DELIVERED))
+                .thenReturn(reservations);
+        when(repository.countGuests(DAY)).thenReturn(guests);
+
+        assertThat(service.rebuild(DAY)).isEqualTo(3);
+
+        verify(repository).insertMissingForDate(DAY);
+        assertThat(rice).extracting(ProductionCount::getReservedCount, ProductionCount::getDeliveredCount,
+                ProductionCount::getGuestCount).containsExactly(4, 1, 2);
+        assertThat(kebab).extracting(ProductionCount::getReservedCount, ProductionCount::getDeliveredCount,
+                ProductionCount::getGuestCount).containsExactly(0, 0, 0);
+        // Dish 40 left the menu but still has bookings
+        verify(repository).upsertAbsoluteCounts(DAY, 11L, 40L, 2, 0, 0);
+    }
+
+    private static ProductionCountRepository.SlotCount slotCount(Long dishId, long total, long delivered) {
+        ProductionCountRepository.SlotCount row = mock(ProductionCountRepository.SlotCount.class);
+        when(row.getMealDate()).thenReturn(DAY);
+        when(row.getDailyMealId()).thenReturn(11L);
+        when(row.getDishId()).thenReturn(dishId);
+        when(row.getTotal()).thenReturn(total);
+        when(row.getDelivered()).thenReturn(delivered);
+        return row;
+    }
+}
@@ -0,0 +1,268 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.MonthPlanDayResultDto;
+import com.mapnaom.foodapp.dtos.MonthPlanRequestDto;
+import com.mapnaom.foodapp.dtos.MonthPlanResultDto;
+import com.mapnaom.foodapp.dtos.ReservationDto;
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.events.ReservationChangedEvent;
+import com.mapnaom.foodapp.events.ReservationChangedEvent.Change;
+import com.mapnaom.foodapp.exceptions.StaleVersionException;
+import com.mapnaom.foodapp.mappers.DailyPersonnelReservationListMapper;
+import com.mapnaom.foodapp.mappers.PersonnelReservationMapper;
+import com.mapnaom.foodapp.mappers.ReservationListMapper;
+import com.mapnaom.foodapp.mappers.ReservationMapper;
+import com.mapnaom.foodapp.models.AppSetting;
+import com.mapnaom.foodapp.models.CostShare;
+import com.mapnaom.foodapp.models.DailyMeal;
+import com.mapnaom.foodapp.models.DailyMealDish;
+import com.mapnaom.foodapp.models.Dish;
+import com.mapnaom.foodapp.models.Personnel;
+import com.mapnaom.foodapp.models.Reservation;
+import com.mapnaom.foodapp.repositories.DailyMealDishRepository;
+import com.mapnaom.foodapp.repositories.DailyMealRepository;
+import com.mapnaom.foodapp.repositories.PersonnelRepository;
+import com.mapnaom.foodapp.repositories.ReservationRepository;
+import com.mapnaom.foodapp.utils.JalaliUtils;
+import com.mapnaom.foodapp.utils.PrivilegeChecker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReservationServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 9, 23);
+
+    private final ReservationRepository reservationRepository = mock(ReservationRepository.class);
+    private final PersonnelRepository personnelRepository = mock(PersonnelRepository.class);
+    private final DailyMealDishRepository dailyMealDishRepository = mock(DailyMealDishRepository.class);
+    private final DailyMealRepository dailyMealRepository = mock(DailyMealRepository.class);
+    private final AppSettingService appSettingService = mock(AppSettingService.class);
+    private final PricingEngine pricingEngine = mock(PricingEngine.class);
+    private final PrivilegeChecker privilegeChecker = mock(PrivilegeChecker.class);
+    private final DailyMealDishService dailyMealDishService = mock(DailyMealDishService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private final ReservationService service = new ReservationService(reservationRepository,
+            mock(ReservationListMapper.class), mock(PersonnelReservationMapper.class), personnelRepository,
+            dailyMealDishRepository, mock(DailyPersonnelReservationListMapper.class), dailyMealRepository,
+            mock(ReservationMapper.class), appSettingService, pricingEngine, privilegeChecker,
+            dailyMealDishService, eventPublisher);
+
+    @BeforeEach
+    void setUp() {
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(appSettingService.getSnapshot())
+                .thenReturn(AppSettingSnapshot.of(new AppSetting(), ZoneId.of("Asia/Tehran"), TODAY));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void clearingCancelsTheReservationAndDropsTheCostShare() {
+        DailyMeal dailyMeal = dailyMeal(11L, LocalDate.of(2025, 10, 1));
+        DailyMealDish dailyMealDish = dailyMealDish(21L, dailyMeal, 31L);
+        Reservation reservation = reservation(41L, dailyMeal, dailyMealDish, ReservationStatus.ACTIVE);
+        reservation.setCostShare(new CostShare());
+        when(reservationRepository.findByPersonnelIdAndDailyMeal_Id(1L, 11L)).thenReturn(Optional.of(reservation));
+
+        service.clearDish(1L, 11L);
+
+        assertThat(reservation.getReservationStatus()).isEqualTo(ReservationStatus.CANCELLED);
+        assertThat(reservation.getCostShare()).isNull();
+        assertThat(reservation.getDailyMealDish()).isSameAs(dailyMealDish);
+
+        ReservationChangedEvent event = publishedEvent();
+        assertThat(event.getChange()).isEqualTo(Change.CLEARED);
+        assertThat(event.getBefore()).isNotNull();
+        assertThat(event.getAfter()).isNull();
+        assertThat(event.affectsProduction()).isTrue();
+    }
+
+    @Test
+    void updateFromAStaleVersionIsRejected() {
+        Reservation reservation = bookedReservation();
+        reservation.setVersion(3);
+        ReservationDto dto = new ReservationDto();
+        dto.setId(41L);
+        dto.setVersion(2L);
+        dto.setReservationStatus(ReservationStatus.DELIVERED);
+
+        assertThatThrownBy(() -> service.upsertReservation(dto)).isInstanceOf(StaleVersionException.class);
+        assertThat(reservation.getReservationStatus()).isEqualTo(ReservationStatus.ACTIVE);
+        verify(reservationRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void updateFromTheCurrentVersionOrWithoutOneIsApplied() {
+        Reservation reservation = bookedReservation();
+        reservation.setVersion(3);
+        ReservationDto dto = new ReservationDto();
+        dto.setId(41L);
+        dto.setVersion(3L);
+        dto.setReservationStatus(ReservationStatus.DELIVERED);
+
+        service.upsertReservation(dto);
+        assertThat(reservation.getReservationStatus()).isEqualTo(ReservationStatus.DELIVERED);
+
+        dto.setVersion(null);
+        dto.setReservationStatus(ReservationStatus.ACTIVE);
+        service.upsertReservation(dto);
+        assertThat(reservation.getReservationStatus()).isEqualTo(ReservationStatus.ACTIVE);
+        verify(reservationRepository, times(2)).save(reservation);
+    }
+
+    @Test
+    void planRejectsDaysThatAreNotInTheMonth() {
+        // Mehr has 30 days, and Esfand 1404 is not a leap month
+        for (int day : new int[]{0, -1, 31}) {
+            assertThatThrownBy(() -> service.planMonth(plan(7, Map.of(day, 21L))))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> service.planMonth(plan(12, Map.of(30, 21L))))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(personnelRepository, dailyMealDishRepository, reservationRepository);
+        assertThat(JalaliUtils.lengthOfMonth(1403, 12)).isEqualTo(30);
+        assertThat(JalaliUtils.lengthOfMonth(1404, 12)).isEqualTo(29);
+    }
+
+    @Test
+    void planChangesTheDishOfADay() {
+        DailyMeal dailyMeal = dailyMeal(11L, LocalDate.of(2025, 9, 27));
+        DailyMealDish current = dailyMealDish(21L, dailyMeal, 31L);
+        DailyMealDish other = dailyMealDish(22L, dailyMeal, 32L);
+        Reservation reservation = reservation(41L, dailyMeal, current, ReservationStatus.ACTIVE);
+        monthOf(List.of(current, other), List.of(reservation));
+        when(dailyMealDishService.tryReservePortions(other, 1)).thenReturn(true);
+
+        MonthPlanResultDto result = service.planMonth(plan(7, Map.of(5, 32L)));
+
+        assertThat(result.getDays()).singleElement().satisfies(day -> {
+            assertThat(day.getStatus()).isEqualTo(MonthPlanDayResultDto.Status.RESERVED);
+            assertThat(day.getReservationId()).isEqualTo(41L);
+        });
+        assertThat(reservation.getDailyMealDish()).isSameAs(other);
+        assertThat(publishedEvent().getChange()).isEqualTo(Change.UPDATED);
+    }
+
+    @Test
+    void planCancelsADayWithoutADish() {
+        DailyMeal dailyMeal = dailyMeal(11L, LocalDate.of(2025, 9, 27));
+        DailyMealDish dailyMealDish = dailyMealDish(21L, dailyMeal, 31L);
+        Reservation reservation = reservation(41L, dailyMeal, dailyMealDish, ReservationStatus.ACTIVE);
+        monthOf(List.of(dailyMealDish), List.of(reservation));
+        Map<Integer, Long> days = new HashMap<>();
+        days.put(5, null);
+
+        MonthPlanResultDto result = service.planMonth(plan(7, days));
+
+        assertThat(result.getDays()).singleElement()
+                .extracting(MonthPlanDayResultDto::getStatus).isEqualTo(MonthPlanDayResultDto.Status.CANCELLED);
+        assertThat(reservation.getReservationStatus()).isEqualTo(ReservationStatus.CANCELLED);
+        assertThat(publishedEvent().getAfter()).isNull();
+    }
+
+    @Test
+    void planRejectsAClosedDayAndKeepsTheOthers() {
+        when(appSettingService.getSnapshot())
+                .thenReturn(AppSettingSnapshot.of(new AppSetting(), ZoneId.of("Asia/Tehran"), LocalDate.of(2025, 9, 28)));
+        DailyMeal closedMeal = dailyMeal(11L, LocalDate.of(2025, 9, 27));
+        DailyMeal openMeal = dailyMeal(12L, LocalDate.of(2025, 9, 29));
+        DailyMealDish closedDish = dailyMealDish(21L, closedMeal, 31L);
+        DailyMealDish openDish = dailyMealDish(22L, openMeal, 31L);
+        monthOf(List.of(closedDish, openDish), List.of());
+        when(dailyMealDishService.tryReservePortions(openDish, 1)).thenReturn(true);
+
+        MonthPlanResultDto result = service.planMonth(plan(7, Map.of(5, 31L, 7, 31L)));
+
+        assertThat(result.getDays()).extracting(MonthPlanDayResultDto::getDay, MonthPlanDayResultDto::getStatus)
+                .containsExactly(tuple(5, MonthPlanDayResultDto.Status.REJECTED),
+                        tuple(7, MonthPlanDayResultDto.Status.RESERVED));
+        verify(dailyMealDishService, never()).tryReservePortions(closedDish, 1);
+        verify(reservationRepository).saveAll(argThat(reservations ->
+                reservations.iterator().next().getDailyMealDish() == openDish));
+    }
+
+    private void monthOf(List<DailyMealDish> menu, List<Reservation> reservations) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("ali", null, List.of()));
+        Personnel personnel = new Personnel();
+        personnel.setId(1L);
+        when(personnelRepository.findPersonnelByUsername("ali")).thenReturn(Optional.of(personnel));
+        when(dailyMealDishRepository.findMonthMenu(1404, 7)).thenReturn(menu);
+        when(reservationRepository.findMonthOfPersonnel(1L, 1404, 7)).thenReturn(reservations);
+    }
+
+    private static MonthPlanRequestDto plan(int jMonth, Map<Integer, Long> days) {
+        return new MonthPlanRequestDto(1404, jMonth, days);
+    }
+
+    private Reservation bookedReservation() {
+        DailyMeal dailyMeal = dailyMeal(11L, LocalDate.of(2025, 10, 1));
+        Reservation reservation = reservation(41L, dailyMeal, dailyMealDish(21L, dailyMeal, 31L), ReservationStatus.ACTIVE);
+        when(reservationRepository.findById(41L)).thenReturn(Optional.of(reservation));
+        return reservation;
+    }
+
+    private ReservationChangedEvent publishedEvent() {
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        return (ReservationChangedEvent) event.getValue();
+    }
+
+    static DailyMeal dailyMeal(Long id, LocalDate date) {
+        DailyMeal dailyMeal = new DailyMeal();
+        dailyMeal.setId(id);
+        dailyMeal.setDate(date);
+        dailyMeal.setJalaliDay(JalaliUtils.toJalali(date).getDay());
+        return dailyMeal;
+    }
+
+    static DailyMealDish dailyMealDish(Long id, DailyMeal dailyMeal, Long dishId) {
+        Dish dish = new Dish();
+        dish.setId(dishId);
+        DailyMealDish dailyMealDish = new DailyMealDish();
+        dailyMealDish.setId(id);
+        dailyMealDish.setDailyMeal(dailyMeal);
+        dailyMealDish.setDish(dish);
+        return dailyMealDish;
+    }
+
+    static Reservation reservation(Long id, DailyMeal dailyMeal, DailyMealDish dailyMealDish, ReservationStatus status) {
+        Personnel personnel = new Personnel();
+        personnel.setId(1L);
+        Reservation reservation = new Reservation();
+        reservation.setId(id);
+        reservation.setPersonnel(personnel);
+        reservation.setDailyMeal(dailyMeal);
+        reservation.setDailyMealDish(dailyMealDish);
+        reservation.setReservationStatus(status);
+        return reservation;
+    }
+}
@@ -0,0 +1,99 @@
+package com.mapnaom.foodapp.snapshots;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mapnaom.foodapp.dtos.DailyMealListDto;
+import com.mapnaom.foodapp.events.DishChangedEvent;
+import com.mapnaom.foodapp.models.AppSetting;
+import com.mapnaom.foodapp.services.AppSettingService;
+import com.mapnaom.foodapp.services.AppSettingSnapshot;
+import com.mapnaom.foodapp.services.DailyMealService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MenuSnapshotPublisherTest {
+
+    // 1404/07/01
+    private static final LocalDate TODAY = LocalDate.of(2025, 9, 23);
+
+    @TempDir
+    Path directory;
+
+    private final DailyMealService dailyMealService = mock(DailyMealService.class);
+    private final AppSettingService appSettingService = mock(AppSettingService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private MenuSnapshotPublisher publisher;
+    private List<DailyMealListDto> menu;
+
+    @BeforeEach
+    void setUp() {
+        when(appSettingService.getSnapshot())
+                .thenReturn(AppSettingSnapshot.of(new AppSetting(), ZoneId.of("Asia/Tehran"), TODAY));
+        menu = List.of(new DailyMealListDto(1L, TODAY, List.of()));
+        when(dailyMealService.getAllDailyMealListByJalaliYearAndJalaliMonth(anyInt(), anyInt()))
+                .thenAnswer(invocation -> menu);
+        publisher = new MenuSnapshotPublisher(dailyMealService, appSettingService, objectMapper,
+                Runnable::run, directory.toString(), 3);
+    }
+
+    @Test
+    void dishChangeRepublishesEveryPublishedMonth() throws IOException {
+        String oldMonth = publisher.publish(1403, 2);
+        String current = publisher.publish(1404, 7);
+        assertThat(oldMonth).isEqualTo(current);
+
+        menu = List.of(new DailyMealListDto(1L, TODAY,
+                List.of(new DailyMealListDto.DailyMealDishDto1(5L, null))));
+        publisher.onDishChanged(new DishChangedEvent(5L));
+
+        String republished = manifestVersion(1403, 2);
+        assertThat(republished).isNotEqualTo(oldMonth);
+        assertThat(manifestVersion(1404, 7)).isEqualTo(republished);
+        assertThat(manifestVersion(1404, 8)).isEqualTo(republished);
+        assertThat(directory.resolve("1403-02").resolve("menu.%s.json.gz".formatted(republished))).exists();
+    }
+
+    @Test
+    void listsOnlyMonthsWithAManifest() throws IOException {
+        publisher.publish(1403, 11);
+        Files.createDirectories(directory.resolve("1402-01"));
+        Files.createDirectories(directory.resolve("unrelated"));
+
+        assertThat(publisher.publishedMonths()).extracting(month -> month[0] + "-" + month[1])
+                .containsExactly("1403-11");
+    }
+
+    @Test
+    void keepsTheNewestVersions() throws IOException {
+        for (long id = 1; id <= 5; id++) {
+            menu = List.of(new DailyMealListDto(id, TODAY, List.of()));
+            publisher.publish(1404, 7);
+        }
+
+        try (var files = Files.list(directory.resolve("1404-07"))) {
+            assertThat(files.filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .filter(file -> file.getFileName().toString().startsWith("menu.")))
+                    .hasSize(3);
+        }
+    }
+
+    private String manifestVersion(int jYear, int jMonth) throws IOException {
+        JsonNode manifest = objectMapper.readTree(
+                directory.resolve("%d-%02d".formatted(jYear, jMonth)).resolve("manifest.json").toFile());
+        return manifest.get("version").asText();
+    }
+}
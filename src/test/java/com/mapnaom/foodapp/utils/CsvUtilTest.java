@@ -0,0 +1,133 @@
+package com.mapnaom.foodapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvUtilTest {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final CsvUtil csvUtil = new CsvUtil(new ExcelUtil());
+
+    @Test
+    void readsQuotedFieldsWithDelimitersQuotesAndLineBreaks() throws IOException {
+        String csv = "name,note\r\n"
+                + "\"Kebab, koobideh\",\"He said \"\"no\"\"\"\r\n"
+                + "plain,\"two\r\nlines\"\r\n"
+                + "\"\",last\r\n";
+
+        List<Record> records = read(csv, ',');
+
+        assertThat(records).extracting(Record::fields).containsExactly(
+                List.of("name", "note"),
+                List.of("Kebab, koobideh", "He said \"no\""),
+                List.of("plain", "two\r\nlines"),
+                List.of("", "last"));
+    }
+
+    @Test
+    void readsTabSeparatedFields() throws IOException {
+        List<Record> records = read("a\tb,c\n1\t\"x\ty\"\n", '\t');
+
+        assertThat(records).extracting(Record::fields).containsExactly(
+                List.of("a", "b,c"),
+                List.of("1", "x\ty"));
+    }
+
+    @Test
+    void readsLastRecordWithoutTrailingLineBreak() throws IOException {
+        List<Record> records = read("a,b\n1,2", ',');
+
+        assertThat(records).extracting(Record::fields).containsExactly(
+                List.of("a", "b"),
+                List.of("1", "2"));
+    }
+
+    @Test
+    void skipsLeadingByteOrderMark() throws IOException {
+        List<Record> records = read("\uFEFFنام,کد\nعلی,1\n", ',');
+
+        assertThat(records).extracting(Record::fields).containsExactly(
+                List.of("نام", "کد"),
+                List.of("علی", "1"));
+    }
+
+    @Test
+    void keepsByteOrderMarkThatIsNotAtTheStart() throws IOException {
+        List<Record> records = read("a\n\uFEFFb\n", ',');
+
+        assertThat(records).extracting(Record::fields).containsExactly(
+                List.of("a"),
+                List.of("\uFEFFb"));
+    }
+
+    @Test
+    void treatsCarriageReturnAndLineFeedSplitAcrossBuffersAsOneLineBreak() throws IOException {
+        // The CR is the last character of the first buffer, the LF the first of the second
+        String first = "x".repeat(BUFFER_SIZE - 1);
+        List<Record> records = read(first + "\r\nsecond\r\nthird", ',');
+
+        assertThat(records).extracting(Record::recordNumber).containsExactly(1, 2, 3);
+        assertThat(records).extracting(Record::fields).containsExactly(
+                List.of(first),
+                List.of("second"),
+                List.of("third"));
+    }
+
+    @Test
+    void keepsQuotedFieldOpenAcrossBuffers() throws IOException {
+        String prefix = "x".repeat(BUFFER_SIZE - 3);
+        List<Record> records = read(prefix + ",\"a\r\nb\",c\nnext", ',');
+
+        assertThat(records).extracting(Record::fields).containsExactly(
+                List.of(prefix, "a\r\nb", "c"),
+                List.of("next"));
+    }
+
+    @Test
+    void countsBlankLinesInRecordNumbers() throws IOException {
+        List<Record> records = read("a\n\nb\r\n\r\nc", ',');
+
+        assertThat(records).extracting(Record::recordNumber).containsExactly(1, 3, 5);
+    }
+
+    @Test
+    void writtenFileReadsBackUnchanged() throws IOException {
+        Row row = new Row();
+        row.name = "Kebab, \"special\"";
+        row.note = "first line\r\nsecond line";
+        row.code = "plain";
+
+        byte[] csv = csvUtil.generateCsv(List.of(row), Row.class);
+        List<Record> records = new ArrayList<>();
+        csvUtil.readRows(new ByteArrayInputStream(csv), ',',
+                (recordNumber, fields) -> records.add(new Record(recordNumber, List.copyOf(fields))));
+
+        assertThat(csv[0]).isEqualTo((byte) 0xEF);
+        assertThat(records).hasSize(2);
+        assertThat(records.get(1).fields()).containsExactly(row.name, row.note, row.code);
+    }
+
+    private List<Record> read(String content, char delimiter) throws IOException {
+        List<Record> records = new ArrayList<>();
+        csvUtil.readRows(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), delimiter,
+                (recordNumber, fields) -> records.add(new Record(recordNumber, List.copyOf(fields))));
+        return records;
+    }
+
+    private record Record(int recordNumber, List<String> fields) {
+    }
+
+    static class Row {
+        private String name;
+        private String note;
+        private String code;
+    }
+}